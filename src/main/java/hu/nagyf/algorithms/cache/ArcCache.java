@@ -0,0 +1,263 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Optional;
+
+import hu.nagyf.algorithms.datastructures.map.HashTable;
+
+/**
+ * Adaptive Replacement Cache: a fix sized cache that balances between recency and frequency on its own.
+ *
+ * The cached entries are split between two LRU lists: T1 holds the entries used once since they entered the cache,
+ * T2 the entries used at least twice. Both lists have a ghost list (B1 and B2) that remembers the keys, but not the
+ * values, recently evicted from them. The cache aims to keep {@link #target()} entries in T1: when a key of B1 is
+ * stored again, T1 was evicting too early, so the target grows; when a key of B2 is stored again, T2 was evicting
+ * too early, so the target shrinks. Recency-heavy workloads push the cache towards T1, frequency-heavy workloads
+ * towards T2, without any tuning.
+ *
+ * Every list is an intrusive doubly linked list, so each step of the algorithm is O(1). Like {@link LRUCache}, this
+ * cache is not thread-safe.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class ArcCache<K, V> implements Cache<K, V> {
+
+    private final HashTable<K, Entry<K, V>> entries;
+
+    private final RecencyList<Entry<K, V>> t1;
+    private final RecencyList<Entry<K, V>> t2;
+    private final RecencyList<Entry<K, V>> b1;
+    private final RecencyList<Entry<K, V>> b2;
+
+    private final int capacity;
+    private final StatsCounter statsCounter;
+
+    /**
+     * The target size of T1, between 0 and the capacity.
+     */
+    private int target;
+
+    /**
+     * Initialize the cache with a capacity.
+     *
+     * @param capacity must be greater than 0.
+     */
+    public ArcCache(final int capacity) {
+        this(capacity, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity, recording its statistics.
+     *
+     * @param capacity must be greater than 0.
+     * @param statsCounter records the statistics of the cache
+     */
+    public ArcCache(final int capacity, final StatsCounter statsCounter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must be greater than 0");
+        }
+
+        this.capacity = capacity;
+        this.statsCounter = statsCounter;
+        entries = new HashTable<>();
+        t1 = new RecencyList<>();
+        t2 = new RecencyList<>();
+        b1 = new RecencyList<>();
+        b2 = new RecencyList<>();
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var entry = entries.get(key);
+        if (entry.isEmpty() || entry.get().isGhost()) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        statsCounter.recordHits(1);
+        moveTo(entry.get(), ListType.T2);
+        return Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        var entry = entries.get(key);
+        if (entry.isEmpty() || entry.get().isGhost()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        statsCounter.recordPut();
+
+        var existing = entries.get(key);
+        if (existing.isEmpty()) {
+            insert(key, value);
+            return;
+        }
+
+        var entry = existing.get();
+        switch (entry.list) {
+            case T1:
+            case T2:
+                entry.value = value;
+                moveTo(entry, ListType.T2);
+                return;
+            case B1:
+                // T1 evicted this key too early, give more room to recency
+                target = Math.min(capacity, target + Math.max(b2.size() / b1.size(), 1));
+                break;
+            case B2:
+                // T2 evicted this key too early, give more room to frequency
+                target = Math.max(0, target - Math.max(b1.size() / b2.size(), 1));
+                break;
+        }
+
+        if (t1.size() + t2.size() >= capacity) {
+            replace(entry.list == ListType.B2);
+        }
+        entry.value = value;
+        moveTo(entry, ListType.T2);
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        entries.get(key).ifPresent(entry -> {
+            listOf(entry.list).remove(entry);
+            entries.remove(key);
+        });
+    }
+
+    /**
+     * Returns the number of entries stored in the cache. The keys remembered by the ghost lists are not counted.
+     *
+     * @return the number of entries, never more than the capacity
+     */
+    public int size() {
+        return t1.size() + t2.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns the number of entries the cache currently aims to keep among the entries used only once.
+     *
+     * @return the target size of T1
+     */
+    int target() {
+        return target;
+    }
+
+    /**
+     * Stores a key that is not in any of the lists.
+     */
+    private void insert(final K key, final V value) {
+        var cached = t1.size() + t2.size();
+        if (t1.size() + b1.size() >= capacity) {
+            if (t1.size() < capacity) {
+                forget(b1.last());
+                if (cached >= capacity) {
+                    replace(false);
+                }
+            } else {
+                // B1 is empty and T1 fills the whole cache: drop its oldest entry without remembering it
+                forget(t1.last());
+                statsCounter.recordEviction();
+            }
+        } else if (cached + b1.size() + b2.size() >= capacity) {
+            if (cached + b1.size() + b2.size() >= 2 * capacity) {
+                forget(b2.last());
+            }
+            if (cached >= capacity) {
+                replace(false);
+            }
+        }
+
+        var entry = new Entry<>(key, value);
+        entries.put(key, entry);
+        t1.addFirst(entry);
+    }
+
+    /**
+     * Evicts an entry to make room: the least recently used entry of T1 if T1 is above its target,
+     * otherwise the least recently used entry of T2. The evicted key is remembered by the ghost list.
+     *
+     * @param ghostOfT2 true if the key being stored was found in B2, which breaks the tie in favor of T2
+     */
+    private void replace(final boolean ghostOfT2) {
+        if (!t1.isEmpty() && (t1.size() > target || (ghostOfT2 && t1.size() == target) || t2.isEmpty())) {
+            moveTo(t1.last(), ListType.B1);
+        } else {
+            moveTo(t2.last(), ListType.B2);
+        }
+        statsCounter.recordEviction();
+    }
+
+    /**
+     * Moves an entry to the front of a list. Entries moved to a ghost list lose their value.
+     */
+    private void moveTo(final Entry<K, V> entry, final ListType list) {
+        if (entry.list == list) {
+            listOf(list).moveToFront(entry);
+            return;
+        }
+
+        listOf(entry.list).remove(entry);
+        entry.list = list;
+        if (entry.isGhost()) {
+            entry.value = null;
+        }
+        listOf(list).addFirst(entry);
+    }
+
+    private void forget(final Entry<K, V> entry) {
+        listOf(entry.list).remove(entry);
+        entries.remove(entry.key);
+    }
+
+    private RecencyList<Entry<K, V>> listOf(final ListType list) {
+        switch (list) {
+            case T1:
+                return t1;
+            case T2:
+                return t2;
+            case B1:
+                return b1;
+            default:
+                return b2;
+        }
+    }
+
+    /**
+     * The lists an entry can be in.
+     */
+    private enum ListType {
+        T1, T2, B1, B2
+    }
+
+    /**
+     * A cache entry, or a ghost entry that only remembers its key.
+     *
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    private static class Entry<K, V> extends RecencyList.Node<Entry<K, V>> {
+        final K key;
+        V value;
+        ListType list = ListType.T1;
+
+        Entry(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean isGhost() {
+            return list == ListType.B1 || list == ListType.B2;
+        }
+    }
+}
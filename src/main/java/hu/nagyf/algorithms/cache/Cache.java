@@ -1,6 +1,11 @@
 package hu.nagyf.algorithms.cache;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Generic Cache interface for various cache implementations.
@@ -18,6 +23,19 @@ public interface Cache<K, V> {
      */
     Optional<V> get(final K key);
 
+    /**
+     * Returns a value from the cache without recording a hit or a miss, and without counting as a use of the entry,
+     * e.g. to check whether another thread has stored the value in the meantime.
+     * The default implementation calls {@link #get(Object)}, the caches that record statistics or track the use of
+     * their entries override it.
+     *
+     * @param key the key to retrieve a value for
+     * @return an Optional value of V
+     */
+    default Optional<V> peek(final K key) {
+        return get(key);
+    }
+
     /**
      * Stores a new value in the cache.
      *
@@ -25,4 +43,113 @@ public interface Cache<K, V> {
      * @param value the value itself
      */
     void put(final K key, final V value);
+
+    /**
+     * Removes a value from the cache. Does nothing if the key is not in the cache.
+     *
+     * @param key the key to remove
+     */
+    void invalidate(final K key);
+
+    /**
+     * Returns a value from the cache, or computes it with the loader and stores it if it is missing.
+     * The default implementation does not coordinate concurrent calls, so the same value can be loaded
+     * several times in parallel. See {@link LoadingCache} for a cache that loads every missing key only once.
+     *
+     * @param key the key to retrieve a value for
+     * @param loader computes the value if it is not in the cache
+     * @return the cached or the loaded value, null if the loader returned null
+     */
+    default V get(final K key, final Function<? super K, ? extends V> loader) {
+        var cached = get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the values of several keys from the cache.
+     * The default implementation looks up the keys one by one, the implementations override it when a batch
+     * can be served more efficiently, e.g. by taking a lock once for every key it guards.
+     *
+     * @param keys the keys to retrieve the values for
+     * @return the keys that are in the cache, mapped to their values
+     */
+    default Map<K, V> getAll(final Iterable<? extends K> keys) {
+        var result = new HashMap<K, V>();
+        for (var key : keys) {
+            get(key).ifPresent(value -> result.put(key, value));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of several keys from the cache, loading the missing ones with a single call of the loader.
+     * The loaded values are stored in the cache. The loader can leave out keys it has no value for.
+     *
+     * @param keys the keys to retrieve the values for
+     * @param batchLoader loads the values of the missing keys
+     * @return the keys that are in the cache or were loaded, mapped to their values
+     */
+    default Map<K, V> getAll(final Iterable<? extends K> keys,
+            final Function<? super Set<K>, ? extends Map<? extends K, ? extends V>> batchLoader) {
+        var result = getAll(keys);
+
+        var missing = new HashSet<K>();
+        for (var key : keys) {
+            if (!result.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            var loaded = new HashMap<K, V>();
+            batchLoader.apply(missing).forEach((key, value) -> {
+                if (value != null && missing.contains(key)) {
+                    loaded.put(key, value);
+                }
+            });
+            putAll(loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    /**
+     * Stores several values in the cache.
+     * The default implementation stores the values one by one.
+     *
+     * @param entries the keys and the values to store
+     */
+    default void putAll(final Map<? extends K, ? extends V> entries) {
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Removes several values from the cache.
+     * The default implementation removes the values one by one.
+     *
+     * @param keys the keys to remove
+     */
+    default void invalidateAll(final Iterable<? extends K> keys) {
+        for (var key : keys) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the statistics recorded by the cache.
+     * The caches only record statistics if they were created with a {@link StatsCounter}.
+     *
+     * @return the snapshot of the statistics, empty if the cache does not record statistics
+     */
+    default CacheStats stats() {
+        return CacheStats.empty();
+    }
 }
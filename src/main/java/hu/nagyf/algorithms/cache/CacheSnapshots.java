@@ -0,0 +1,138 @@
+package hu.nagyf.algorithms.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import hu.nagyf.algorithms.serialization.ChannelReader;
+import hu.nagyf.algorithms.serialization.ChannelWriter;
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * Saves the contents of an {@link LRUCache} to a file and loads them back, so a restarted process can start with
+ * a warm cache.
+ *
+ * The snapshot is a compact binary file: a header with a magic number and the number of entries, followed by the
+ * entries from the most recently used to the least recently used, each one as
+ * {@code [int key length][int value length][key][value]}. Both saving and loading stream the file through a small
+ * buffer, so a snapshot takes no more memory than the cache itself.
+ *
+ * Because the entries are in recency order, loading appends every entry behind the previous one: the recency list
+ * is rebuilt without moving a single entry, and no entry is evicted. The hash table of the cache is sized for the
+ * number of entries in the header, up to what the length of the file allows, before the first entry is loaded, so it
+ * is not resized while loading. When the
+ * snapshot holds more than the cache can, only the most recently used entries are loaded.
+ */
+public final class CacheSnapshots {
+    /**
+     * "LRUS" in ASCII, marks the start of a snapshot file.
+     */
+    private static final int MAGIC = 0x4C525553;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private CacheSnapshots() {
+    }
+
+    /**
+     * Writes the entries of the cache to a snapshot file, without changing their order in the cache.
+     * The snapshot is written to a temporary file first and moved in place when complete, so a crash never leaves
+     * a partial snapshot behind.
+     *
+     * @param cache the cache to save
+     * @param file the snapshot file, it is replaced if it exists
+     * @param keySerializer converts the keys to their binary form
+     * @param valueSerializer converts the values to their binary form
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    public static <K, V> void save(final LRUCache<K, V> cache, final Path file, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var writer = new ChannelWriter(channel);
+            writer.reserve(HEADER_SIZE).putInt(MAGIC).putInt(cache.size());
+            cache.forEachByRecency((key, value) -> {
+                var keyLength = keySerializer.serializedSize(key);
+                var valueLength = valueSerializer.serializedSize(value);
+                var buffer = writer.reserve(RECORD_HEADER_SIZE + keyLength + valueLength);
+                buffer.putInt(keyLength).putInt(valueLength);
+                keySerializer.serialize(key, buffer);
+                valueSerializer.serialize(value, buffer);
+            });
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write cache snapshot " + file, e);
+        } catch (UncheckedIOException e) {
+            // Thrown by the writer inside the lambda
+            throw new UncheckedIOException("Cannot write cache snapshot " + file, e.getCause());
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replace cache snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Loads the entries of a snapshot file into a cache. The entries are placed behind the entries already in the
+     * cache, and loading stops when the cache is full.
+     *
+     * @param cache the cache to load the entries into, usually an empty one
+     * @param file the snapshot file
+     * @param keySerializer converts the keys from their binary form
+     * @param valueSerializer converts the values from their binary form
+     * @param <K> type of the key
+     * @param <V> type of the value
+     * @return the number of entries loaded
+     */
+    public static <K, V> int load(final LRUCache<K, V> cache, final Path file, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var reader = new ChannelReader(channel);
+            var header = reader.require(HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a cache snapshot");
+            }
+
+            var count = header.getInt();
+            if (count < 0) {
+                throw new IllegalArgumentException(file + " is corrupted");
+            }
+
+            // The count is not trusted for sizing beyond what the file can hold, at least a record header per entry
+            cache.ensureCapacity((int)Math.min(count, (channel.size() - HEADER_SIZE) / RECORD_HEADER_SIZE));
+            var loaded = 0;
+            for (int i = 0; i < count; ++i) {
+                var lengths = reader.require(RECORD_HEADER_SIZE);
+                var keyLength = lengths.getInt();
+                var valueLength = lengths.getInt();
+                var recordLength = (long)keyLength + valueLength;
+                if (keyLength < 0 || valueLength < 0 || recordLength > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException(file + " is corrupted");
+                }
+
+                var buffer = reader.require((int)recordLength);
+                var key = keySerializer.deserialize(buffer, keyLength);
+                var value = valueSerializer.deserialize(buffer, valueLength);
+                if (!cache.restore(key, value)) {
+                    break;
+                }
+                ++loaded;
+            }
+            return loaded;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException(file + " is truncated", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cache snapshot " + file, e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable snapshot of the statistics of a cache.
+ *
+ * The load times are summarized in a histogram with power of two buckets: bucket i counts the loads that took
+ * at least 2^i and less than 2^(i+1) nanoseconds, bucket 0 also counts the loads that took 0 nanoseconds.
+ */
+public class CacheStats {
+    /**
+     * The number of buckets in the load time histogram, enough to hold any non-negative long.
+     */
+    static final int HISTOGRAM_BUCKETS = 63;
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, new long[HISTOGRAM_BUCKETS]);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long evictionCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long[] loadTimeHistogram;
+
+    public CacheStats(final long hitCount, final long missCount, final long putCount, final long evictionCount,
+            final long loadSuccessCount, final long loadFailureCount, final long totalLoadTime,
+            final long[] loadTimeHistogram) {
+        if (loadTimeHistogram.length != HISTOGRAM_BUCKETS) {
+            throw new IllegalArgumentException("The load time histogram must have " + HISTOGRAM_BUCKETS + " buckets");
+        }
+
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.loadTimeHistogram = loadTimeHistogram.clone();
+    }
+
+    /**
+     * Returns the statistics of a cache that did nothing yet, or does not record its statistics.
+     *
+     * @return the empty statistics
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public long putCount() {
+        return putCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public long loadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long loadFailureCount() {
+        return loadFailureCount;
+    }
+
+    public long loadCount() {
+        return loadSuccessCount + loadFailureCount;
+    }
+
+    /**
+     * Returns the total time spent loading values, in nanoseconds.
+     *
+     * @return the total load time
+     */
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Returns the ratio of the requests that were hits.
+     *
+     * @return the hit rate, 1.0 if there were no requests
+     */
+    public double hitRate() {
+        var requests = requestCount();
+        return requests == 0 ? 1.0 : (double)hitCount / requests;
+    }
+
+    /**
+     * Returns the ratio of the requests that were misses.
+     *
+     * @return the miss rate, 0.0 if there were no requests
+     */
+    public double missRate() {
+        var requests = requestCount();
+        return requests == 0 ? 0.0 : (double)missCount / requests;
+    }
+
+    /**
+     * Returns the average time spent loading a value, in nanoseconds.
+     *
+     * @return the average load time, 0.0 if there were no loads
+     */
+    public double averageLoadPenalty() {
+        var loads = loadCount();
+        return loads == 0 ? 0.0 : (double)totalLoadTime / loads;
+    }
+
+    /**
+     * Returns a copy of the load time histogram.
+     *
+     * @return the number of loads in each bucket
+     */
+    public long[] loadTimeHistogram() {
+        return loadTimeHistogram.clone();
+    }
+
+    /**
+     * Estimates a percentile of the load times from the histogram.
+     * The result is the upper bound of the bucket the percentile falls into, so it is at most 2 times the real value.
+     *
+     * @param percentile between 0 and 100
+     * @return the estimated load time in nanoseconds, 0 if there were no loads
+     */
+    public long loadTimePercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+        }
+
+        var loads = loadCount();
+        if (loads == 0) {
+            return 0;
+        }
+
+        var rank = (long)Math.ceil(percentile / 100 * loads);
+        var seen = 0L;
+        for (int i = 0; i < loadTimeHistogram.length; ++i) {
+            seen += loadTimeHistogram[i];
+            if (seen >= rank && seen > 0) {
+                return (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the histogram bucket of a load time.
+     *
+     * @param loadTime a non-negative load time in nanoseconds
+     * @return the index of the bucket
+     */
+    static int histogramBucket(final long loadTime) {
+        return loadTime == 0 ? 0 : 63 - Long.numberOfLeadingZeros(loadTime);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        CacheStats other = (CacheStats)o;
+        return hitCount == other.hitCount
+                && missCount == other.missCount
+                && putCount == other.putCount
+                && evictionCount == other.evictionCount
+                && loadSuccessCount == other.loadSuccessCount
+                && loadFailureCount == other.loadFailureCount
+                && totalLoadTime == other.totalLoadTime
+                && Arrays.equals(loadTimeHistogram, other.loadTimeHistogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hitCount, missCount, putCount, evictionCount, loadSuccessCount, loadFailureCount,
+                totalLoadTime) * 31 + Arrays.hashCode(loadTimeHistogram);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{"
+                + "hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", putCount=" + putCount
+                + ", evictionCount=" + evictionCount
+                + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime
+                + '}';
+    }
+}
@@ -0,0 +1,168 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe cache that approximates the Least Recently Used policy with the CLOCK algorithm.
+ *
+ * The entries sit in a circular array of slots, and every entry has a reference bit. A hit only sets the bit of
+ * the entry, so reads take no lock and never write a shared list the way the hits of an {@link LRUCache} do. When
+ * a new entry needs a slot in a full cache, the hand of the clock sweeps the slots: a referenced entry gets a second
+ * chance (its bit is cleared and the hand moves on), the first unreferenced entry is evicted.
+ *
+ * Entries used since the last sweep always survive, so the hit ratio stays close to the one of a true LRU cache on
+ * most workloads. Writes are serialized on the lock of the cache, which suits read-mostly workloads best.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class ClockCache<K, V> implements Cache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries;
+    private final Entry<K, V>[] slots;
+
+    /**
+     * The slots without an entry, used as a stack. Only the slots of invalidated entries and the slots never used
+     * are free, the slots of evicted entries are reused immediately.
+     */
+    private final int[] freeSlots;
+    private int freeSlotCount;
+    private int hand;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Initialize the cache with a capacity.
+     *
+     * @param capacity must be greater than 0
+     */
+    public ClockCache(final int capacity) {
+        this(capacity, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity, recording its statistics. Hits and misses are recorded without a lock,
+     * so the counter must be thread-safe, e.g. a {@link ConcurrentStatsCounter}.
+     *
+     * @param capacity must be greater than 0
+     * @param statsCounter records the statistics of the cache
+     */
+    @SuppressWarnings("unchecked")
+    public ClockCache(final int capacity, final StatsCounter statsCounter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must be greater than 0");
+        }
+
+        this.statsCounter = statsCounter;
+        entries = new ConcurrentHashMap<>(capacity);
+        slots = (Entry<K, V>[])new Entry<?, ?>[capacity];
+        freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; ++i) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        freeSlotCount = capacity;
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var entry = entries.get(key);
+        if (entry == null) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        // Skip the write if the bit is already set, so hot entries do not bounce their cache line between cores
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        statsCounter.recordHits(1);
+        return Optional.ofNullable(entry.value);
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        var entry = entries.get(key);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.value);
+    }
+
+    @Override
+    public synchronized void put(final K key, final V value) {
+        statsCounter.recordPut();
+
+        var existing = entries.get(key);
+        if (existing != null) {
+            existing.value = value;
+            existing.referenced = true;
+            return;
+        }
+
+        var slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : evict();
+        var entry = new Entry<>(key, value, slot);
+        slots[slot] = entry;
+        entries.put(key, entry);
+    }
+
+    @Override
+    public synchronized void invalidate(final K key) {
+        var entry = entries.remove(key);
+        if (entry != null) {
+            slots[entry.slot] = null;
+            freeSlots[freeSlotCount++] = entry.slot;
+        }
+    }
+
+    /**
+     * Returns the number of entries stored in the cache.
+     *
+     * @return the number of entries, never more than the capacity
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Sweeps the hand over the slots until it finds an entry that was not used since the last sweep, and evicts it.
+     * A full cache has no free slots, so the sweep ends after at most one round.
+     *
+     * @return the slot of the evicted entry
+     */
+    private int evict() {
+        while (true) {
+            var entry = slots[hand];
+            var slot = hand;
+            hand = (hand + 1) % slots.length;
+
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                entries.remove(entry.key);
+                statsCounter.recordEviction();
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * A cache entry in a slot of the clock. The value and the reference bit are read without a lock.
+     *
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    private static class Entry<K, V> {
+        final K key;
+        final int slot;
+        volatile V value;
+        volatile boolean referenced;
+
+        Entry(final K key, final V value, final int slot) {
+            this.key = key;
+            this.value = value;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import hu.nagyf.algorithms.datastructures.map.HashStrategy;
+
+/**
+ * A thread-safe Least Recently Used cache.
+ *
+ * The keys are partitioned across a fixed number of segments, each one an independent {@link LRUCache} guarded
+ * by its own lock. Threads working with keys in different segments never wait for each other, so the contention
+ * drops roughly with the number of segments instead of serializing every call on a single global lock.
+ *
+ * The recency order is tracked per segment, so the evicted entry is the least recently used one of its segment,
+ * which approximates a global LRU policy closely when the keys are well distributed.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class ConcurrentLRUCache<K, V> implements Cache<K, V> {
+
+    /**
+     * The number of segments created per available processor when no concurrency level is specified.
+     */
+    private static final int SEGMENTS_PER_PROCESSOR = 4;
+
+    private final LRUCache<K, V>[] segments;
+
+    /**
+     * Mask used to select a segment from a spread hash. The number of segments is always a power of two.
+     */
+    private final int segmentMask;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Initialize the cache with a capacity, using a number of segments based on the available processors.
+     *
+     * @param capacity must be greater than 0
+     */
+    public ConcurrentLRUCache(final int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors() * SEGMENTS_PER_PROCESSOR);
+    }
+
+    /**
+     * Initialize the cache with a capacity and the expected number of concurrently writing threads.
+     * The number of segments is the concurrency level rounded up to a power of two, but never more than the capacity.
+     *
+     * @param capacity must be greater than 0
+     * @param concurrencyLevel must be greater than 0
+     */
+    public ConcurrentLRUCache(final int capacity, final int concurrencyLevel) {
+        this(capacity, concurrencyLevel, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity and the expected number of concurrently writing threads,
+     * recording its statistics. The counter is shared by every segment, so it must be thread-safe,
+     * e.g. a {@link ConcurrentStatsCounter}.
+     *
+     * @param capacity must be greater than 0
+     * @param concurrencyLevel must be greater than 0
+     * @param statsCounter records the statistics of the cache
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUCache(final int capacity, final int concurrencyLevel, final StatsCounter statsCounter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must be greater than 0");
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("The concurrency level must be greater than 0");
+        }
+
+        var segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount * 2 <= capacity) {
+            segmentCount <<= 1;
+        }
+
+        segments = (LRUCache<K, V>[])new LRUCache<?, ?>[segmentCount];
+        segmentMask = segmentCount - 1;
+        this.statsCounter = statsCounter;
+
+        // Distribute the capacity so that the segments add up exactly to the requested capacity
+        for (int i = 0; i < segmentCount; ++i) {
+            var segmentCapacity = capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0);
+            segments[i] = new LRUCache<>(segmentCapacity, statsCounter);
+        }
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.peek(key);
+        }
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            segment.invalidate(key);
+        }
+    }
+
+    /**
+     * Removes a value from the cache, only if the key still has the same value, compared by identity.
+     *
+     * @param key the key to remove
+     * @param expected the value the key must have
+     * @return true if the key was removed
+     */
+    boolean invalidate(final K key, final V expected) {
+        var segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.invalidate(key, expected);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The keys are grouped by segment, so the lock of each segment is taken only once for the whole batch.
+     */
+    @Override
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        var result = new HashMap<K, V>();
+        var groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; ++i) {
+            if (groups[i] != null) {
+                synchronized (segments[i]) {
+                    result.putAll(segments[i].getAll(groups[i]));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are grouped by segment, so the lock of each segment is taken only once for the whole batch.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void putAll(final Map<? extends K, ? extends V> entries) {
+        var groups = (HashMap<K, V>[])new HashMap<?, ?>[segments.length];
+        entries.forEach((key, value) -> {
+            var index = segmentIndex(key);
+            if (groups[index] == null) {
+                groups[index] = new HashMap<K, V>();
+            }
+            groups[index].put(key, value);
+        });
+
+        for (int i = 0; i < segments.length; ++i) {
+            if (groups[i] != null) {
+                synchronized (segments[i]) {
+                    segments[i].putAll(groups[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The keys are grouped by segment, so the lock of each segment is taken only once for the whole batch.
+     */
+    @Override
+    public void invalidateAll(final Iterable<? extends K> keys) {
+        var groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; ++i) {
+            if (groups[i] != null) {
+                synchronized (segments[i]) {
+                    segments[i].invalidateAll(groups[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Returns the number of entries stored in the cache.
+     * The segments are counted one by one, so the result is only a snapshot while other threads modify the cache.
+     *
+     * @return the number of entries, never more than the capacity
+     */
+    public int size() {
+        var size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Selects the segment responsible for the key.
+     * The hash code is spread so that keys that only differ in their high bits end up in different segments.
+     *
+     * @param key the key, cannot be null
+     * @return the segment that stores the key
+     */
+    private LRUCache<K, V> segmentFor(final K key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+
+        return HashStrategy.spread(key.hashCode()) & segmentMask;
+    }
+
+    /**
+     * Splits the keys into one list per segment. The lists of the segments without keys are null.
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayList<K>[] groupBySegment(final Iterable<? extends K> keys) {
+        var groups = (ArrayList<K>[])new ArrayList<?>[segments.length];
+        for (var key : keys) {
+            var index = segmentIndex(key);
+            if (groups[index] == null) {
+                groups[index] = new ArrayList<K>();
+            }
+            groups[index].add(key);
+        }
+        return groups;
+    }
+}
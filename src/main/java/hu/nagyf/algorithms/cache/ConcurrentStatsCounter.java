@@ -0,0 +1,92 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe {@link StatsCounter}.
+ *
+ * Every counter is a {@link LongAdder}, which spreads the updates of concurrent threads over several cells,
+ * so recording an event does not make the threads of the cache contend on a single memory location.
+ * The load times are also collected in a histogram with power of two buckets: bucket i counts the loads that took
+ * at least 2^i and less than 2^(i+1) nanoseconds.
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder[] loadTimeHistogram;
+
+    public ConcurrentStatsCounter() {
+        loadTimeHistogram = new LongAdder[CacheStats.HISTOGRAM_BUCKETS];
+        for (int i = 0; i < loadTimeHistogram.length; ++i) {
+            loadTimeHistogram[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void recordHits(final int count) {
+        hitCount.add(count);
+    }
+
+    @Override
+    public void recordMisses(final int count) {
+        missCount.add(count);
+    }
+
+    @Override
+    public void recordPut() {
+        putCount.increment();
+    }
+
+    @Override
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    @Override
+    public void recordLoadSuccess(final long loadTime) {
+        loadSuccessCount.increment();
+        recordLoadTime(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(final long loadTime) {
+        loadFailureCount.increment();
+        recordLoadTime(loadTime);
+    }
+
+    /**
+     * Returns the current values of the counters.
+     * The counters are read one by one while they can still change, so the snapshot is not atomic.
+     *
+     * @return the snapshot of the statistics
+     */
+    @Override
+    public CacheStats snapshot() {
+        var histogram = new long[loadTimeHistogram.length];
+        for (int i = 0; i < histogram.length; ++i) {
+            histogram[i] = loadTimeHistogram[i].sum();
+        }
+
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                putCount.sum(),
+                evictionCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTime.sum(),
+                histogram);
+    }
+
+    private void recordLoadTime(final long loadTime) {
+        var time = Math.max(0, loadTime);
+        totalLoadTime.add(time);
+        loadTimeHistogram[CacheStats.histogramBucket(time)].increment();
+    }
+}
@@ -0,0 +1,262 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import hu.nagyf.algorithms.datastructures.map.HashTable;
+
+/**
+ * A Least Recently Used cache whose entries also expire after a time-to-live.
+ *
+ * Every entry gets the default time-to-live of the cache, unless a different one is given when it is stored.
+ * The expiration times are tracked in a {@link TimingWheel}, so expiring entries costs O(1) amortized per entry
+ * instead of scanning the whole cache. Expired entries are never returned; they are reclaimed while the cache is
+ * used, and {@link #cleanUp()} can be called, or scheduled with {@link #scheduleCleanUp}, to reclaim them when the
+ * cache is idle.
+ *
+ * The methods of this cache are synchronized, so the background clean up can run on another thread.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class ExpiringCache<K, V> implements Cache<K, V> {
+
+    private final HashTable<K, Entry<K, V>> entries;
+    private final RecencyList<Entry<K, V>> recency;
+    private final TimingWheel<Entry<K, V>> wheel;
+    private final Ticker ticker;
+    private final int capacity;
+    private final long defaultTimeToLive;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Initialize the cache with a capacity and the default time-to-live of the entries.
+     *
+     * @param capacity must be greater than 0
+     * @param timeToLive the default time-to-live, must be greater than 0
+     * @param unit the unit of the time-to-live
+     */
+    public ExpiringCache(final int capacity, final long timeToLive, final TimeUnit unit) {
+        this(capacity, timeToLive, unit, Ticker.systemTicker());
+    }
+
+    /**
+     * Initialize the cache with a capacity, the default time-to-live of the entries and a time source.
+     *
+     * @param capacity must be greater than 0
+     * @param timeToLive the default time-to-live, must be greater than 0
+     * @param unit the unit of the time-to-live
+     * @param ticker the time source used to expire the entries
+     */
+    public ExpiringCache(final int capacity, final long timeToLive, final TimeUnit unit, final Ticker ticker) {
+        this(capacity, timeToLive, unit, ticker, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity, the default time-to-live of the entries and a time source,
+     * recording its statistics. Both the expired entries and the entries removed to make room count as evictions.
+     *
+     * @param capacity must be greater than 0
+     * @param timeToLive the default time-to-live, must be greater than 0
+     * @param unit the unit of the time-to-live
+     * @param ticker the time source used to expire the entries
+     * @param statsCounter records the statistics of the cache
+     */
+    public ExpiringCache(final int capacity, final long timeToLive, final TimeUnit unit, final Ticker ticker,
+            final StatsCounter statsCounter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must be greater than 0");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("The time-to-live must be greater than 0");
+        }
+
+        this.capacity = capacity;
+        this.defaultTimeToLive = unit.toNanos(timeToLive);
+        this.ticker = ticker;
+        this.statsCounter = statsCounter;
+        entries = new HashTable<>();
+        recency = new RecencyList<>();
+        wheel = new TimingWheel<>(ticker.read(), this::onExpired);
+    }
+
+    @Override
+    public synchronized Optional<V> get(final K key) {
+        var now = ticker.read();
+        wheel.advance(now);
+
+        var entry = entries.get(key);
+        if (entry.isEmpty()) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        // The wheel works with ticks, so an entry can be due a little before the wheel reaches it
+        if (entry.get().expirationTime - now <= 0) {
+            remove(entry.get());
+            statsCounter.recordEviction();
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        statsCounter.recordHits(1);
+        recency.moveToFront(entry.get());
+        return Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public synchronized Optional<V> peek(final K key) {
+        var entry = entries.get(key);
+        if (entry.isEmpty() || entry.get().expirationTime - ticker.read() <= 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        put(key, value, defaultTimeToLive, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stores a new value in the cache with its own time-to-live.
+     *
+     * @param key the key for the new value
+     * @param value the value itself
+     * @param timeToLive the time-to-live of this entry, must be greater than 0
+     * @param unit the unit of the time-to-live
+     */
+    public synchronized void put(final K key, final V value, final long timeToLive, final TimeUnit unit) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("The time-to-live must be greater than 0");
+        }
+
+        var now = ticker.read();
+        wheel.advance(now);
+
+        // The times are only compared by their difference, so this works even if the sum overflows
+        var expirationTime = now + unit.toNanos(timeToLive);
+        statsCounter.recordPut();
+        var existing = entries.get(key);
+        if (existing.isPresent()) {
+            var entry = existing.get();
+            entry.value = value;
+            wheel.cancel(entry);
+            entry.expirationTime = expirationTime;
+            wheel.schedule(entry);
+            recency.moveToFront(entry);
+            return;
+        }
+
+        if (recency.size() >= capacity) {
+            remove(recency.last());
+            statsCounter.recordEviction();
+        }
+
+        var entry = new Entry<>(key, value);
+        entry.expirationTime = expirationTime;
+        entries.put(key, entry);
+        recency.addFirst(entry);
+        wheel.schedule(entry);
+    }
+
+    @Override
+    public synchronized void invalidate(final K key) {
+        entries.get(key).ifPresent(this::remove);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized Map<K, V> getAll(final Iterable<? extends K> keys) {
+        return Cache.super.getAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized void putAll(final Map<? extends K, ? extends V> entries) {
+        Cache.super.putAll(entries);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized void invalidateAll(final Iterable<? extends K> keys) {
+        Cache.super.invalidateAll(keys);
+    }
+
+    /**
+     * Reclaims the entries that expired since the cache was last used.
+     */
+    public synchronized void cleanUp() {
+        wheel.advance(ticker.read());
+    }
+
+    /**
+     * Runs {@link #cleanUp()} periodically on the given executor.
+     *
+     * @param executor the executor to run the clean up on
+     * @param period the time between two runs
+     * @param unit the unit of the period
+     * @return the scheduled task, cancel it to stop the clean up
+     */
+    public ScheduledFuture<?> scheduleCleanUp(final ScheduledExecutorService executor, final long period,
+            final TimeUnit unit) {
+        return executor.scheduleAtFixedRate(this::cleanUp, period, period, unit);
+    }
+
+    /**
+     * Returns the number of entries stored in the cache, including the expired entries that are not reclaimed yet.
+     *
+     * @return the number of entries, never more than the capacity
+     */
+    public synchronized int size() {
+        return recency.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    private void onExpired(final Entry<K, V> entry) {
+        recency.remove(entry);
+        entries.remove(entry.key);
+        statsCounter.recordEviction();
+    }
+
+    private void remove(final Entry<K, V> entry) {
+        wheel.cancel(entry);
+        recency.remove(entry);
+        entries.remove(entry.key);
+    }
+
+    /**
+     * A cache entry that is linked into the recency list and into the timing wheel.
+     *
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    private static class Entry<K, V> extends TimingWheel.Timer<Entry<K, V>> {
+        final K key;
+        V value;
+
+        Entry(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package hu.nagyf.algorithms.cache;
+
+import hu.nagyf.algorithms.datastructures.map.HashStrategy;
+
+/**
+ * A Count-Min sketch that estimates how often a key was accessed recently, using 4-bit counters.
+ *
+ * Every key is mapped to one counter in each of 4 rows, and its estimated frequency is the smallest of these
+ * counters. The rows share a single table of longs, each holding 16 counters: every row selects a word with its own
+ * hash function, so the 4 counters of a key are usually in 4 different words. The lowest bits of the hash select
+ * one of the 4 groups of 4 counters in the words, and row i uses the i-th counter of that group, so keys that share
+ * a word in one row rarely share its counter as well.
+ *
+ * The sketch ages its content: once the number of increments reaches a sample size (10 times the maximum number
+ * of tracked keys, at most {@link Integer#MAX_VALUE}) every counter is halved, so the keys that were popular long
+ * ago fade out.
+ *
+ * @param <K> the type of the keys
+ */
+class FrequencySketch<K> {
+    /**
+     * The seeds of the hash functions, one for each row of the sketch.
+     */
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    /**
+     * Clears the highest bit of every counter after the counters of a word were shifted to the right.
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * The highest value a 4-bit counter can hold.
+     */
+    static final int MAX_FREQUENCY = 15;
+
+    /**
+     * The largest power of two number of words in the table.
+     */
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * Creates a sketch that can track the frequency of about maximumSize keys.
+     *
+     * @param maximumSize the number of keys the cache holds, must be greater than 0
+     */
+    FrequencySketch(final int maximumSize) {
+        var tableSize = 1;
+        while (tableSize < Math.min(maximumSize, MAXIMUM_TABLE_SIZE)) {
+            tableSize <<= 1;
+        }
+
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = (int)Math.min(10L * maximumSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of the key.
+     *
+     * @param key the key to look up
+     * @return the estimated frequency, between 0 and {@link #MAX_FREQUENCY}
+     */
+    int frequency(final K key) {
+        var hash = HashStrategy.spread(key.hashCode());
+        var start = (hash & 3) << 2;
+        var frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; ++i) {
+            var index = indexOf(hash, i);
+            var count = (int)((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the key. Halves every counter if the sample size was reached.
+     *
+     * @param key the key that was accessed
+     */
+    void increment(final K key) {
+        var hash = HashStrategy.spread(key.hashCode());
+        var start = (hash & 3) << 2;
+
+        var added = false;
+        for (int i = 0; i < 4; ++i) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments the counter at the given word and position, unless it is already saturated.
+     *
+     * @param index the index of the word in the table
+     * @param counter the index of the 4-bit counter inside the word, between 0 and 15
+     * @return true if the counter was incremented
+     */
+    private boolean incrementAt(final int index, final int counter) {
+        var offset = counter << 2;
+        var mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter, so the history fades out over time.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; ++i) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    /**
+     * Returns the index of the word used by the row for a hash.
+     *
+     * @param hash the spread hash of the key
+     * @param row the row of the sketch, between 0 and 3
+     * @return the index in the table
+     */
+    private int indexOf(final int hash, final int row) {
+        var h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int)h & tableMask;
+    }
+
+}
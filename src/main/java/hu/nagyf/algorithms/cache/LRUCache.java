@@ -1,29 +1,41 @@
 package hu.nagyf.algorithms.cache;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
-import hu.nagyf.algorithms.datastructures.LinkedList;
 import hu.nagyf.algorithms.datastructures.map.HashTable;
 
 /**
  * Least Recently Used cache: a fix sized cache that removes items from the cache if it runs out of space.
  * Always the least recently used (i.e. the oldest) value will be removed.
  *
+ * The size of the cache is either bounded by the number of entries, or by the total weight of the entries
+ * calculated by a {@link Weigher}, e.g. to keep the cache under a byte budget when the sizes of the values vary a lot.
+ *
+ * The hash table maps every key directly to its node in the recency list, so a hit, an insert and an eviction
+ * are all O(1) and moving an entry to the front does not allocate.
+ *
  * @param <K> type of the key
  * @param <V> type of the value
  */
 public class LRUCache<K, V> implements Cache<K, V> {
 
     /**
-     * This is the data structure of the cache.
+     * Maps the keys to their nodes in {@link #recency}.
      */
-    private HashTable<K, V> values;
+    private HashTable<K, Entry<K, V>> entries;
 
     /**
-     * Used to store the keys that are currently in the cache. Only {@link #capacity} number of keys are allowed.
+     * The entries of the cache, ordered from the most recently used to the least recently used.
+     * The total weight of the entries cannot be more than {@link #maximumWeight}.
      */
-    private LinkedList<K> keys;
-    private int capacity;
+    private RecencyList<Entry<K, V>> recency;
+    private Weigher<? super K, ? super V> weigher;
+    private long maximumWeight;
+    private long totalWeight;
+    private StatsCounter statsCounter;
 
     /**
      * Initialize the cache with a capacity.
@@ -31,48 +43,292 @@ public class LRUCache<K, V> implements Cache<K, V> {
      * @param capacity must be greater than 0.
      */
     public LRUCache(final int capacity) {
-        if (capacity <= 0) {
+        this(capacity, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity, recording its statistics.
+     *
+     * @param capacity must be greater than 0.
+     * @param statsCounter records the statistics of the cache
+     */
+    public LRUCache(final int capacity, final StatsCounter statsCounter) {
+        this(capacity, Weigher.singleton(), statsCounter);
+    }
+
+    /**
+     * Initialize the cache with a maximum total weight.
+     * Entries that weigh more than the maximum weight on their own are not stored at all.
+     *
+     * @param maximumWeight must be greater than 0
+     * @param weigher calculates the weight of the entries
+     */
+    public LRUCache(final long maximumWeight, final Weigher<? super K, ? super V> weigher) {
+        this(maximumWeight, weigher, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a maximum total weight, recording its statistics.
+     * Entries that weigh more than the maximum weight on their own are not stored at all.
+     *
+     * @param maximumWeight must be greater than 0
+     * @param weigher calculates the weight of the entries
+     * @param statsCounter records the statistics of the cache
+     */
+    public LRUCache(final long maximumWeight, final Weigher<? super K, ? super V> weigher,
+            final StatsCounter statsCounter) {
+        if (maximumWeight <= 0) {
             throw new IllegalArgumentException("The cache must be greater than 0");
         }
 
-        this.capacity = capacity;
-        values = new HashTable<>();
-        keys = new LinkedList<>();
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.statsCounter = statsCounter;
+        entries = new HashTable<>();
+        recency = new RecencyList<>();
     }
 
     @Override
     public Optional<V> get(final K key) {
-        var value = values.get(key);
-        if (value.isPresent()) {
-            bringToFront(key);
+        var entry = entries.get(key);
+        if (entry.isEmpty()) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
         }
-        return value;
+
+        statsCounter.recordHits(1);
+        recency.moveToFront(entry.get());
+        return Optional.ofNullable(entry.get().value);
     }
 
+    @Override
+    public Optional<V> peek(final K key) {
+        var entry = entries.get(key);
+        return entry.isEmpty() ? Optional.empty() : Optional.ofNullable(entry.get().value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * If the entry weighs more than the maximum weight of the cache it is not stored,
+     * and any previous value of the key is removed.
+     */
     @Override
     public void put(final K key, final V value) {
-        if (keys.size() + 1 <= capacity) {
-            keys.insert(key);
-            values.put(key, value);
-        } else if (keys.findFirstIndex(key).isPresent()) {
-            // The key is already present, so we just need to bring it to the front
-            bringToFront(key);
+        insert(key, value);
+        evict();
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        entries.get(key).ifPresent(this::remove);
+    }
+
+    /**
+     * Removes a value from the cache, only if the key still has the same value, compared by identity.
+     *
+     * @param key the key to remove
+     * @param expected the value the key must have
+     * @return true if the key was removed
+     */
+    boolean invalidate(final K key, final V expected) {
+        var entry = entries.get(key);
+        if (entry.isEmpty() || entry.get().value != expected) {
+            return false;
+        }
+
+        remove(entry.get());
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The hits are moved to the front of the recency list in the order of the keys,
+     * and the statistics are recorded once for the whole batch.
+     */
+    @Override
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        var result = new HashMap<K, V>();
+        var hits = 0;
+        var misses = 0;
+        for (var key : keys) {
+            var entry = entries.get(key);
+            if (entry.isPresent()) {
+                ++hits;
+                recency.moveToFront(entry.get());
+                result.put(key, entry.get().value);
+            } else {
+                ++misses;
+            }
+        }
+
+        statsCounter.recordHits(hits);
+        statsCounter.recordMisses(misses);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The entries are evicted once, after every value of the batch was stored.
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> entries) {
+        entries.forEach(this::insert);
+        evict();
+    }
+
+    /**
+     * Passes the entries to the consumer from the most recently used to the least recently used,
+     * without changing their order.
+     *
+     * @param consumer receives the keys and the values
+     */
+    void forEachByRecency(final BiConsumer<? super K, ? super V> consumer) {
+        for (var entry = recency.first(); entry != null; entry = entry.next) {
+            consumer.accept(entry.key, entry.value);
+        }
+    }
+
+    /**
+     * Grows the hash table of the cache at once, so the expected number of entries can be restored without resizing
+     * it entry by entry. The cache never holds more entries than its maximum weight, unless some entries weigh 0.
+     *
+     * @param expectedSize the number of entries about to be restored
+     */
+    void ensureCapacity(final int expectedSize) {
+        entries.ensureCapacity((int)Math.min(expectedSize, maximumWeight));
+    }
+
+    /**
+     * Appends an entry behind the least recently used one, if it fits into the cache without evicting anything.
+     * Restoring the entries from the most recently used to the least recently used rebuilds the recency order
+     * without moving any entry. Keys that are already in the cache are skipped.
+     *
+     * @param key the key to restore
+     * @param value the value to restore
+     * @return false if the cache has no room for the entry
+     */
+    boolean restore(final K key, final V value) {
+        var weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("The weight of an entry cannot be negative");
+        }
+        if (totalWeight + weight > maximumWeight) {
+            return false;
+        }
+
+        if (entries.get(key).isEmpty()) {
+            var entry = new Entry<>(key, value, weight);
+            entries.put(key, entry);
+            recency.addLast(entry);
+            totalWeight += weight;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a value without evicting the entries that do not fit anymore.
+     *
+     * If the entry weighs more than the maximum weight of the cache it is not stored,
+     * and any previous value of the key is removed.
+     */
+    private void insert(final K key, final V value) {
+        var weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("The weight of an entry cannot be negative");
+        }
+
+        var existing = entries.get(key);
+        if (weight > maximumWeight) {
+            existing.ifPresent(this::remove);
+            return;
+        }
+
+        if (existing.isPresent()) {
+            // The key is already present, so we just need to update the value and bring it to the front
+            var entry = existing.get();
+            totalWeight += weight - entry.weight;
+            entry.value = value;
+            entry.weight = weight;
+            recency.moveToFront(entry);
         } else {
-            // Remove the oldest key and value
-            var lastKey = keys.removeLast();
-            values.remove(lastKey.get());
+            var entry = new Entry<>(key, value, weight);
+            entries.put(key, entry);
+            recency.addFirst(entry);
+            totalWeight += weight;
+        }
+        statsCounter.recordPut();
+    }
 
-            // Insert the new key
-            keys.insert(key);
-            values.put(key, value);
+    /**
+     * Removes the oldest keys and values until the cache fits again.
+     */
+    private void evict() {
+        while (totalWeight > maximumWeight) {
+            var eldest = recency.last();
+            remove(eldest);
+            statsCounter.recordEviction();
+            onEviction(eldest.key, eldest.value);
         }
     }
 
-    private void bringToFront(K key) {
-        var index = keys.findFirstIndex(key);
-        if (index.isPresent()) {
-            keys.removeAt(index.get());
-            keys.insert(key);
+    /**
+     * Returns the number of entries stored in the cache.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return recency.size();
+    }
+
+    /**
+     * Returns the total weight of the entries stored in the cache.
+     * If the cache is bounded by the number of entries it is the same as {@link #size()}.
+     *
+     * @return the total weight, never more than the maximum weight
+     */
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Called after an entry was evicted to make room for other entries.
+     * Does nothing by default, subclasses can override it, e.g. to move the evicted entries to a slower tier.
+     *
+     * @param key the key of the evicted entry
+     * @param value the value of the evicted entry
+     */
+    protected void onEviction(final K key, final V value) {
+    }
+
+    private void remove(final Entry<K, V> entry) {
+        recency.remove(entry);
+        entries.remove(entry.key);
+        totalWeight -= entry.weight;
+    }
+
+    /**
+     * A cache entry that is linked into the recency list.
+     *
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    private static class Entry<K, V> extends RecencyList.Node<Entry<K, V>> {
+        final K key;
+        V value;
+        int weight;
+
+        Entry(final K key, final V value, final int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
         }
     }
 }
@@ -0,0 +1,172 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A cache that loads missing values at most once at a time for each key.
+ *
+ * When several threads miss the same key at the same time, only the first one runs the loader and the others wait
+ * for its result, instead of all of them recomputing the same value (cache stampede). If the loader fails, every
+ * waiting thread gets the same exception and nothing is stored, so the next call tries to load the value again.
+ *
+ * The values are stored in a delegate cache, which must be thread-safe, e.g. a {@link ConcurrentLRUCache}.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class LoadingCache<K, V> implements Cache<K, V> {
+
+    private final Cache<K, V> delegate;
+
+    /**
+     * The loads that are currently running, by key.
+     */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading;
+    private final StatsCounter statsCounter;
+    private final Ticker ticker;
+
+    /**
+     * Creates a loading cache that stores its values in the delegate cache.
+     *
+     * @param delegate a thread-safe cache
+     */
+    public LoadingCache(final Cache<K, V> delegate) {
+        this(delegate, StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a loading cache that stores its values in the delegate cache, recording the loads.
+     * The hits, misses and evictions are recorded by the delegate, pass the same counter to it as well to see
+     * all the statistics in one place.
+     *
+     * @param delegate a thread-safe cache
+     * @param statsCounter records the loads, must be thread-safe
+     */
+    public LoadingCache(final Cache<K, V> delegate, final StatsCounter statsCounter) {
+        this.delegate = delegate;
+        this.loading = new ConcurrentHashMap<>();
+        this.statsCounter = statsCounter;
+        this.ticker = Ticker.systemTicker();
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        return delegate.peek(key);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(final Iterable<? extends K> keys) {
+        return delegate.getAll(keys);
+    }
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> entries) {
+        delegate.putAll(entries);
+    }
+
+    @Override
+    public void invalidateAll(final Iterable<? extends K> keys) {
+        delegate.invalidateAll(keys);
+    }
+
+    /**
+     * Returns a value from the cache, or loads it if it is missing.
+     * If another thread is already loading the same key, waits for that load instead of starting a new one.
+     *
+     * @param key the key to retrieve a value for
+     * @param loader computes the value if it is not in the cache
+     * @return the cached or the loaded value, null if the loader returned null
+     */
+    @Override
+    public V get(final K key, final Function<? super K, ? extends V> loader) {
+        var cached = delegate.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        var future = new CompletableFuture<V>();
+        var running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            // Another thread could have finished loading the key between the miss and registering this load,
+            // the miss is already recorded, so look again without recording it twice
+            var value = delegate.peek(key).orElse(null);
+            if (value == null) {
+                value = load(key, loader);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Runs the loader, stores its result and records how long it took.
+     */
+    private V load(final K key, final Function<? super K, ? extends V> loader) {
+        var start = ticker.read();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            statsCounter.recordLoadFailure(ticker.read() - start);
+            throw e;
+        }
+
+        statsCounter.recordLoadSuccess(ticker.read() - start);
+        if (value != null) {
+            delegate.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Waits for a load started by another thread and returns its result, or rethrows its failure.
+     */
+    private V await(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw e;
+        }
+    }
+}
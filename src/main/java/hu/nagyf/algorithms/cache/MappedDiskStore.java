@@ -0,0 +1,336 @@
+package hu.nagyf.algorithms.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Optional;
+
+import hu.nagyf.algorithms.datastructures.map.HashTable;
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * A key-value store that appends its records to memory-mapped segment files.
+ *
+ * A record is never modified: overwriting or removing a key only makes its old record dead. The in-memory index
+ * maps every key to the location of its live record, packed into a long (the id of the segment in the upper
+ * 32 bits, the offset in the lower 32 bits). When the store reaches its maximum size, the oldest segment is dropped
+ * with the records it still holds. {@link #compact()} reclaims the space of the dead records by copying the live
+ * records of the segment with the most dead space to the end of the store and deleting the segment.
+ *
+ * The store is not thread-safe, and its files are deleted when it is closed.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+class MappedDiskStore<K, V> implements AutoCloseable {
+    /**
+     * Each record starts with the length of the key and the length of the value.
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Segments with less live data than this ratio are worth compacting.
+     */
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maximumSegments;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final HashTable<K, Long> index;
+
+    /**
+     * The segments from the oldest to the newest. Records are appended to the newest one.
+     */
+    private final ArrayList<Segment> segments;
+    private int nextSegmentId;
+    private int size;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param directory the directory of the segment files, must exist
+     * @param segmentSize the size of a segment file
+     * @param maximumSegments the maximum number of segment files
+     * @param keySerializer converts the keys to and from their binary form
+     * @param valueSerializer converts the values to and from their binary form
+     */
+    MappedDiskStore(final Path directory, final int segmentSize, final int maximumSegments,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maximumSegments = maximumSegments;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        index = new HashTable<>();
+        segments = new ArrayList<>();
+    }
+
+    /**
+     * Returns the number of live records.
+     *
+     * @return the number of keys in the store
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of segment files.
+     *
+     * @return the number of segments
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Appends a record for the key, replacing its previous record.
+     *
+     * @param key the key
+     * @param value the value
+     * @return false if the record is larger than a segment and was not stored
+     */
+    boolean put(final K key, final V value) {
+        remove(key);
+
+        var recordSize = HEADER_SIZE + keySerializer.serializedSize(key) + valueSerializer.serializedSize(value);
+        if (recordSize > segmentSize) {
+            return false;
+        }
+
+        append(key, value, recordSize);
+        return true;
+    }
+
+    /**
+     * Returns the value of the key, keeping its record.
+     *
+     * @param key the key
+     * @return the optional value, empty if the key is not in the store
+     */
+    Optional<V> get(final K key) {
+        var location = index.get(key);
+        if (location.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(readValue(location.get()));
+    }
+
+    /**
+     * Removes the record of the key and returns its value.
+     *
+     * @param key the key
+     * @return the optional value, empty if the key is not in the store
+     */
+    Optional<V> take(final K key) {
+        var location = index.get(key);
+        if (location.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var segment = segment(location.get());
+        var value = readValue(location.get());
+        markDead(key, segment, recordSize(segment.buffer, offset(location.get())));
+        return Optional.of(value);
+    }
+
+    /**
+     * Removes the record of the key.
+     *
+     * @param key the key
+     */
+    void remove(final K key) {
+        var location = index.get(key);
+        if (location.isPresent()) {
+            var segment = segment(location.get());
+            markDead(key, segment, recordSize(segment.buffer, offset(location.get())));
+        }
+    }
+
+    /**
+     * Reclaims the dead space of the segment that has the least live data, if it is below the threshold.
+     * The active segment is never compacted.
+     *
+     * @return true if a segment was compacted
+     */
+    boolean compact() {
+        Segment candidate = null;
+        for (int i = 0; i < segments.size() - 1; ++i) {
+            var segment = segments.get(i);
+            if (segment.liveBytes < segmentSize * COMPACTION_THRESHOLD
+                    && (candidate == null || segment.liveBytes < candidate.liveBytes)) {
+                candidate = segment;
+            }
+        }
+
+        if (candidate == null) {
+            return false;
+        }
+
+        // Take the segment out first, so appending its live records can never drop it
+        segments.remove(candidate);
+        var buffer = candidate.buffer.duplicate();
+        var position = 0;
+        while (position < candidate.writePosition) {
+            var recordSize = recordSize(buffer, position);
+            var key = readKey(buffer, position);
+            if (location(candidate, position) == index.get(key).orElse(-1L)) {
+                buffer.position(position + HEADER_SIZE + buffer.getInt(position));
+                var value = valueSerializer.deserialize(buffer, buffer.getInt(position + Integer.BYTES));
+                index.remove(key);
+                --size;
+                append(key, value, recordSize);
+            }
+            position += recordSize;
+        }
+
+        delete(candidate);
+        return true;
+    }
+
+    /**
+     * Deletes every segment file.
+     */
+    @Override
+    public void close() {
+        for (var segment : segments) {
+            delete(segment);
+        }
+        segments.clear();
+        size = 0;
+    }
+
+    private void append(final K key, final V value, final int recordSize) {
+        var segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.writePosition + recordSize > segmentSize) {
+            segment = newSegment();
+        }
+
+        var offset = segment.writePosition;
+        var buffer = segment.buffer.duplicate();
+        buffer.position(offset);
+        buffer.putInt(keySerializer.serializedSize(key));
+        buffer.putInt(valueSerializer.serializedSize(value));
+        keySerializer.serialize(key, buffer);
+        valueSerializer.serialize(value, buffer);
+
+        segment.writePosition += recordSize;
+        segment.liveBytes += recordSize;
+        index.put(key, location(segment, offset));
+        ++size;
+    }
+
+    private void markDead(final K key, final Segment segment, final int recordSize) {
+        segment.liveBytes -= recordSize;
+        index.remove(key);
+        --size;
+    }
+
+    /**
+     * Creates a new segment file, dropping the oldest segment if the store is full.
+     */
+    private Segment newSegment() {
+        if (segments.size() == maximumSegments) {
+            dropOldest();
+        }
+
+        var id = nextSegmentId++;
+        var file = directory.resolve("segment-" + id + ".dat");
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            var segment = new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create segment file " + file, e);
+        }
+    }
+
+    /**
+     * Deletes the oldest segment together with the live records it still holds.
+     */
+    private void dropOldest() {
+        var oldest = segments.remove(0);
+        var buffer = oldest.buffer.duplicate();
+        var position = 0;
+        while (position < oldest.writePosition) {
+            var key = readKey(buffer, position);
+            if (location(oldest, position) == index.get(key).orElse(-1L)) {
+                index.remove(key);
+                --size;
+            }
+            position += recordSize(buffer, position);
+        }
+        delete(oldest);
+    }
+
+    private void delete(final Segment segment) {
+        try {
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete segment file " + segment.file, e);
+        }
+    }
+
+    private V readValue(final long location) {
+        var buffer = segment(location).buffer.duplicate();
+        buffer.position(offset(location));
+        var keyLength = buffer.getInt();
+        var valueLength = buffer.getInt();
+        buffer.position(buffer.position() + keyLength);
+        return valueSerializer.deserialize(buffer, valueLength);
+    }
+
+    private K readKey(final ByteBuffer buffer, final int position) {
+        buffer.position(position + HEADER_SIZE);
+        return keySerializer.deserialize(buffer, buffer.getInt(position));
+    }
+
+    private Segment segment(final long location) {
+        var id = (int)(location >>> 32);
+        for (var segment : segments) {
+            if (segment.id == id) {
+                return segment;
+            }
+        }
+        throw new IllegalStateException("Segment " + id + " does not exist");
+    }
+
+    private static int recordSize(final ByteBuffer buffer, final int position) {
+        return HEADER_SIZE + buffer.getInt(position) + buffer.getInt(position + Integer.BYTES);
+    }
+
+    private static int offset(final long location) {
+        return (int)location;
+    }
+
+    private static long location(final Segment segment, final int offset) {
+        return (long)segment.id << 32 | offset;
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static class Segment {
+        final int id;
+        final Path file;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int liveBytes;
+
+        Segment(final int id, final Path file, final MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
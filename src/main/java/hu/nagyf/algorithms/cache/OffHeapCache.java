@@ -0,0 +1,526 @@
+package hu.nagyf.algorithms.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+
+import hu.nagyf.algorithms.datastructures.map.HashStrategy;
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * A Least Recently Used cache that stores its entries outside of the Java heap.
+ *
+ * The keys and the values are serialized into direct {@link ByteBuffer} slabs managed by a {@link SlabAllocator},
+ * together with the links of the recency lists, so however large the cache is, the garbage collector sees no object
+ * per entry: the index only holds the chunk handle and the hash of every entry in two primitive arrays. Keys are
+ * compared by their serialized form. The memory of an evicted or overwritten entry is freed explicitly and reused by
+ * the next entry of the same size class.
+ *
+ * The memory is organized in size classes, so the cache keeps a recency list per size class, and every slab
+ * remembers when one of its entries was last used. When a class runs out of memory and its own slab is the one
+ * that was not used for the longest time, the least recently used entry of the class is evicted to make room.
+ * When that slab belongs to another class, for example because the sizes of the values shifted, all of its entries
+ * are evicted and the slab is handed over to the class that needs memory, so no class can keep memory it no
+ * longer uses. Entries larger than the slab size are not stored at all.
+ *
+ * Like {@link LRUCache}, this cache is not thread-safe. Call {@link #close()} to drop the slabs when the cache is
+ * no longer needed.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class OffHeapCache<K, V> implements Cache<K, V>, AutoCloseable {
+    /**
+     * The default size of a slab, 1 MB.
+     */
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * The layout of an entry in its chunk: the previous and the next entry in the recency list of its size class,
+     * the hash of the key, the length of the key and of the value, followed by the serialized key and value.
+     * The key length of a freed chunk is {@link #FREE}.
+     */
+    private static final int PREVIOUS = 0;
+    private static final int NEXT = 8;
+    private static final int HASH = 16;
+    private static final int KEY_LENGTH = 20;
+    private static final int VALUE_LENGTH = 24;
+    private static final int ENTRY_HEADER_SIZE = 28;
+    private static final int FREE = -1;
+
+    private static final long NO_CHUNK = SlabAllocator.NO_CHUNK;
+    private static final int INITIAL_INDEX_CAPACITY = 16;
+    private static final int MAXIMUM_INDEX_CAPACITY = 1 << 30;
+
+    private final SlabAllocator allocator;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final StatsCounter statsCounter;
+
+    /**
+     * The open addressing index of the entries with linear probing, kept at most half full: the chunk handle of
+     * the entry in each slot, or {@link #NO_CHUNK} for an empty slot, and the hash of its key.
+     */
+    private long[] chunks;
+    private int[] hashes;
+    private int mask;
+
+    /**
+     * The most and the least recently used entry of each size class.
+     */
+    private final long[] heads;
+    private final long[] tails;
+
+    /**
+     * The logical time each slab was last used, by slab index.
+     */
+    private final long[] slabUses;
+    private long clock;
+
+    /**
+     * Holds the serialized key of the current operation between its position and its limit.
+     */
+    private ByteBuffer keyBuffer = ByteBuffer.allocate(64);
+    private int size;
+    private boolean closed;
+
+    /**
+     * Creates a cache that uses at most the given amount of direct memory for its entries.
+     *
+     * @param maximumMemory the maximum number of bytes to allocate, at least 1 MB
+     * @param keySerializer converts the keys to and from their binary form; equal keys must have equal binary forms
+     * @param valueSerializer converts the values to and from their binary form
+     */
+    public OffHeapCache(final long maximumMemory, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        this(maximumMemory, DEFAULT_SLAB_SIZE, keySerializer, valueSerializer, StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a cache that uses at most the given amount of direct memory for its entries.
+     *
+     * @param maximumMemory the maximum number of bytes to allocate, at least one slab
+     * @param slabSize the size of a slab, a power of two; also the size of the largest entry that can be stored
+     * @param keySerializer converts the keys to and from their binary form; equal keys must have equal binary forms
+     * @param valueSerializer converts the values to and from their binary form
+     * @param statsCounter records the statistics of the cache
+     */
+    public OffHeapCache(final long maximumMemory, final int slabSize, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer, final StatsCounter statsCounter) {
+        this.allocator = new SlabAllocator(maximumMemory, slabSize);
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.statsCounter = statsCounter;
+
+        var sizeClasses = allocator.sizeClass(slabSize) + 1;
+        heads = new long[sizeClasses];
+        tails = new long[sizeClasses];
+        Arrays.fill(heads, NO_CHUNK);
+        Arrays.fill(tails, NO_CHUNK);
+        slabUses = new long[allocator.maximumSlabCount()];
+        resizeIndex(INITIAL_INDEX_CAPACITY);
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        ensureOpen();
+
+        var slot = find(serializeKey(key));
+        if (slot < 0) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        statsCounter.recordHits(1);
+        moveToFront(chunks[slot]);
+        return Optional.of(readValue(chunks[slot]));
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        ensureOpen();
+
+        var slot = find(serializeKey(key));
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        return Optional.of(readValue(chunks[slot]));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * If the serialized key and value are larger than the slab size, they are not stored and any previous value of
+     * the key is removed. If the serializer fails, the key is left without a value.
+     */
+    @Override
+    public void put(final K key, final V value) {
+        ensureOpen();
+
+        var hash = serializeKey(key);
+        var valueLength = valueSerializer.serializedSize(value);
+        var entrySize = (long)ENTRY_HEADER_SIZE + keyBuffer.remaining() + valueLength;
+        var slot = find(hash);
+        if (entrySize > allocator.maximumChunkSize()) {
+            if (slot >= 0) {
+                remove(chunks[slot]);
+            }
+            return;
+        }
+
+        var sizeClass = allocator.sizeClass((int)entrySize);
+        if (slot >= 0 && sizeClass(chunks[slot]) == sizeClass) {
+            // Reusing the chunk of the previous value: the new value has the same size class, so it fits as well
+            var chunk = chunks[slot];
+            moveToFront(chunk);
+            try {
+                writeValue(chunk, value, valueLength);
+            } catch (RuntimeException e) {
+                // Do not leave a partially written value behind
+                remove(chunk);
+                throw e;
+            }
+            statsCounter.recordPut();
+            return;
+        }
+
+        // The previous value is only replaced once the new one is written. Making room for it may evict the
+        // previous value or move it in the index, so the key is looked up again.
+        var chunk = allocate(sizeClass);
+        try {
+            writeEntry(chunk, hash, value, valueLength);
+        } catch (RuntimeException e) {
+            free(chunk);
+            invalidate(key);
+            throw e;
+        }
+
+        slot = find(hash);
+        if (slot >= 0) {
+            var previous = chunks[slot];
+            unlink(previous);
+            free(previous);
+            chunks[slot] = chunk;
+        } else {
+            insert(hash, chunk);
+        }
+        addFirst(chunk);
+        statsCounter.recordPut();
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        ensureOpen();
+
+        var slot = find(serializeKey(key));
+        if (slot >= 0) {
+            remove(chunks[slot]);
+        }
+    }
+
+    /**
+     * Returns the number of entries stored in the cache.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory allocated by the cache so far.
+     *
+     * @return the allocated memory, never more than the maximum memory
+     */
+    public long allocatedMemory() {
+        return allocator.allocatedMemory();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Removes every entry and drops the slabs. The cache cannot be used after it was closed.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            chunks = new long[0];
+            hashes = new int[0];
+            Arrays.fill(heads, NO_CHUNK);
+            Arrays.fill(tails, NO_CHUNK);
+            allocator.release();
+            size = 0;
+        }
+    }
+
+    /**
+     * Allocates a chunk from a size class. When the memory is used up, room is made in the slab that was not used
+     * for the longest time: if it belongs to the size class, its least recently used entry is evicted, otherwise
+     * every entry of the slab is evicted and the slab is reassigned to the size class.
+     */
+    private long allocate(final int sizeClass) {
+        var chunk = allocator.allocate(sizeClass);
+        while (chunk == NO_CHUNK) {
+            var slab = leastRecentlyUsedSlab();
+            if (allocator.slabClass(slab) == sizeClass && tails[sizeClass] != NO_CHUNK) {
+                evict(tails[sizeClass]);
+            } else {
+                evictSlab(slab);
+                allocator.reassign(slab, sizeClass);
+            }
+            chunk = allocator.allocate(sizeClass);
+        }
+        return chunk;
+    }
+
+    private int leastRecentlyUsedSlab() {
+        var result = 0;
+        for (int i = 1; i < allocator.slabCount(); ++i) {
+            if (slabUses[i] < slabUses[result]) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private void evictSlab(final int slabIndex) {
+        var chunkSize = allocator.chunkSize(allocator.slabClass(slabIndex));
+        var usedBytes = allocator.usedBytes(slabIndex);
+        for (int offset = 0; offset < usedBytes; offset += chunkSize) {
+            var chunk = SlabAllocator.handle(slabIndex, offset);
+            if (allocator.slab(chunk).getInt(offset + KEY_LENGTH) != FREE) {
+                evict(chunk);
+            }
+        }
+    }
+
+    private void evict(final long chunk) {
+        remove(chunk);
+        statsCounter.recordEviction();
+    }
+
+    /**
+     * Removes an entry from the index and from its recency list, and frees its chunk.
+     */
+    private void remove(final long chunk) {
+        var slot = allocator.slab(chunk).getInt(allocator.offset(chunk) + HASH) & mask;
+        while (chunks[slot] != chunk) {
+            slot = (slot + 1) & mask;
+        }
+        deleteSlot(slot);
+        unlink(chunk);
+        free(chunk);
+        --size;
+    }
+
+    private void free(final long chunk) {
+        allocator.slab(chunk).putInt(allocator.offset(chunk) + KEY_LENGTH, FREE);
+        allocator.free(chunk);
+    }
+
+    private int sizeClass(final long chunk) {
+        return allocator.slabClass(SlabAllocator.slabIndex(chunk));
+    }
+
+    /**
+     * Serializes the key into the key buffer.
+     *
+     * @return the hash of the serialized key
+     */
+    private int serializeKey(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cache key cannot be null");
+        }
+
+        var length = keySerializer.serializedSize(key);
+        if (keyBuffer.capacity() < length) {
+            keyBuffer = ByteBuffer.allocate(Math.max(length, keyBuffer.capacity() * 2));
+        }
+        keyBuffer.clear().limit(length);
+        keySerializer.serialize(key, keyBuffer);
+        if (keyBuffer.hasRemaining()) {
+            throw new IllegalStateException("The serializer wrote less bytes than its serialized size");
+        }
+        keyBuffer.flip();
+
+        var hash = 1;
+        for (int i = 0; i < length; ++i) {
+            hash = 31 * hash + keyBuffer.get(i);
+        }
+        return HashStrategy.spread(hash);
+    }
+
+    /**
+     * Returns the slot of the entry of the key in the key buffer, or -1 if it is not in the cache.
+     */
+    private int find(final int hash) {
+        for (var slot = hash & mask; chunks[slot] != NO_CHUNK; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && keyEquals(chunks[slot])) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(final long chunk) {
+        var slab = allocator.slab(chunk);
+        var offset = allocator.offset(chunk);
+        var length = keyBuffer.remaining();
+        if (slab.getInt(offset + KEY_LENGTH) != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (slab.get(offset + ENTRY_HEADER_SIZE + i) != keyBuffer.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(final int hash, final long chunk) {
+        if (size >= (mask + 1) >> 1 && chunks.length < MAXIMUM_INDEX_CAPACITY) {
+            resizeIndex(chunks.length << 1);
+        }
+        place(hash, chunk);
+        ++size;
+    }
+
+    private void place(final int hash, final long chunk) {
+        var slot = hash & mask;
+        while (chunks[slot] != NO_CHUNK) {
+            slot = (slot + 1) & mask;
+        }
+        chunks[slot] = chunk;
+        hashes[slot] = hash;
+    }
+
+    private void resizeIndex(final int capacity) {
+        var oldChunks = chunks;
+        var oldHashes = hashes;
+        chunks = new long[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        Arrays.fill(chunks, NO_CHUNK);
+
+        if (oldChunks != null) {
+            for (int i = 0; i < oldChunks.length; ++i) {
+                if (oldChunks[i] != NO_CHUNK) {
+                    place(oldHashes[i], oldChunks[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties a slot by shifting back the entries of the probe sequences running through it.
+     */
+    private void deleteSlot(final int slot) {
+        var free = slot;
+        for (var next = (free + 1) & mask; chunks[next] != NO_CHUNK; next = (next + 1) & mask) {
+            // The entry may only move back if its home slot is not between the free slot and its current slot
+            var home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                chunks[free] = chunks[next];
+                hashes[free] = hashes[next];
+                free = next;
+            }
+        }
+        chunks[free] = NO_CHUNK;
+    }
+
+    private void addFirst(final long chunk) {
+        var sizeClass = sizeClass(chunk);
+        var head = heads[sizeClass];
+        setLink(chunk, PREVIOUS, NO_CHUNK);
+        setLink(chunk, NEXT, head);
+        if (head == NO_CHUNK) {
+            tails[sizeClass] = chunk;
+        } else {
+            setLink(head, PREVIOUS, chunk);
+        }
+        heads[sizeClass] = chunk;
+        touch(chunk);
+    }
+
+    private void unlink(final long chunk) {
+        var sizeClass = sizeClass(chunk);
+        var previous = link(chunk, PREVIOUS);
+        var next = link(chunk, NEXT);
+        if (previous == NO_CHUNK) {
+            heads[sizeClass] = next;
+        } else {
+            setLink(previous, NEXT, next);
+        }
+        if (next == NO_CHUNK) {
+            tails[sizeClass] = previous;
+        } else {
+            setLink(next, PREVIOUS, previous);
+        }
+    }
+
+    private void moveToFront(final long chunk) {
+        if (heads[sizeClass(chunk)] == chunk) {
+            touch(chunk);
+        } else {
+            unlink(chunk);
+            addFirst(chunk);
+        }
+    }
+
+    private void touch(final long chunk) {
+        slabUses[SlabAllocator.slabIndex(chunk)] = ++clock;
+    }
+
+    private long link(final long chunk, final int field) {
+        return allocator.slab(chunk).getLong(allocator.offset(chunk) + field);
+    }
+
+    private void setLink(final long chunk, final int field, final long target) {
+        allocator.slab(chunk).putLong(allocator.offset(chunk) + field, target);
+    }
+
+    private void writeEntry(final long chunk, final int hash, final V value, final int valueLength) {
+        var slab = allocator.slab(chunk);
+        var offset = allocator.offset(chunk);
+        slab.putInt(offset + HASH, hash);
+        slab.putInt(offset + KEY_LENGTH, keyBuffer.remaining());
+        slab.duplicate().position(offset + ENTRY_HEADER_SIZE).put(keyBuffer.duplicate());
+        writeValue(chunk, value, valueLength);
+    }
+
+    private void writeValue(final long chunk, final V value, final int valueLength) {
+        var target = valueBuffer(chunk, valueLength);
+        allocator.slab(chunk).putInt(allocator.offset(chunk) + VALUE_LENGTH, valueLength);
+        valueSerializer.serialize(value, target);
+        if (target.hasRemaining()) {
+            throw new IllegalStateException("The serializer wrote less bytes than its serialized size");
+        }
+    }
+
+    private V readValue(final long chunk) {
+        var valueLength = allocator.slab(chunk).getInt(allocator.offset(chunk) + VALUE_LENGTH);
+        return valueSerializer.deserialize(valueBuffer(chunk, valueLength), valueLength);
+    }
+
+    /**
+     * Returns a view of the slab that covers the value of the entry.
+     */
+    private ByteBuffer valueBuffer(final long chunk, final int valueLength) {
+        var offset = allocator.offset(chunk);
+        var buffer = allocator.slab(chunk).duplicate();
+        var start = offset + ENTRY_HEADER_SIZE + buffer.getInt(offset + KEY_LENGTH);
+        buffer.limit(start + valueLength);
+        buffer.position(start);
+        return buffer;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("The cache is closed");
+        }
+    }
+}
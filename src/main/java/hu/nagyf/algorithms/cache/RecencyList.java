@@ -0,0 +1,161 @@
+package hu.nagyf.algorithms.cache;
+
+/**
+ * An intrusive doubly linked list that keeps cache entries in access order.
+ * The most recently used node is at the front, the least recently used node is at the back.
+ *
+ * Unlike {@link hu.nagyf.algorithms.datastructures.LinkedList} the nodes are owned by the caller, so a node
+ * found through a hash lookup can be moved or unlinked in O(1) without searching the list, and moving a node
+ * does not allocate anything.
+ *
+ * @param <N> the type of the nodes stored in the list
+ */
+class RecencyList<N extends RecencyList.Node<N>> {
+    private N head;
+    private N tail;
+    private int size;
+
+    /**
+     * Checks whether the list is empty.
+     *
+     * @return true if it is empty, false if it contains nodes
+     */
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Returns the number of nodes linked into the list.
+     *
+     * @return the number of nodes in the list
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the most recently used node without removing it.
+     *
+     * @return the first node, or null if the list is empty
+     */
+    N first() {
+        return head;
+    }
+
+    /**
+     * Returns the least recently used node without removing it.
+     *
+     * @return the last node, or null if the list is empty
+     */
+    N last() {
+        return tail;
+    }
+
+    /**
+     * Links a node to the front of the list. The node must not be linked into any list.
+     *
+     * @param node the node to add
+     */
+    void addFirst(final N node) {
+        node.previous = null;
+        node.next = head;
+        if (head == null) {
+            tail = node;
+        } else {
+            head.previous = node;
+        }
+        head = node;
+        ++size;
+    }
+
+    /**
+     * Links a node to the back of the list. The node must not be linked into any list.
+     *
+     * @param node the node to add
+     */
+    void addLast(final N node) {
+        node.next = null;
+        node.previous = tail;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        ++size;
+    }
+
+    /**
+     * Unlinks a node from the list. The node must be linked into this list.
+     *
+     * @param node the node to remove
+     */
+    void remove(final N node) {
+        if (node.previous == null) {
+            head = node.next;
+        } else {
+            node.previous.next = node.next;
+        }
+
+        if (node.next == null) {
+            tail = node.previous;
+        } else {
+            node.next.previous = node.previous;
+        }
+
+        node.previous = null;
+        node.next = null;
+        --size;
+    }
+
+    /**
+     * Moves a node that is already linked into this list to the front of it.
+     *
+     * @param node the node to move
+     */
+    void moveToFront(final N node) {
+        if (node != head) {
+            remove(node);
+            addFirst(node);
+        }
+    }
+
+    /**
+     * Unlinks and returns the least recently used node.
+     *
+     * @return the removed node, or null if the list is empty
+     */
+    N removeLast() {
+        var node = tail;
+        if (node != null) {
+            remove(node);
+        }
+        return node;
+    }
+
+    /**
+     * Unlinks every node from the list.
+     */
+    void clear() {
+        var node = head;
+        while (node != null) {
+            var next = node.next;
+            node.previous = null;
+            node.next = null;
+            node = next;
+        }
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
+    /**
+     * The base class of the nodes. Subclasses add the key, the value and any bookkeeping the cache policy needs.
+     *
+     * @param <N> the concrete type of the node
+     */
+    abstract static class Node<N extends Node<N>> {
+        N previous;
+        N next;
+    }
+}
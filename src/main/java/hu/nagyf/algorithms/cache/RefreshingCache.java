@@ -0,0 +1,221 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache that reloads its popular entries in the background before they expire.
+ *
+ * Every entry has two ages: after the refresh time, the next read still returns the current value, but also starts
+ * reloading the key on the executor; after the expiration time, the entry is not returned any more. A key that is
+ * read regularly is therefore reloaded ahead of time and never causes a miss, while a key that is not read until it
+ * expires is dropped as usual. When a reload finishes, the new value replaces the old one in a single atomic step;
+ * if it fails, the old value is kept and the next read tries again. At most one reload runs for a key at a time.
+ *
+ * A reload never overwrites a value stored with {@link #put} after the reload started. The entries are stored in a
+ * {@link ConcurrentLRUCache}, which evicts the least recently used entries when the cache is full.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class RefreshingCache<K, V> implements Cache<K, V> {
+
+    /**
+     * The current version of each entry. The reference of a key is kept while the key is in the cache, so a reload
+     * can replace the version it started from with a compare-and-set.
+     */
+    private final ConcurrentLRUCache<K, AtomicReference<Version<V>>> entries;
+
+    /**
+     * The keys that are currently being reloaded.
+     */
+    private final ConcurrentHashMap<K, Boolean> refreshing;
+    private final Function<? super K, ? extends V> loader;
+    private final Executor executor;
+    private final long refreshAfter;
+    private final long expireAfter;
+    private final Ticker ticker;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Creates a cache that reloads its entries with the loader on the executor.
+     *
+     * @param capacity must be greater than 0
+     * @param refreshAfter the age after which a read starts reloading the entry, must be greater than 0
+     * @param expireAfter the age after which the entry is not returned any more, must be greater than refreshAfter
+     * @param unit the unit of the ages
+     * @param loader computes the new value of a key
+     * @param executor runs the reloads
+     */
+    public RefreshingCache(final int capacity, final long refreshAfter, final long expireAfter, final TimeUnit unit,
+            final Function<? super K, ? extends V> loader, final Executor executor) {
+        this(capacity, refreshAfter, expireAfter, unit, loader, executor, Ticker.systemTicker(),
+                StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a cache that reloads its entries with the loader on the executor, recording its statistics.
+     * The counter is updated by the reloads as well, so it must be thread-safe, e.g. a {@link ConcurrentStatsCounter}.
+     * Expired entries count as evictions; the entries evicted to make room are not counted.
+     *
+     * @param capacity must be greater than 0
+     * @param refreshAfter the age after which a read starts reloading the entry, must be greater than 0
+     * @param expireAfter the age after which the entry is not returned any more, must be greater than refreshAfter
+     * @param unit the unit of the ages
+     * @param loader computes the new value of a key
+     * @param executor runs the reloads
+     * @param ticker the time source used to measure the age of the entries
+     * @param statsCounter records the statistics of the cache
+     */
+    public RefreshingCache(final int capacity, final long refreshAfter, final long expireAfter, final TimeUnit unit,
+            final Function<? super K, ? extends V> loader, final Executor executor, final Ticker ticker,
+            final StatsCounter statsCounter) {
+        if (refreshAfter <= 0) {
+            throw new IllegalArgumentException("The refresh time must be greater than 0");
+        }
+        if (expireAfter <= refreshAfter) {
+            throw new IllegalArgumentException("The expiration time must be greater than the refresh time");
+        }
+
+        this.entries = new ConcurrentLRUCache<>(capacity);
+        this.refreshing = new ConcurrentHashMap<>();
+        this.loader = loader;
+        this.executor = executor;
+        this.refreshAfter = unit.toNanos(refreshAfter);
+        this.expireAfter = unit.toNanos(expireAfter);
+        this.ticker = ticker;
+        this.statsCounter = statsCounter;
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var entry = entries.get(key);
+        var version = entry.isPresent() ? entry.get().get() : null;
+        if (version == null) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        var age = ticker.read() - version.writeTime;
+        if (age >= expireAfter) {
+            // Only drop the entry if neither a reload nor another thread has replaced it in the meantime. A put can
+            // install a new reference once this one is cleared, which must not be removed with the expired one
+            if (entry.get().compareAndSet(version, null)) {
+                entries.invalidate(key, entry.get());
+                statsCounter.recordEviction();
+            }
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        if (age >= refreshAfter) {
+            refresh(key, entry.get(), version);
+        }
+        statsCounter.recordHits(1);
+        return Optional.ofNullable(version.value);
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        var entry = entries.peek(key);
+        var version = entry.isPresent() ? entry.get().get() : null;
+        if (version == null || ticker.read() - version.writeTime >= expireAfter) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(version.value);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        var version = new Version<V>(value, ticker.read());
+        var entry = entries.get(key);
+
+        // Reuse the reference of a live entry, so a running reload of the previous version cannot overwrite this one
+        if (entry.isEmpty() || entry.get().getAndSet(version) == null) {
+            entries.put(key, new AtomicReference<>(version));
+        }
+        statsCounter.recordPut();
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        entries.get(key).ifPresent(entry -> entry.set(null));
+        entries.invalidate(key);
+    }
+
+    /**
+     * Returns the number of entries stored in the cache, including the expired entries that were not read since.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Starts reloading a key on the executor, unless a reload of the key is already running.
+     */
+    private void refresh(final K key, final AtomicReference<Version<V>> entry, final Version<V> version) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    reload(key, entry, version);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Keep serving the current value, the next read tries again
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * Runs the loader and swaps in its result, if the entry still holds the version the reload started from.
+     */
+    private void reload(final K key, final AtomicReference<Version<V>> entry, final Version<V> version) {
+        var start = ticker.read();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure(ticker.read() - start);
+            return;
+        }
+
+        var end = ticker.read();
+        statsCounter.recordLoadSuccess(end - start);
+        if (value != null) {
+            entry.compareAndSet(version, new Version<>(value, end));
+        }
+    }
+
+    /**
+     * An immutable value of an entry and the time it was written.
+     *
+     * @param <V> type of the value
+     */
+    private static class Version<V> {
+        final V value;
+        final long writeTime;
+
+        Version(final V value, final long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+}
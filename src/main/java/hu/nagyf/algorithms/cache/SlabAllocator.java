@@ -0,0 +1,289 @@
+package hu.nagyf.algorithms.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates chunks of memory from direct {@link ByteBuffer} slabs, outside of the Java heap.
+ *
+ * The chunk sizes are powers of two between 64 bytes and the slab size, these are the size classes. A slab is
+ * assigned to a size class the first time that class needs memory, and it is cut into chunks of that size only.
+ * Freed chunks are kept in a free list per size class; the free list is linked through the first 8 bytes of the
+ * free chunks themselves, so it needs no memory on the heap. A slab whose chunks are no longer in use can be
+ * reassigned to another size class with {@link #reassign}.
+ *
+ * A chunk is identified by a handle: the index of its slab in the upper 32 bits and its offset in the lower 32 bits.
+ */
+class SlabAllocator {
+    /**
+     * The smallest chunk size is 2^6 = 64 bytes.
+     */
+    private static final int MIN_CHUNK_SHIFT = 6;
+
+    /**
+     * Marks the end of a free list.
+     */
+    static final long NO_CHUNK = -1;
+
+    private final int slabSize;
+    private final ByteBuffer[] slabs;
+    private int slabCount;
+
+    /**
+     * The size class of each slab.
+     */
+    private final int[] slabClasses;
+
+    /**
+     * The first free chunk of each size class.
+     */
+    private final long[] freeLists;
+
+    /**
+     * The slab each size class is currently cutting chunks from, and the offset of the next unused chunk in it.
+     */
+    private final int[] currentSlabs;
+    private final int[] currentOffsets;
+
+    /**
+     * Creates an allocator. The slabs are allocated lazily, when they are first needed.
+     *
+     * @param maximumMemory the maximum number of bytes to allocate
+     * @param slabSize the size of a slab, must be a power of two and at least 64 bytes
+     */
+    SlabAllocator(final long maximumMemory, final int slabSize) {
+        if (slabSize < 1 << MIN_CHUNK_SHIFT || Integer.bitCount(slabSize) != 1) {
+            throw new IllegalArgumentException("The slab size must be a power of two and at least 64 bytes");
+        }
+        if (maximumMemory < slabSize || maximumMemory / slabSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The maximum memory must hold between 1 and 2^31 - 1 slabs");
+        }
+
+        this.slabSize = slabSize;
+        slabs = new ByteBuffer[(int)(maximumMemory / slabSize)];
+        slabClasses = new int[slabs.length];
+
+        var sizeClasses = Integer.numberOfTrailingZeros(slabSize) - MIN_CHUNK_SHIFT + 1;
+        freeLists = new long[sizeClasses];
+        currentSlabs = new int[sizeClasses];
+        currentOffsets = new int[sizeClasses];
+        for (int i = 0; i < sizeClasses; ++i) {
+            freeLists[i] = NO_CHUNK;
+            currentSlabs[i] = -1;
+        }
+    }
+
+    /**
+     * Returns the largest number of bytes a chunk can hold.
+     *
+     * @return the size of a slab
+     */
+    int maximumChunkSize() {
+        return slabSize;
+    }
+
+    /**
+     * Returns the size of the chunks of a size class.
+     *
+     * @param sizeClass the index of the size class
+     * @return the size of a chunk in bytes
+     */
+    int chunkSize(final int sizeClass) {
+        return 1 << (sizeClass + MIN_CHUNK_SHIFT);
+    }
+
+    /**
+     * Returns the size class that serves allocations of the given size.
+     *
+     * @param size the number of bytes to allocate, at most the slab size
+     * @return the index of the size class
+     */
+    int sizeClass(final int size) {
+        if (size <= 1 << MIN_CHUNK_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CHUNK_SHIFT;
+    }
+
+    /**
+     * Allocates a chunk of a size class.
+     *
+     * @param sizeClass the index of the size class
+     * @return the handle of the chunk, or {@link #NO_CHUNK} if the memory of the allocator is used up
+     */
+    long allocate(final int sizeClass) {
+        var chunk = freeLists[sizeClass];
+        if (chunk != NO_CHUNK) {
+            freeLists[sizeClass] = slab(chunk).getLong(offset(chunk));
+            return chunk;
+        }
+
+        var chunkSize = chunkSize(sizeClass);
+        if (currentSlabs[sizeClass] < 0 || currentOffsets[sizeClass] + chunkSize > slabSize) {
+            if (slabCount == slabs.length) {
+                return NO_CHUNK;
+            }
+
+            slabs[slabCount] = ByteBuffer.allocateDirect(slabSize);
+            slabClasses[slabCount] = sizeClass;
+            currentSlabs[sizeClass] = slabCount;
+            currentOffsets[sizeClass] = 0;
+            ++slabCount;
+        }
+
+        var offset = currentOffsets[sizeClass];
+        currentOffsets[sizeClass] += chunkSize;
+        return handle(currentSlabs[sizeClass], offset);
+    }
+
+    /**
+     * Returns a chunk to the free list of its size class.
+     *
+     * @param chunk the handle of the chunk
+     */
+    void free(final long chunk) {
+        var sizeClass = slabClasses[slabIndex(chunk)];
+        slab(chunk).putLong(offset(chunk), freeLists[sizeClass]);
+        freeLists[sizeClass] = chunk;
+    }
+
+    /**
+     * Hands a slab over to another size class, which cuts its next chunks from it. None of the chunks of the slab
+     * may be in use any more; its free chunks are dropped from the free list of its previous size class.
+     * Only called when the new size class has no free chunk left, so it does not lose any part of its current slab.
+     *
+     * @param slabIndex the index of the slab
+     * @param sizeClass the index of the new size class
+     */
+    void reassign(final int slabIndex, final int sizeClass) {
+        var previousClass = slabClasses[slabIndex];
+        var first = NO_CHUNK;
+        var last = NO_CHUNK;
+        for (var chunk = freeLists[previousClass]; chunk != NO_CHUNK; ) {
+            var next = slab(chunk).getLong(offset(chunk));
+            if (slabIndex(chunk) != slabIndex) {
+                if (last == NO_CHUNK) {
+                    first = chunk;
+                } else {
+                    slab(last).putLong(offset(last), chunk);
+                }
+                last = chunk;
+            }
+            chunk = next;
+        }
+        if (last != NO_CHUNK) {
+            slab(last).putLong(offset(last), NO_CHUNK);
+        }
+        freeLists[previousClass] = first;
+        if (currentSlabs[previousClass] == slabIndex) {
+            currentSlabs[previousClass] = -1;
+        }
+
+        slabClasses[slabIndex] = sizeClass;
+        currentSlabs[sizeClass] = slabIndex;
+        currentOffsets[sizeClass] = 0;
+    }
+
+    /**
+     * Returns the size class a slab is assigned to.
+     *
+     * @param slabIndex the index of the slab
+     * @return the index of the size class
+     */
+    int slabClass(final int slabIndex) {
+        return slabClasses[slabIndex];
+    }
+
+    /**
+     * Returns the number of bytes of a slab that were already cut into chunks. The chunks below this offset are
+     * either in use or free, the rest of the slab was never handed out by its current size class.
+     *
+     * @param slabIndex the index of the slab
+     * @return the number of bytes cut into chunks
+     */
+    int usedBytes(final int slabIndex) {
+        var sizeClass = slabClasses[slabIndex];
+        return currentSlabs[sizeClass] == slabIndex ? currentOffsets[sizeClass] : slabSize;
+    }
+
+    /**
+     * Returns the number of slabs allocated so far; their indexes are below this number.
+     *
+     * @return the number of slabs
+     */
+    int slabCount() {
+        return slabCount;
+    }
+
+    /**
+     * Returns the number of slabs the allocator can allocate.
+     *
+     * @return the maximum number of slabs
+     */
+    int maximumSlabCount() {
+        return slabs.length;
+    }
+
+    /**
+     * Returns the slab a chunk belongs to. The chunk starts at {@link #offset(long)} in it.
+     *
+     * @param chunk the handle of the chunk
+     * @return the slab
+     */
+    ByteBuffer slab(final long chunk) {
+        return slabs[slabIndex(chunk)];
+    }
+
+    /**
+     * Returns the offset of a chunk in its slab.
+     *
+     * @param chunk the handle of the chunk
+     * @return the offset
+     */
+    int offset(final long chunk) {
+        return (int)chunk;
+    }
+
+    /**
+     * Returns the number of bytes allocated from the operating system so far.
+     *
+     * @return the total size of the slabs
+     */
+    long allocatedMemory() {
+        return (long)slabCount * slabSize;
+    }
+
+    /**
+     * Drops every slab. The memory is given back to the operating system when the buffers are garbage collected.
+     */
+    void release() {
+        for (int i = 0; i < slabCount; ++i) {
+            slabs[i] = null;
+        }
+        slabCount = 0;
+        for (int i = 0; i < freeLists.length; ++i) {
+            freeLists[i] = NO_CHUNK;
+            currentSlabs[i] = -1;
+        }
+    }
+
+    /**
+     * Returns the index of the slab a chunk belongs to.
+     *
+     * @param chunk the handle of the chunk
+     * @return the index of the slab
+     */
+    static int slabIndex(final long chunk) {
+        return (int)(chunk >>> 32);
+    }
+
+    /**
+     * Returns the handle of the chunk at an offset of a slab.
+     *
+     * @param slabIndex the index of the slab
+     * @param offset the offset of the chunk in the slab
+     * @return the handle of the chunk
+     */
+    static long handle(final int slabIndex, final int offset) {
+        return (long)slabIndex << 32 | offset;
+    }
+}
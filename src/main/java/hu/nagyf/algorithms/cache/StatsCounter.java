@@ -0,0 +1,101 @@
+package hu.nagyf.algorithms.cache;
+
+/**
+ * Records the events of a cache, so they can be inspected with {@link Cache#stats()}.
+ *
+ * A cache records its statistics only if a counter is passed to it when it is created. Otherwise it uses
+ * {@link #disabled()}, which costs nothing. A counter can be shared by several caches, or by a cache and the
+ * cache it delegates to, to aggregate their statistics.
+ */
+public interface StatsCounter {
+
+    /**
+     * Records cache hits.
+     *
+     * @param count the number of hits
+     */
+    void recordHits(final int count);
+
+    /**
+     * Records cache misses.
+     *
+     * @param count the number of misses
+     */
+    void recordMisses(final int count);
+
+    /**
+     * Records that a value was stored in the cache.
+     */
+    void recordPut();
+
+    /**
+     * Records that an entry was evicted by the cache policy, e.g. because the cache was full or the entry expired.
+     */
+    void recordEviction();
+
+    /**
+     * Records that a value was loaded successfully.
+     *
+     * @param loadTime the time it took to load the value, in nanoseconds
+     */
+    void recordLoadSuccess(final long loadTime);
+
+    /**
+     * Records that the loading of a value failed.
+     *
+     * @param loadTime the time spent before the load failed, in nanoseconds
+     */
+    void recordLoadFailure(final long loadTime);
+
+    /**
+     * Returns the current values of the counters.
+     *
+     * @return the snapshot of the statistics
+     */
+    CacheStats snapshot();
+
+    /**
+     * Returns a counter that ignores every event.
+     *
+     * @return the disabled counter
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+
+    /**
+     * The counter used when the statistics are not enabled.
+     */
+    enum DisabledStatsCounter implements StatsCounter {
+        INSTANCE;
+
+        @Override
+        public void recordHits(final int count) {
+        }
+
+        @Override
+        public void recordMisses(final int count) {
+        }
+
+        @Override
+        public void recordPut() {
+        }
+
+        @Override
+        public void recordEviction() {
+        }
+
+        @Override
+        public void recordLoadSuccess(final long loadTime) {
+        }
+
+        @Override
+        public void recordLoadFailure(final long loadTime) {
+        }
+
+        @Override
+        public CacheStats snapshot() {
+            return CacheStats.empty();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package hu.nagyf.algorithms.cache;
+
+/**
+ * A time source for the caches that need to measure elapsed time.
+ * Production code uses {@link #systemTicker()}, tests can supply a fake ticker to control the time.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    /**
+     * Returns the number of nanoseconds elapsed since a fixed but arbitrary point in time.
+     * Only the difference of two values is meaningful.
+     *
+     * @return the current time in nanoseconds
+     */
+    long read();
+
+    /**
+     * Returns a ticker that reads {@link System#nanoTime()}.
+     *
+     * @return the system ticker
+     */
+    static Ticker systemTicker() {
+        return System::nanoTime;
+    }
+}
@@ -0,0 +1,210 @@
+package hu.nagyf.algorithms.cache;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * A two-level cache: a Least Recently Used cache in memory, backed by memory-mapped files on the local disk.
+ *
+ * The entries evicted from memory are not thrown away but demoted to the disk tier, where they are appended to
+ * a segment file (see {@link MappedDiskStore}). A hit in the disk tier promotes the entry back to memory. When the
+ * disk tier is full, its oldest segment is dropped together with the entries it holds. Overwritten and promoted
+ * entries leave dead space behind in the segments, which is reclaimed by {@link #compact()}; it can be scheduled to
+ * run in the background with {@link #scheduleCompaction}.
+ *
+ * The methods of this cache are synchronized, so the background compaction can run on another thread.
+ * The segment files are deleted when the cache is closed.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class TieredCache<K, V> implements Cache<K, V>, AutoCloseable {
+    /**
+     * The largest size of a segment file, 64 MB.
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    private final LRUCache<K, V> memory;
+    private final MappedDiskStore<K, V> disk;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Creates a cache with a memory tier of the given capacity and a disk tier in the given directory.
+     *
+     * @param capacity the number of entries kept in memory, must be greater than 0
+     * @param directory an existing directory for the segment files
+     * @param maximumDiskSize the maximum number of bytes stored on the disk, at least 1 KB
+     * @param keySerializer converts the keys to and from their binary form
+     * @param valueSerializer converts the values to and from their binary form
+     */
+    public TieredCache(final int capacity, final Path directory, final long maximumDiskSize,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        this(capacity, directory, maximumDiskSize, (int)Math.min(maximumDiskSize / 4, DEFAULT_SEGMENT_SIZE),
+                keySerializer, valueSerializer, StatsCounter.disabled());
+    }
+
+    /**
+     * Creates a cache with a memory tier of the given capacity and a disk tier in the given directory.
+     *
+     * @param capacity the number of entries kept in memory, must be greater than 0
+     * @param directory an existing directory for the segment files
+     * @param maximumDiskSize the maximum number of bytes stored on the disk, at least one segment
+     * @param segmentSize the size of a segment file, at least 256 bytes; also the largest entry the disk can hold
+     * @param keySerializer converts the keys to and from their binary form
+     * @param valueSerializer converts the values to and from their binary form
+     * @param statsCounter records the statistics of the cache
+     */
+    public TieredCache(final int capacity, final Path directory, final long maximumDiskSize, final int segmentSize,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer, final StatsCounter statsCounter) {
+        if (segmentSize < 256) {
+            throw new IllegalArgumentException("The segment size must be at least 256 bytes");
+        }
+        if (maximumDiskSize < segmentSize) {
+            throw new IllegalArgumentException("The disk tier must hold at least one segment");
+        }
+
+        this.statsCounter = statsCounter;
+        this.disk = new MappedDiskStore<>(directory, segmentSize,
+                (int)Math.min(maximumDiskSize / segmentSize, Integer.MAX_VALUE), keySerializer, valueSerializer);
+        this.memory = new LRUCache<>(capacity) {
+            @Override
+            protected void onEviction(final K key, final V value) {
+                if (!disk.put(key, value)) {
+                    statsCounter.recordEviction();
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<V> get(final K key) {
+        var value = memory.get(key);
+        if (value.isEmpty()) {
+            value = disk.take(key);
+
+            // Promoting the entry can demote the least recently used entry of the memory tier
+            value.ifPresent(v -> memory.put(key, v));
+        }
+
+        if (value.isPresent()) {
+            statsCounter.recordHits(1);
+        } else {
+            statsCounter.recordMisses(1);
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * An entry found on the disk is not promoted to memory.
+     */
+    @Override
+    public synchronized Optional<V> peek(final K key) {
+        var value = memory.peek(key);
+        return value.isPresent() ? value : disk.get(key);
+    }
+
+    @Override
+    public synchronized void put(final K key, final V value) {
+        disk.remove(key);
+        memory.put(key, value);
+        statsCounter.recordPut();
+    }
+
+    @Override
+    public synchronized void invalidate(final K key) {
+        memory.invalidate(key);
+        disk.remove(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized Map<K, V> getAll(final Iterable<? extends K> keys) {
+        return Cache.super.getAll(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized void putAll(final Map<? extends K, ? extends V> entries) {
+        Cache.super.putAll(entries);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The lock of the cache is taken only once for the whole batch.
+     */
+    @Override
+    public synchronized void invalidateAll(final Iterable<? extends K> keys) {
+        Cache.super.invalidateAll(keys);
+    }
+
+    /**
+     * Returns the number of entries kept in memory.
+     *
+     * @return the number of entries in the memory tier
+     */
+    public synchronized int memorySize() {
+        return memory.size();
+    }
+
+    /**
+     * Returns the number of entries stored on the disk.
+     *
+     * @return the number of entries in the disk tier
+     */
+    public synchronized int diskSize() {
+        return disk.size();
+    }
+
+    /**
+     * Reclaims the dead space of the segment file that has the most of it, if at least half of the file is dead.
+     * Compacts only one segment per call, so the cache is never blocked for long.
+     *
+     * @return true if a segment was compacted
+     */
+    public synchronized boolean compact() {
+        return disk.compact();
+    }
+
+    /**
+     * Runs {@link #compact()} periodically on the given executor.
+     *
+     * @param executor the executor to run the compaction on
+     * @param period the time between two runs
+     * @param unit the unit of the period
+     * @return the scheduled task, cancel it to stop the compaction
+     */
+    public ScheduledFuture<?> scheduleCompaction(final ScheduledExecutorService executor, final long period,
+            final TimeUnit unit) {
+        return executor.scheduleWithFixedDelay(this::compact, period, period, unit);
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Deletes the segment files. The entries of the disk tier are lost.
+     */
+    @Override
+    public synchronized void close() {
+        disk.close();
+    }
+}
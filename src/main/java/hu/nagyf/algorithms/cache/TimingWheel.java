@@ -0,0 +1,170 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel that tracks when the entries of a cache expire.
+ *
+ * The wheel has 4 levels of 64 buckets. A bucket of the lowest level spans 2^24 ns (about 17 ms), and every level
+ * spans 64 times more than the one below it, so the whole wheel covers about 3 days. A timer is put into the
+ * lowest level whose range covers its delay, in the bucket of its expiration time. When the time advances only the
+ * buckets that were passed are processed: expired timers are reported, the others are rescheduled into a lower level.
+ * Scheduling, cancelling and expiring a timer are therefore O(1) amortized, no matter how many timers there are.
+ *
+ * Timers that expire later than the range of the wheel are parked in the top level and rescheduled until they are due.
+ *
+ * @param <N> the type of the timers
+ */
+class TimingWheel<N extends TimingWheel.Timer<N>> {
+    private static final int LEVELS = 4;
+    private static final int BUCKETS = 64;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+
+    /**
+     * The number of bits to shift a time to get the index of its tick on each level.
+     */
+    private static final int[] SHIFTS = {24, 30, 36, 42};
+
+    /**
+     * The buckets of the wheel. Each bucket is a circular list that starts and ends with a sentinel.
+     */
+    private final Timer<N>[][] wheel;
+    private final Consumer<N> onExpired;
+    private long currentTime;
+
+    /**
+     * Creates an empty timing wheel.
+     *
+     * @param currentTime the current time in nanoseconds
+     * @param onExpired called with every timer that expired while advancing the wheel
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(final long currentTime, final Consumer<N> onExpired) {
+        this.currentTime = currentTime;
+        this.onExpired = onExpired;
+
+        wheel = (Timer<N>[][])new Timer<?>[LEVELS][BUCKETS];
+        for (int level = 0; level < LEVELS; ++level) {
+            for (int i = 0; i < BUCKETS; ++i) {
+                var sentinel = new Timer<N>() {
+                };
+                sentinel.timerPrevious = sentinel;
+                sentinel.timerNext = sentinel;
+                wheel[level][i] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Adds a timer to the wheel, based on its {@link Timer#expirationTime}.
+     * The timer must not be scheduled already.
+     *
+     * @param timer the timer to add
+     */
+    void schedule(final N timer) {
+        var delay = timer.expirationTime - currentTime;
+        for (int level = 0; level < LEVELS - 1; ++level) {
+            if (delay < 1L << (SHIFTS[level] + 6)) {
+                link(bucket(level, timer.expirationTime), timer);
+                return;
+            }
+        }
+
+        // Timers beyond the range of the wheel are parked in the farthest bucket of the top level
+        var maxDelay = (long)BUCKET_MASK << SHIFTS[LEVELS - 1];
+        link(bucket(LEVELS - 1, delay < maxDelay ? timer.expirationTime : currentTime + maxDelay), timer);
+    }
+
+    /**
+     * Removes a timer from the wheel. Does nothing if the timer is not scheduled.
+     *
+     * @param timer the timer to remove
+     */
+    void cancel(final N timer) {
+        if (timer.timerNext != null) {
+            timer.timerPrevious.timerNext = timer.timerNext;
+            timer.timerNext.timerPrevious = timer.timerPrevious;
+            timer.timerPrevious = null;
+            timer.timerNext = null;
+        }
+    }
+
+    /**
+     * Moves the wheel forward to the given time and reports every timer that expired until then.
+     *
+     * @param now the current time in nanoseconds
+     */
+    void advance(final long now) {
+        var previous = currentTime;
+        if (now - previous <= 0) {
+            return;
+        }
+
+        currentTime = now;
+        for (int level = 0; level < LEVELS; ++level) {
+            var previousTicks = previous >> SHIFTS[level];
+
+            // The ticks are taken modulo their range, so the wheel keeps turning when the time overflows
+            var delta = ((now >> SHIFTS[level]) - previousTicks) & (-1L >>> SHIFTS[level]);
+            if (delta == 0) {
+                break;
+            }
+            expire(level, previousTicks, delta);
+        }
+    }
+
+    /**
+     * Processes the buckets of a level that were passed since the previous tick.
+     * The due timers are reported, the others are rescheduled.
+     */
+    @SuppressWarnings("unchecked")
+    private void expire(final int level, final long previousTicks, final long delta) {
+        var count = delta >= BUCKETS ? BUCKETS : (int)delta + 1;
+        var start = (int)(previousTicks & BUCKET_MASK);
+
+        for (int i = 0; i < count; ++i) {
+            var sentinel = wheel[level][(start + i) & BUCKET_MASK];
+
+            // Detach the whole bucket first, so rescheduled timers can go back into it
+            var timer = sentinel.timerNext;
+            sentinel.timerPrevious = sentinel;
+            sentinel.timerNext = sentinel;
+
+            while (timer != sentinel) {
+                var next = timer.timerNext;
+                timer.timerPrevious = null;
+                timer.timerNext = null;
+
+                if (timer.expirationTime - currentTime <= 0) {
+                    onExpired.accept((N)timer);
+                } else {
+                    schedule((N)timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    private Timer<N> bucket(final int level, final long time) {
+        return wheel[level][(int)((time >> SHIFTS[level]) & BUCKET_MASK)];
+    }
+
+    private void link(final Timer<N> sentinel, final Timer<N> timer) {
+        timer.timerNext = sentinel;
+        timer.timerPrevious = sentinel.timerPrevious;
+        sentinel.timerPrevious.timerNext = timer;
+        sentinel.timerPrevious = timer;
+    }
+
+    /**
+     * The base class of the timers. A timer can be linked into a {@link RecencyList} and into the wheel at the
+     * same time, so a cache entry can be both access ordered and expirable.
+     *
+     * @param <N> the concrete type of the timer
+     */
+    abstract static class Timer<N extends Timer<N>> extends RecencyList.Node<N> {
+        long expirationTime;
+        Timer<N> timerPrevious;
+        Timer<N> timerNext;
+    }
+}
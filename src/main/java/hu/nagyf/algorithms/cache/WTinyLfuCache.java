@@ -0,0 +1,233 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.Optional;
+
+import hu.nagyf.algorithms.datastructures.map.HashTable;
+
+/**
+ * Window TinyLFU cache: a fix sized cache that only keeps a new entry if it is likely to be used more often than
+ * the entry it would replace.
+ *
+ * New entries are put into a small LRU window (1% of the capacity). When an entry falls out of the window it becomes
+ * a candidate for the main region, which is a segmented LRU: entries enter its probation segment, and are promoted
+ * to the protected segment (80% of the main region) when they are used again. If the main region is full, the
+ * candidate is compared with the least recently used entry of the probation segment, and the one with the lower
+ * estimated frequency (see {@link FrequencySketch}) is evicted.
+ *
+ * Keys that are read only once, e.g. by a batch job that scans every key, never get past the window, so they cannot
+ * flush the frequently used entries the way they do in an {@link LRUCache}.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+public class WTinyLfuCache<K, V> implements Cache<K, V> {
+
+    /**
+     * The percentage of the capacity used by the admission window.
+     */
+    private static final int WINDOW_PERCENTAGE = 1;
+
+    /**
+     * The percentage of the main region used by the protected segment.
+     */
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    private final HashTable<K, Entry<K, V>> entries;
+    private final FrequencySketch<K> sketch;
+
+    private final RecencyList<Entry<K, V>> window;
+    private final RecencyList<Entry<K, V>> probation;
+    private final RecencyList<Entry<K, V>> protectedSegment;
+
+    private final int windowCapacity;
+    private final int mainCapacity;
+    private final int protectedCapacity;
+    private final StatsCounter statsCounter;
+
+    /**
+     * Initialize the cache with a capacity.
+     *
+     * @param capacity must be greater than 0.
+     */
+    public WTinyLfuCache(final int capacity) {
+        this(capacity, StatsCounter.disabled());
+    }
+
+    /**
+     * Initialize the cache with a capacity, recording its statistics.
+     *
+     * @param capacity must be greater than 0.
+     * @param statsCounter records the statistics of the cache
+     */
+    public WTinyLfuCache(final int capacity, final StatsCounter statsCounter) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The cache must be greater than 0");
+        }
+
+        windowCapacity = Math.max(1, capacity * WINDOW_PERCENTAGE / 100);
+        mainCapacity = capacity - windowCapacity;
+        protectedCapacity = mainCapacity * PROTECTED_PERCENTAGE / 100;
+        this.statsCounter = statsCounter;
+
+        entries = new HashTable<>();
+        sketch = new FrequencySketch<>(capacity);
+        window = new RecencyList<>();
+        probation = new RecencyList<>();
+        protectedSegment = new RecencyList<>();
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var entry = entries.get(key);
+        if (entry.isEmpty()) {
+            statsCounter.recordMisses(1);
+            return Optional.empty();
+        }
+
+        statsCounter.recordHits(1);
+        sketch.increment(key);
+        onAccess(entry.get());
+        return Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public Optional<V> peek(final K key) {
+        var entry = entries.get(key);
+        return entry.isEmpty() ? Optional.empty() : Optional.ofNullable(entry.get().value);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        sketch.increment(key);
+        statsCounter.recordPut();
+
+        var existing = entries.get(key);
+        if (existing.isPresent()) {
+            existing.get().value = value;
+            onAccess(existing.get());
+            return;
+        }
+
+        var entry = new Entry<>(key, value);
+        entries.put(key, entry);
+        window.addFirst(entry);
+
+        if (window.size() > windowCapacity) {
+            admit(window.removeLast());
+        }
+    }
+
+    @Override
+    public void invalidate(final K key) {
+        entries.get(key).ifPresent(entry -> {
+            regionOf(entry).remove(entry);
+            entries.remove(key);
+        });
+    }
+
+    /**
+     * Returns the number of entries stored in the cache.
+     *
+     * @return the number of entries, never more than the capacity
+     */
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * Updates the position of an entry that was used.
+     * Entries in the window and in the protected segment move to the front of their segment,
+     * entries on probation are promoted to the protected segment.
+     *
+     * @param entry the entry that was used
+     */
+    private void onAccess(final Entry<K, V> entry) {
+        switch (entry.region) {
+            case WINDOW:
+                window.moveToFront(entry);
+                break;
+            case PROBATION:
+                probation.remove(entry);
+                entry.region = Region.PROTECTED;
+                protectedSegment.addFirst(entry);
+
+                // Demote the least recently used protected entry, so it has to prove itself again
+                if (protectedSegment.size() > protectedCapacity) {
+                    var demoted = protectedSegment.removeLast();
+                    demoted.region = Region.PROBATION;
+                    probation.addFirst(demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedSegment.moveToFront(entry);
+                break;
+        }
+    }
+
+    private RecencyList<Entry<K, V>> regionOf(final Entry<K, V> entry) {
+        switch (entry.region) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedSegment;
+        }
+    }
+
+    /**
+     * Moves a candidate that was evicted from the window into the main region,
+     * if the main region has room for it or if it is used more often than the entry it would replace.
+     *
+     * @param candidate the entry evicted from the window
+     */
+    private void admit(final Entry<K, V> candidate) {
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            candidate.region = Region.PROBATION;
+            probation.addFirst(candidate);
+            return;
+        }
+
+        var victims = probation.isEmpty() ? protectedSegment : probation;
+        var victim = victims.last();
+        statsCounter.recordEviction();
+        if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            entries.remove(candidate.key);
+            return;
+        }
+
+        victims.remove(victim);
+        entries.remove(victim.key);
+        candidate.region = Region.PROBATION;
+        probation.addFirst(candidate);
+    }
+
+    /**
+     * The regions of the cache an entry can be in.
+     */
+    private enum Region {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    /**
+     * A cache entry that is linked into the list of its region.
+     *
+     * @param <K> type of the key
+     * @param <V> type of the value
+     */
+    private static class Entry<K, V> extends RecencyList.Node<Entry<K, V>> {
+        final K key;
+        V value;
+        Region region = Region.WINDOW;
+
+        Entry(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
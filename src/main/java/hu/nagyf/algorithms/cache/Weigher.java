@@ -0,0 +1,32 @@
+package hu.nagyf.algorithms.cache;
+
+/**
+ * Calculates the weight of a cache entry, e.g. its approximate size in bytes.
+ * Caches bounded by weight evict entries until the total weight of the remaining entries fits the maximum.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the value
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * Returns the weight of an entry. The weight of an entry must not change while it is in the cache.
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @return the weight, cannot be negative
+     */
+    int weigh(final K key, final V value);
+
+    /**
+     * Returns a weigher that gives every entry the weight of 1, i.e. the cache is bounded by the number of entries.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     * @return the weigher
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,20 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+import hu.nagyf.algorithms.cache.Cache;
+import hu.nagyf.algorithms.cache.StatsCounter;
+
+/**
+ * Creates the cache of a policy for a simulation, e.g. {@code LRUCache::new}.
+ */
+@FunctionalInterface
+public interface CacheFactory {
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the maximum number of entries of the cache
+     * @param statsCounter the counter the cache must record its evictions to
+     * @return the new cache
+     */
+    Cache<Long, Long> create(int capacity, StatsCounter statsCounter);
+}
@@ -0,0 +1,114 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hu.nagyf.algorithms.cache.ArcCache;
+import hu.nagyf.algorithms.cache.ClockCache;
+import hu.nagyf.algorithms.cache.ConcurrentStatsCounter;
+import hu.nagyf.algorithms.cache.LRUCache;
+import hu.nagyf.algorithms.cache.WTinyLfuCache;
+
+/**
+ * Replays a key-access trace through cache policies to compare them on real traffic.
+ *
+ * Every access is a read of the key; a miss is followed by storing the key, the way a cache in front of a slower
+ * store is used. Each policy is run separately at each capacity, starting with an empty cache, and the trace is
+ * streamed from the file for every run, so the memory used by a simulation depends only on the capacities.
+ */
+public class CacheSimulator {
+
+    private final Trace trace;
+    private final Map<String, CacheFactory> policies;
+
+    /**
+     * Creates a simulator for a trace.
+     *
+     * @param trace the trace to replay
+     * @param policies the policies to compare, by name, in the order of the report
+     */
+    public CacheSimulator(final Trace trace, final Map<String, CacheFactory> policies) {
+        if (policies.isEmpty()) {
+            throw new IllegalArgumentException("At least one policy is needed");
+        }
+
+        this.trace = trace;
+        this.policies = new LinkedHashMap<>(policies);
+    }
+
+    /**
+     * Returns the policies of this library, by name.
+     *
+     * @return the LRU, CLOCK, ARC and W-TinyLFU policies
+     */
+    public static Map<String, CacheFactory> defaultPolicies() {
+        var policies = new LinkedHashMap<String, CacheFactory>();
+        policies.put("LRU", LRUCache::new);
+        policies.put("CLOCK", ClockCache::new);
+        policies.put("ARC", ArcCache::new);
+        policies.put("W-TinyLFU", WTinyLfuCache::new);
+        return policies;
+    }
+
+    /**
+     * Replays the trace through every policy at every capacity.
+     *
+     * @param capacities the capacities to simulate, each must be greater than 0
+     * @return the results, grouped by capacity and ordered by policy within a capacity
+     */
+    public List<SimulationResult> run(final int... capacities) {
+        var results = new ArrayList<SimulationResult>();
+        for (var capacity : capacities) {
+            for (var policy : policies.entrySet()) {
+                results.add(run(policy.getKey(), policy.getValue(), capacity));
+            }
+        }
+        return results;
+    }
+
+    private SimulationResult run(final String name, final CacheFactory factory, final int capacity) {
+        var statsCounter = new ConcurrentStatsCounter();
+        var cache = factory.create(capacity, statsCounter);
+        var hits = new long[1];
+
+        var start = System.nanoTime();
+        trace.forEach(key -> {
+            if (cache.get(key).isPresent()) {
+                ++hits[0];
+            } else {
+                cache.put(key, key);
+            }
+        });
+        var elapsed = System.nanoTime() - start;
+
+        return new SimulationResult(name, capacity, trace.length(), hits[0], statsCounter.snapshot().evictionCount(),
+                elapsed);
+    }
+
+    /**
+     * Replays a trace file through the policies of this library and prints a report.
+     *
+     * @param args the trace file, followed by one or more capacities
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: CacheSimulator <trace file> <capacity>...");
+            System.exit(1);
+        }
+
+        var capacities = new int[args.length - 1];
+        for (int i = 1; i < args.length; ++i) {
+            capacities[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        var trace = new Trace(Paths.get(args[0]));
+        System.out.printf("%d accesses%n", trace.length());
+        System.out.printf("%-12s %12s %11s %14s %10s%n", "Policy", "Capacity", "Hit ratio", "Evictions", "ns/op");
+        for (var result : new CacheSimulator(trace, defaultPolicies()).run(capacities)) {
+            System.out.println(result);
+        }
+    }
+}
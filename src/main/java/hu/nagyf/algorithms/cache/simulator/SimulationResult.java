@@ -0,0 +1,71 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+/**
+ * The outcome of replaying a trace through one cache policy at one capacity.
+ */
+public class SimulationResult {
+    private final String policy;
+    private final int capacity;
+    private final long accessCount;
+    private final long hitCount;
+    private final long evictionCount;
+    private final long elapsedNanos;
+
+    public SimulationResult(final String policy, final int capacity, final long accessCount, final long hitCount,
+            final long evictionCount, final long elapsedNanos) {
+        this.policy = policy;
+        this.capacity = capacity;
+        this.accessCount = accessCount;
+        this.hitCount = hitCount;
+        this.evictionCount = evictionCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String policy() {
+        return policy;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long accessCount() {
+        return accessCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the ratio of the accesses that were served from the cache.
+     *
+     * @return the hit ratio, 1.0 for an empty trace
+     */
+    public double hitRatio() {
+        return accessCount == 0 ? 1.0 : (double)hitCount / accessCount;
+    }
+
+    /**
+     * Returns the average time of an access, including the time of storing the missing keys.
+     *
+     * @return nanoseconds per access, 0.0 for an empty trace
+     */
+    public double nanosPerOperation() {
+        return accessCount == 0 ? 0.0 : (double)elapsedNanos / accessCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s %12d %10.2f%% %14d %10.1f", policy, capacity, hitRatio() * 100, evictionCount,
+                nanosPerOperation());
+    }
+}
@@ -0,0 +1,109 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A key-access trace stored in a file: a sequence of 64-bit keys in big-endian byte order, one per access.
+ *
+ * The file is read through memory-mapped windows of a fixed size, one window at a time, so replaying a trace of any
+ * length needs a constant amount of memory and the operating system can read ahead and drop pages as it sees fit.
+ */
+public class Trace {
+    /**
+     * The default size of a mapped window, 64 MB.
+     */
+    private static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private final Path file;
+    private final int windowSize;
+    private final long length;
+
+    /**
+     * Opens a trace file.
+     *
+     * @param file the trace file, its size must be a multiple of 8 bytes
+     */
+    public Trace(final Path file) {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a trace file that is read through windows of the given size.
+     *
+     * @param file the trace file, its size must be a multiple of 8 bytes
+     * @param windowSize the number of bytes mapped at a time, a positive multiple of 8 bytes
+     */
+    Trace(final Path file, final int windowSize) {
+        if (windowSize <= 0 || windowSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("The window size must be a positive multiple of 8 bytes");
+        }
+
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read trace file " + file, e);
+        }
+        if (size % Long.BYTES != 0) {
+            throw new IllegalArgumentException("The size of the trace file must be a multiple of 8 bytes");
+        }
+
+        this.file = file;
+        this.windowSize = windowSize;
+        this.length = size / Long.BYTES;
+    }
+
+    /**
+     * Returns the number of accesses in the trace.
+     *
+     * @return the number of keys in the file
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Passes every key of the trace to the consumer, in the order of the file.
+     *
+     * @param consumer receives the keys
+     */
+    public void forEach(final LongConsumer consumer) {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var size = length * Long.BYTES;
+            for (long position = 0; position < size; position += windowSize) {
+                var windowLength = Math.min(windowSize, size - position);
+                var window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowLength);
+                while (window.hasRemaining()) {
+                    consumer.accept(window.getLong());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read trace file " + file, e);
+        }
+    }
+
+    /**
+     * Writes a trace file.
+     *
+     * @param file the file to write, it is replaced if it exists
+     * @param keys the keys of the accesses, in order
+     */
+    public static void write(final Path file, final PrimitiveIterator.OfLong keys) {
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            while (keys.hasNext()) {
+                output.writeLong(keys.nextLong());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write trace file " + file, e);
+        }
+    }
+}
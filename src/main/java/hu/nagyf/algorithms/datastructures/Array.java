@@ -102,7 +102,11 @@ public class Array<T> implements Iterable<T> {
      * @param idx the index in the array that we want to check
      */
     private void ensureSize(final int idx) {
-        var newSize = size;
+        if (idx < size) {
+            return;
+        }
+
+        var newSize = Math.max(size, 1);
         while(newSize <= idx) {
             newSize = newSize << 1;
         }
@@ -2,6 +2,7 @@ package hu.nagyf.algorithms.datastructures;
 
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
@@ -174,6 +175,46 @@ public class LinkedList<T> implements Iterable<T> {
         return Optional.empty();
     }
 
+    /**
+     * Returns the first element that matches the argument.
+     * Allocates nothing if the matcher captures nothing, e.g. a static method reference, so it can be used
+     * on hot paths.
+     *
+     * @param argument the second argument of the matcher, e.g. the key to look for
+     * @param matcher decides whether an element matches the argument
+     * @param <A> the type of the argument
+     * @return the first matching element, or null if no element matches
+     */
+    public <A> T findFirst(final A argument, final BiPredicate<? super T, ? super A> matcher) {
+        for (var node = head.next; node != tail; node = node.next) {
+            if (matcher.test(node.value, argument)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Unlinks the first element that matches the argument, in a single pass and without allocating,
+     * see {@link #findFirst(Object, BiPredicate)}.
+     *
+     * @param argument the second argument of the matcher, e.g. the key to remove
+     * @param matcher decides whether an element matches the argument
+     * @param <A> the type of the argument
+     * @return true if an element was removed
+     */
+    public <A> boolean removeFirst(final A argument, final BiPredicate<? super T, ? super A> matcher) {
+        for (var node = head.next; node != tail; node = node.next) {
+            if (matcher.test(node.value, argument)) {
+                node.previous.next = node.next;
+                node.next.previous = node.previous;
+                --size;
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the value at the specified index.
      *
@@ -198,12 +239,13 @@ public class LinkedList<T> implements Iterable<T> {
      * @return the optional removed value, it is empty if the index is out of bounds or the list is empty
      */
     public Optional<T> removeAt(int index) {
-        if (isEmpty() || index > size || index < 0) {
+        if (isEmpty() || index >= size || index < 0) {
             return Optional.empty();
         } else {
             var nodeToRemove = nodeAt(index);
             nodeToRemove.previous.next = nodeToRemove.next;
             nodeToRemove.next.previous = nodeToRemove.previous;
+            --size;
             return Optional.of(nodeToRemove.value);
         }
     }
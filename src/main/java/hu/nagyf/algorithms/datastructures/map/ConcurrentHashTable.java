@@ -0,0 +1,535 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * A thread-safe Hash Table implementation.
+ *
+ * Like {@link HashTable}, it handles collisions by chaining, but the chains are made of nodes with volatile links,
+ * so a lookup only reads: it takes no lock and makes no compare-and-set, and never waits for a writer. Writers lock
+ * only the bin they change, using its first node as the lock; an empty bin is filled with a single compare-and-set.
+ * Threads writing different bins never wait for each other.
+ *
+ * When the table holds more than 0.75 items per bin, it doubles its size. The bins are moved to the new table in
+ * small ranges, and every writer that runs into a moved bin joins the resize and moves a range as well, so
+ * a large table is resized by all the threads that use it. A moved bin is marked with a forwarding node, which sends
+ * the lookups to the new table, so the items stay reachable during the whole resize.
+ *
+ * {@link #putIfAbsent} and {@link #compute} are atomic: no other writer can change the bin of the key while they run.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ConcurrentHashTable<K, V> implements SymbolTable<K, V> {
+    /**
+     * The hash of the forwarding nodes. The hashes of the keys are never negative.
+     */
+    private static final int MOVED = -1;
+
+    /**
+     * The hash of the placeholder nodes that lock an empty bin while {@link #compute} runs.
+     */
+    private static final int RESERVED = -2;
+
+    private static final int DEFAULT_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The largest power of two bin count; beyond it the chains grow longer instead of the table being resized.
+     */
+    private static final int MAXIMUM_SIZE = 1 << 30;
+
+    /**
+     * The number of bins a thread claims at a time during a resize.
+     */
+    private static final int TRANSFER_STRIDE = 16;
+
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+
+    /**
+     * The resize in progress, or null.
+     */
+    private volatile Resize<K, V> resize;
+    private volatile int threshold;
+    private final LongAdder count;
+    private final HashStrategy<? super K> hashStrategy;
+
+    /**
+     * Initializes an empty hash table with 16 bins.
+     */
+    public ConcurrentHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Initializes an empty hash table with the specified number of bins, rounded up to a power of two.
+     *
+     * @param tableSize the initial number of bins, must be greater than 0
+     */
+    public ConcurrentHashTable(final int tableSize) {
+        this(tableSize, HashStrategy.spreading());
+    }
+
+    /**
+     * Initializes an empty hash table with the specified number of bins, rounded up to a power of two, and a hashing
+     * strategy, e.g. {@link HashStrategy#seeded} for keys that come from untrusted sources.
+     *
+     * @param tableSize the initial number of bins, must be greater than 0, at most 2^30 are used
+     * @param hashStrategy computes the hashes of the keys
+     */
+    public ConcurrentHashTable(final int tableSize, final HashStrategy<? super K> hashStrategy) {
+        if (tableSize <= 0) {
+            throw new IllegalArgumentException("The size of the hash table must be greater than 0");
+        }
+
+        var size = Integer.highestOneBit(Math.min(Math.max(tableSize, 2), MAXIMUM_SIZE) - 1) << 1;
+        table = new AtomicReferenceArray<>(size);
+        threshold = threshold(size);
+        count = new LongAdder();
+        this.hashStrategy = Objects.requireNonNull(hashStrategy);
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        putValue(key, value, false);
+    }
+
+    /**
+     * Puts a new value in the hash table, unless the key already has a value.
+     *
+     * @param key the key, cannot be null
+     * @param value the value
+     * @return the value already stored for the key, or empty if the new value was stored
+     */
+    public Optional<V> putIfAbsent(final K key, final V value) {
+        return putValue(key, value, true);
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var node = find(key);
+        return node == null ? Optional.empty() : Optional.ofNullable(node.value);
+    }
+
+    /**
+     * Returns the value of a key, or a default value if the key is not in the hash table.
+     * Unlike {@link #get}, it allocates nothing.
+     *
+     * @param key the key, cannot be null
+     * @param defaultValue the value to return if the key is not in the hash table
+     * @return the value of the key, or the default value
+     */
+    @Override
+    public V getOrDefault(final K key, final V defaultValue) {
+        var node = find(key);
+        return node == null ? defaultValue : node.value;
+    }
+
+    /**
+     * Checks whether the hash table has a value for the key, without allocating.
+     *
+     * @param key the key, cannot be null
+     * @return true if the key is in the hash table
+     */
+    @Override
+    public boolean containsKey(final K key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public boolean remove(final K key) {
+        var hash = spread(key);
+        var tab = table;
+        while (true) {
+            var index = hash & (tab.length() - 1);
+            var first = tab.get(index);
+            if (first == null) {
+                return false;
+            }
+            if (first.hash == MOVED) {
+                tab = helpResize(tab, (ForwardingNode<K, V>)first);
+                continue;
+            }
+
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+
+                Node<K, V> previous = null;
+                for (var node = first; node != null; previous = node, node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        if (previous == null) {
+                            tab.set(index, node.next);
+                        } else {
+                            previous.next = node.next;
+                        }
+                        count.decrement();
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Computes the new value of a key from its current value, atomically.
+     * The bin of the key is locked while the function runs, so the function should be short, and must not use
+     * this hash table.
+     *
+     * @param key the key, cannot be null
+     * @param remapping computes the new value from the key and its current value, which is null if the key has
+     *                  no value; returning null removes the key
+     * @return the new value, or empty if the key was removed or stays absent
+     */
+    public Optional<V> compute(final K key, final BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (key == null) {
+            throw new IllegalArgumentException("Hashtable key cannot be null");
+        }
+
+        var hash = spread(key);
+        var tab = table;
+        while (true) {
+            var index = hash & (tab.length() - 1);
+            var first = tab.get(index);
+
+            if (first == null) {
+                var reservation = new Node<K, V>(RESERVED, null, null, null);
+                var reserved = false;
+                V value = null;
+                synchronized (reservation) {
+                    if (tab.compareAndSet(index, null, reservation)) {
+                        reserved = true;
+                        try {
+                            value = remapping.apply(key, null);
+                        } finally {
+                            tab.set(index, value == null ? null : new Node<>(hash, key, value, null));
+                        }
+                    }
+                }
+                if (!reserved) {
+                    continue;
+                }
+                if (value == null) {
+                    return Optional.empty();
+                }
+                // Counted outside of the lock, as a resize started by the count locks other bins
+                addCount(tab, 1);
+                return Optional.of(value);
+            }
+
+            if (first.hash == MOVED) {
+                tab = helpResize(tab, (ForwardingNode<K, V>)first);
+                continue;
+            }
+
+            V inserted;
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+
+                Node<K, V> previous = null;
+                for (var node = first; node != null; previous = node, node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        var value = remapping.apply(key, node.value);
+                        if (value != null) {
+                            node.value = value;
+                            return Optional.of(value);
+                        }
+
+                        if (previous == null) {
+                            tab.set(index, node.next);
+                        } else {
+                            previous.next = node.next;
+                        }
+                        count.decrement();
+                        return Optional.empty();
+                    }
+                }
+
+                inserted = remapping.apply(key, null);
+                if (inserted == null) {
+                    return Optional.empty();
+                }
+                previous.next = new Node<>(hash, key, inserted, null);
+            }
+            addCount(tab, 1);
+            return Optional.of(inserted);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int)Math.min(Math.max(count.sum(), 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of bins of the hash table.
+     *
+     * @return the size of the current table
+     */
+    int tableSize() {
+        return table.length();
+    }
+
+    /**
+     * Finds the node of a key without locking, following the forwarding nodes of a resize in progress.
+     */
+    private Node<K, V> find(final K key) {
+        var hash = spread(key);
+        var tab = table;
+        while (true) {
+            var node = tab.get(hash & (tab.length() - 1));
+            if (node == null || node.hash == RESERVED) {
+                return null;
+            }
+            if (node.hash == MOVED) {
+                tab = ((ForwardingNode<K, V>)node).nextTable;
+                continue;
+            }
+
+            for (; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Optional<V> putValue(final K key, final V value, final boolean onlyIfAbsent) {
+        if (key == null) {
+            throw new IllegalArgumentException("Hashtable key cannot be null");
+        }
+
+        var hash = spread(key);
+        var tab = table;
+        while (true) {
+            var index = hash & (tab.length() - 1);
+            var first = tab.get(index);
+
+            if (first == null) {
+                if (tab.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+                    addCount(tab, 1);
+                    return Optional.empty();
+                }
+                continue;
+            }
+
+            if (first.hash == MOVED) {
+                tab = helpResize(tab, (ForwardingNode<K, V>)first);
+                continue;
+            }
+
+            synchronized (first) {
+                if (tab.get(index) != first) {
+                    continue;
+                }
+
+                var node = first;
+                while (true) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        var existing = node.value;
+                        if (!onlyIfAbsent) {
+                            node.value = value;
+                        }
+                        return Optional.ofNullable(existing);
+                    }
+                    if (node.next == null) {
+                        break;
+                    }
+                    node = node.next;
+                }
+
+                // The new node is complete before it is linked, so a concurrent lookup sees it fully or not at all
+                node.next = new Node<>(hash, key, value, null);
+            }
+            addCount(tab, 1);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Counts a new item, and starts or joins a resize if the table is over its load factor.
+     */
+    private void addCount(final AtomicReferenceArray<Node<K, V>> tab, final int delta) {
+        count.add(delta);
+        if (count.sum() <= threshold || tab != table || tab.length() >= MAXIMUM_SIZE) {
+            return;
+        }
+
+        var current = resize;
+        if (current == null) {
+            synchronized (this) {
+                current = resize;
+                if (current == null && tab == table) {
+                    current = new Resize<>(tab, new AtomicReferenceArray<>(tab.length() << 1));
+                    resize = current;
+                }
+            }
+        }
+        if (current != null && current.oldTable == tab) {
+            transfer(current);
+        }
+    }
+
+    /**
+     * Returns the number of items above which a table of the given size is resized; a table of the maximum size is
+     * never resized.
+     */
+    private static int threshold(final int size) {
+        return size >= MAXIMUM_SIZE ? Integer.MAX_VALUE : (int)(size * LOAD_FACTOR);
+    }
+
+    /**
+     * Joins the resize that moved a bin, then returns the table the bin was moved to.
+     */
+    private AtomicReferenceArray<Node<K, V>> helpResize(final AtomicReferenceArray<Node<K, V>> tab,
+            final ForwardingNode<K, V> forwarding) {
+        var current = resize;
+        if (current != null && current.oldTable == tab) {
+            transfer(current);
+        }
+        return forwarding.nextTable;
+    }
+
+    /**
+     * Moves ranges of bins to the new table until no range is left to claim.
+     * The thread that moves the last bin installs the new table.
+     */
+    private void transfer(final Resize<K, V> current) {
+        while (true) {
+            var end = current.transferIndex.getAndAdd(-TRANSFER_STRIDE);
+            if (end <= 0) {
+                return;
+            }
+
+            var start = Math.max(0, end - TRANSFER_STRIDE);
+            for (int i = end - 1; i >= start; --i) {
+                moveBin(current, i);
+            }
+
+            if (current.remainingBins.addAndGet(start - end) == 0) {
+                table = current.newTable;
+                threshold = threshold(current.newTable.length());
+                resize = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Splits a bin of the old table into two bins of the new table, and leaves a forwarding node behind.
+     * The nodes are copied, so the lookups still walking the old chain are not disturbed.
+     */
+    private void moveBin(final Resize<K, V> current, final int index) {
+        var oldTable = current.oldTable;
+        var newTable = current.newTable;
+        var oldSize = oldTable.length();
+
+        while (true) {
+            var first = oldTable.get(index);
+            if (first == null) {
+                if (oldTable.compareAndSet(index, null, current.forwarding)) {
+                    return;
+                }
+                continue;
+            }
+
+            synchronized (first) {
+                if (oldTable.get(index) != first) {
+                    continue;
+                }
+
+                Node<K, V> low = null;
+                Node<K, V> high = null;
+                for (var node = first; node != null; node = node.next) {
+                    if ((node.hash & oldSize) == 0) {
+                        low = new Node<>(node.hash, node.key, node.value, low);
+                    } else {
+                        high = new Node<>(node.hash, node.key, node.value, high);
+                    }
+                }
+                newTable.set(index, low);
+                newTable.set(index + oldSize, high);
+                oldTable.set(index, current.forwarding);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hashes the key with the strategy of the table, and clears the sign bit, which marks the special nodes.
+     */
+    private int spread(final K key) {
+        return hashStrategy.hash(key) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * A node of a chain. The value and the link are volatile, so a lookup sees every completed write.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(final int hash, final K key, final V value, final Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Marks a bin that was moved to the next table.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static class ForwardingNode<K, V> extends Node<K, V> {
+        final AtomicReferenceArray<Node<K, V>> nextTable;
+
+        ForwardingNode(final AtomicReferenceArray<Node<K, V>> nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    /**
+     * The state of a resize, shared by the threads that take part in it.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of the value
+     */
+    private static class Resize<K, V> {
+        final AtomicReferenceArray<Node<K, V>> oldTable;
+        final AtomicReferenceArray<Node<K, V>> newTable;
+        final ForwardingNode<K, V> forwarding;
+
+        /**
+         * The bins below this index are not claimed yet, the ranges are claimed from the end of the table.
+         */
+        final AtomicInteger transferIndex;
+        final AtomicInteger remainingBins;
+
+        Resize(final AtomicReferenceArray<Node<K, V>> oldTable, final AtomicReferenceArray<Node<K, V>> newTable) {
+            this.oldTable = oldTable;
+            this.newTable = newTable;
+            this.forwarding = new ForwardingNode<>(newTable);
+            this.transferIndex = new AtomicInteger(oldTable.length());
+            this.remainingBins = new AtomicInteger(oldTable.length());
+        }
+    }
+}
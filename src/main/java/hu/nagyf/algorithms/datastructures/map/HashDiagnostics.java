@@ -0,0 +1,117 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of how evenly the keys are spread over the buckets of a hash table.
+ *
+ * The distribution is measured in lookup lengths: the number of keys a successful lookup of a key compares, i.e. the
+ * position of the key in its chain for {@link HashTable}, and its probe distance plus one for
+ * {@link RobinHoodHashTable}. With well distributed hashes the average stays close to 1 + load factor / 2 and the
+ * longest lookup stays short; a long tail means that many keys share their hashes, e.g. because of a poor
+ * {@link Object#hashCode} implementation.
+ */
+public final class HashDiagnostics {
+    private final int capacity;
+    private final int size;
+
+    /**
+     * The number of keys by their lookup length, the element at index n counts the keys found with n comparisons.
+     */
+    private final long[] lookupLengths;
+
+    HashDiagnostics(final int capacity, final int size, final long[] lookupLengths) {
+        this.capacity = capacity;
+        this.size = size;
+        this.lookupLengths = lookupLengths;
+    }
+
+    /**
+     * Returns the number of buckets or slots of the table.
+     *
+     * @return the capacity of the table
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of keys per bucket or slot.
+     *
+     * @return the size divided by the capacity
+     */
+    public double loadFactor() {
+        return (double)size / capacity;
+    }
+
+    /**
+     * Returns the number of keys a lookup finds after exactly the given number of comparisons.
+     *
+     * @param length the number of comparisons, at least 1
+     * @return the number of keys
+     */
+    public long count(final int length) {
+        return length < lookupLengths.length ? lookupLengths[length] : 0;
+    }
+
+    /**
+     * Returns the largest number of comparisons a successful lookup needs.
+     *
+     * @return the longest lookup length, 0 for an empty table
+     */
+    public int maxLookupLength() {
+        return lookupLengths.length - 1;
+    }
+
+    /**
+     * Returns the average number of comparisons of a successful lookup over all keys.
+     *
+     * @return the average lookup length, 0 for an empty table
+     */
+    public double averageLookupLength() {
+        var total = 0L;
+        for (int length = 1; length < lookupLengths.length; ++length) {
+            total += length * lookupLengths[length];
+        }
+        return size == 0 ? 0 : (double)total / size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HashDiagnostics{capacity=%d, size=%d, average=%.2f, max=%d, lookupLengths=%s}",
+                capacity, size, averageLookupLength(), maxLookupLength(),
+                Arrays.toString(Arrays.copyOfRange(lookupLengths, 1, lookupLengths.length)));
+    }
+
+    /**
+     * Counts the lookup lengths of the keys of a table.
+     */
+    static class Builder {
+        private long[] lookupLengths = new long[8];
+        private int maxLength;
+
+        /**
+         * Counts a key found with the given number of comparisons.
+         */
+        void add(final int length) {
+            if (length >= lookupLengths.length) {
+                lookupLengths = Arrays.copyOf(lookupLengths, Math.max(length + 1, lookupLengths.length * 2));
+            }
+            ++lookupLengths[length];
+            maxLength = Math.max(maxLength, length);
+        }
+
+        HashDiagnostics build(final int capacity, final int size) {
+            return new HashDiagnostics(capacity, size, Arrays.copyOf(lookupLengths, maxLength + 1));
+        }
+    }
+}
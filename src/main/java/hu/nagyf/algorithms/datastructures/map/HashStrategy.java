@@ -0,0 +1,77 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+/**
+ * Computes the hashes of the keys of a {@link HashTable}, {@link RobinHoodHashTable} or {@link ConcurrentHashTable}.
+ *
+ * The table selects the bucket of a key from the lowest bits of its hash, so a strategy should spread the bits of
+ * the hash code of the key over the whole int. Two keys with equal hash codes always get equal hashes, so no strategy
+ * helps against keys whose {@link Object#hashCode} itself collides; {@link HashDiagnostics} shows when that happens.
+ *
+ * @param <K> the type of the keys
+ */
+@FunctionalInterface
+public interface HashStrategy<K> {
+
+    /**
+     * Returns the hash of a key.
+     *
+     * @param key the key, never null
+     * @return the hash, any int value
+     */
+    int hash(K key);
+
+    /**
+     * Returns the default strategy: the hash code multiplied by the golden ratio, with the upper half folded onto the
+     * lower half, so hash codes that differ only in the upper bits, or form an arithmetic sequence, land in different
+     * buckets of a power of two table.
+     *
+     * @param <K> the type of the keys
+     * @return the spreading strategy
+     */
+    static <K> HashStrategy<K> spreading() {
+        return key -> spread(key.hashCode());
+    }
+
+    /**
+     * Spreads the bits of a hash code the same way as {@link #spreading()}, for the callers that hash something
+     * other than a key object, e.g. a primitive key or the serialized form of a key.
+     *
+     * @param hashCode the hash code to spread
+     * @return the spread hash
+     */
+    static int spread(final int hashCode) {
+        var hash = hashCode * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns a strategy that mixes a seed into every hash, with the finalizer of MurmurHash3. Tables with different
+     * seeds place the same keys into different buckets, so a set of keys crafted to collide in one process does not
+     * collide in another one that was started with a random seed.
+     *
+     * @param seed the seed, e.g. a random number chosen at startup
+     * @param <K> the type of the keys
+     * @return the seeded strategy
+     */
+    static <K> HashStrategy<K> seeded(final int seed) {
+        return key -> {
+            var hash = key.hashCode() ^ seed;
+            hash ^= hash >>> 16;
+            hash *= 0x85EBCA6B;
+            hash ^= hash >>> 13;
+            hash *= 0xC2B2AE35;
+            return hash ^ (hash >>> 16);
+        };
+    }
+
+    /**
+     * Returns the strategy that uses the hash code of the key as it is. Only suitable for keys whose hash codes
+     * already vary in their lowest bits.
+     *
+     * @param <K> the type of the keys
+     * @return the identity strategy
+     */
+    static <K> HashStrategy<K> identity() {
+        return Object::hashCode;
+    }
+}
@@ -1,7 +1,17 @@
 package hu.nagyf.algorithms.datastructures.map;
 
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import hu.nagyf.algorithms.datastructures.Array;
 import hu.nagyf.algorithms.datastructures.LinkedList;
@@ -10,15 +20,49 @@ import hu.nagyf.algorithms.datastructures.LinkedList;
  * A Hash Table implementation, i.e. a key-value store.
  * This implementation uses an {@link Array} as the hash table, and handles collisions with {@link LinkedList}s.
  *
+ * The table keeps track of the number of stored items, and doubles its size when the number of items per bucket
+ * exceeds the load factor, so the linked lists stay short and a lookup takes O(1) time at any size. It can also
+ * halve its size when most of its items were removed. The items are not moved to the new table all at once:
+ * every later operation moves a few buckets, so resizing a large table never stalls a single put.
+ *
+ * The number of buckets is always a power of two, and the bucket of a key is selected by the lowest bits of its hash.
+ * The hashes are computed by a {@link HashStrategy}, which spreads the bits of the hash codes by default, so keys whose
+ * hash codes differ only in their upper bits do not pile up in the same bucket. {@link #diagnostics()} reports the
+ * distribution of the chain lengths, which reveals keys with colliding hash codes.
+ *
+ * The contents can be iterated and streamed through the {@link #entries()}, {@link #keys()} and {@link #values()}
+ * views. Their spliterators split the table into ranges of buckets and know the exact number of items in every range,
+ * so parallel streams divide the work evenly without copying the items first.
+ *
  * @param <K> the type of the keys
  * @param <V> the type of the values
  */
-public class HashTable<K, V> {
+public class HashTable<K, V> implements SymbolTable<K, V> {
     /**
      * The default size of the hash table.
      */
     private static final int DEFAULT_SIZE = 128;
 
+    /**
+     * The default maximum number of items per bucket before the table grows.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The number of buckets moved from the old table to the new one by every operation during a resize.
+     */
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * The largest power of two table size.
+     */
+    private static final int MAXIMUM_SIZE = 1 << 30;
+
+    /**
+     * The number of items is counted per block of 2^BLOCK_SHIFT buckets, the spliterators split on block boundaries.
+     */
+    private static final int BLOCK_SHIFT = 6;
+
     /**
      * An array of linked lists. Each linked list will store those values for which the hash is the same.
      * Looking up a value requires 3 steps:
@@ -35,24 +79,97 @@ public class HashTable<K, V> {
      */
     private int tableSize;
 
+    /**
+     * The previous table during a resize, null otherwise. Its buckets are moved to {@link #table} one by one,
+     * a moved bucket is set to null.
+     */
+    private Array<LinkedList<Item<K, V>>> oldTable;
+    private int oldTableSize;
+
+    /**
+     * The buckets of the old table below this index were already moved to the new table.
+     */
+    private int rehashIndex;
+
+    /**
+     * The number of items in each block of buckets of {@link #table}, so the size of a range of buckets can be
+     * computed without visiting the buckets.
+     */
+    private int[] blockCounts;
+
+    private final float loadFactor;
+    private final boolean shrink;
+    private final HashStrategy<? super K> hashStrategy;
+
+    /**
+     * The table never shrinks below its initial size.
+     */
+    private final int minimumTableSize;
+
+    /**
+     * The number of items stored in the hash table.
+     */
+    private int size;
+
     /**
      * Initializes the hash table with the specified size.
      * This does not mean that only tableSize number of items can be stored in the hash table.
      * The number of items can be stored has no limit. This number specifies only the number of unique hashes to be stored.
      * Smaller number means lower memory consumption but higher chance for hash collisions.
      * Bigger number means higher memory consumption but lower chance for hash collisions.
+     * The table grows when it holds more than 0.75 items per bucket, and never shrinks.
      *
-     * @param tableSize the size of the hash table
+     * @param tableSize the initial size of the hash table, rounded up to a power of two
      */
     public HashTable(final int tableSize) {
-        this.table = new Array<>(tableSize);
-        this.tableSize = tableSize;
+        this(tableSize, DEFAULT_LOAD_FACTOR, false);
     }
 
     public HashTable() {
         this(DEFAULT_SIZE);
     }
 
+    /**
+     * Initializes the hash table with the specified size and load factor.
+     *
+     * @param tableSize the initial size of the hash table, must be greater than 0, rounded up to a power of two
+     * @param loadFactor the number of items per bucket above which the table doubles its size, must be greater than 0
+     * @param shrink whether the table halves its size when it holds less than a quarter of the load factor per
+     *               bucket; it never shrinks below the initial size
+     */
+    public HashTable(final int tableSize, final float loadFactor, final boolean shrink) {
+        this(tableSize, loadFactor, shrink, HashStrategy.spreading());
+    }
+
+    /**
+     * Initializes the hash table with the specified size, load factor and hashing strategy,
+     * e.g. {@link HashStrategy#seeded} for keys that come from untrusted sources.
+     *
+     * @param tableSize the initial size of the hash table, must be greater than 0, rounded up to a power of two
+     * @param loadFactor the number of items per bucket above which the table doubles its size, must be greater than 0
+     * @param shrink whether the table halves its size when it holds less than a quarter of the load factor per
+     *               bucket; it never shrinks below the initial size
+     * @param hashStrategy computes the hashes of the keys
+     */
+    public HashTable(final int tableSize, final float loadFactor, final boolean shrink,
+            final HashStrategy<? super K> hashStrategy) {
+        if (tableSize <= 0) {
+            throw new IllegalArgumentException("The size of the hash table must be greater than 0");
+        }
+        if (!(loadFactor > 0)) {
+            throw new IllegalArgumentException("The load factor must be greater than 0");
+        }
+
+        var size = tableSize >= MAXIMUM_SIZE ? MAXIMUM_SIZE : Integer.highestOneBit(Math.max(tableSize, 2) - 1) << 1;
+        this.table = new Array<>(size);
+        this.tableSize = size;
+        this.blockCounts = new int[blockCount(size)];
+        this.loadFactor = loadFactor;
+        this.shrink = shrink;
+        this.hashStrategy = Objects.requireNonNull(hashStrategy);
+        this.minimumTableSize = size;
+    }
+
     /**
      * Puts a new value in the hash table.
      * Overwrites any existing values for the same key.
@@ -60,20 +177,32 @@ public class HashTable<K, V> {
      * @param key the key, cannot be null
      * @param value the value
      */
+    @Override
     public void put(final K key, final V value) {
         if (key == null) {
             throw new IllegalArgumentException("Hashtable key cannot be null");
         }
 
-        final var hash = hash(key);
-        final var item = new Item<>(key, value);
-        if (table.get(hash) == null) {
-            table.set(hash, new LinkedList<>());
+        var hash = hash(key);
+        var list = bucket(hash);
+        var index = index(hash, tableSize);
+        if (list == null) {
+            list = new LinkedList<>();
+            table.set(index, list);
+        }
+
+        var existing = list.findFirst(key, HashTable::hasKey);
+        if (existing != null) {
+            existing.value = value;
+            return;
         }
 
-        var list = table.get(hash);
-        list.findFirstIndex(i -> i.key.equals(key)).ifPresent(list::removeAt);
-        list.append(item);
+        list.append(new Item<>(key, value));
+        ++blockCounts[index >>> BLOCK_SHIFT];
+        ++size;
+        if (oldTable == null && size > loadFactor * tableSize && tableSize < MAXIMUM_SIZE) {
+            resize(tableSize * 2);
+        }
     }
 
     /**
@@ -82,46 +211,414 @@ public class HashTable<K, V> {
      * @param key the key, cannot be null
      * @return the optional value, or empty if it cannot be found in the map
      */
+    @Override
     public Optional<V> get(final K key) {
-        var hash = hash(key);
-        if (table.get(hash) == null || table.get(hash).isEmpty()) {
-            return Optional.empty();
-        }
+        var item = find(key);
+        return item == null ? Optional.empty() : Optional.ofNullable(item.value);
+    }
 
-        return table.get(hash).stream()
-                .filter((item) -> item.key.equals(key))
-                .findFirst()
-                .map((item) -> item.value);
+    /**
+     * Returns the value of a key, or a default value if the key is not in the hash table.
+     * Unlike {@link #get}, it allocates nothing, unless it moves buckets during a resize.
+     *
+     * @param key the key, cannot be null
+     * @param defaultValue the value to return if the key is not in the hash table
+     * @return the value of the key, or the default value
+     */
+    @Override
+    public V getOrDefault(final K key, final V defaultValue) {
+        var item = find(key);
+        return item == null ? defaultValue : item.value;
+    }
+
+    /**
+     * Checks whether the hash table has a value for the key, without allocating.
+     *
+     * @param key the key, cannot be null
+     * @return true if the key is in the hash table
+     */
+    @Override
+    public boolean containsKey(final K key) {
+        return find(key) != null;
     }
 
     /**
      * Removes the specified key and the corresponding value from the hash table.
+     * The item is unlinked from its bucket in a single pass, without allocating.
      *
      * @param key the key to remove
+     * @return true if the key was in the hash table
      */
-    public void remove(final K key) {
+    @Override
+    public boolean remove(final K key) {
         var hash = hash(key);
+        var list = bucket(hash);
+        if (list == null || !list.removeFirst(key, HashTable::hasKey)) {
+            return false;
+        }
+
+        --blockCounts[index(hash, tableSize) >>> BLOCK_SHIFT];
+        --size;
+        if (shrink && oldTable == null && tableSize > minimumTableSize && size < loadFactor * tableSize / 4) {
+            resize(Math.max(tableSize / 2, minimumTableSize));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of items stored in the hash table.
+     *
+     * @return the number of keys
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the hash table is empty.
+     *
+     * @return true if it stores no items
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
 
-        if (table.get(hash) == null || table.get(hash).isEmpty()) {
+    /**
+     * Grows the table at once, so the expected number of items can be stored without any further resizing,
+     * e.g. before inserting a lot of items in bulk.
+     *
+     * @param expectedSize the number of items the table will store
+     */
+    public void ensureCapacity(final int expectedSize) {
+        var requiredSize = (long)Math.ceil(expectedSize / (double)loadFactor);
+        if (requiredSize <= tableSize) {
             return;
         }
 
-        final LinkedList<Item<K, V>> result = table.get(hash).stream()
-                .filter(item -> item.key != key)
-                .collect(LinkedList.collector());
+        var newSize = (long)tableSize;
+        while (newSize < requiredSize) {
+            newSize <<= 1;
+        }
+
+        finishRehash();
+        resize((int)Math.min(newSize, MAXIMUM_SIZE));
+        finishRehash();
+    }
+
+    /**
+     * Returns a view of the items of the hash table. The view reflects the changes of the table, but it cannot
+     * change the table, and the table must not be changed while the view is iterated or streamed.
+     * Starting an iteration finishes a resize in progress.
+     *
+     * @return the key-value pairs, in no particular order
+     */
+    public Collection<Map.Entry<K, V>> entries() {
+        return new View<>(item -> new AbstractMap.SimpleImmutableEntry<>(item.key, item.value),
+                Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a view of the keys of the hash table, see {@link #entries()}.
+     *
+     * @return the keys, in no particular order
+     */
+    public Collection<K> keys() {
+        return new View<>(item -> item.key, Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a view of the values of the hash table, see {@link #entries()}.
+     *
+     * @return the values, in no particular order
+     */
+    public Collection<V> values() {
+        return new View<>(item -> item.value, 0);
+    }
+
+    /**
+     * Calls the action with every key and value, without allocating an entry for each of them.
+     * Finishes a resize in progress first.
+     */
+    void forEachItem(final BiConsumer<? super K, ? super V> action) {
+        finishRehash();
+        for (int i = 0; i < tableSize; ++i) {
+            var list = table.get(i);
+            if (list != null) {
+                for (var item : list) {
+                    action.accept(item.key, item.value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures the lengths of the chains, i.e. the number of keys a lookup of each key compares.
+     * Finishes a resize in progress first, so the report describes the whole current table.
+     * Takes O(n) time.
+     *
+     * @return the distribution of the lookup lengths
+     */
+    public HashDiagnostics diagnostics() {
+        finishRehash();
+
+        var builder = new HashDiagnostics.Builder();
+        for (int i = 0; i < tableSize; ++i) {
+            var list = table.get(i);
+            if (list == null) {
+                continue;
+            }
 
-        table.set(hash, result);
+            var position = 0;
+            for (var ignored : list) {
+                builder.add(++position);
+            }
+        }
+        return builder.build(tableSize, size);
     }
 
     /**
-     * Returns the hash for the key.
-     * The implementation uses the {@link #hashCode()} method and restricts the returned value to the size of the hash table.
+     * Returns the hash for the key, computed by the hashing strategy of the table.
+     * The bucket of the key is selected by the lowest bits of the hash.
      *
      * @param key the key to hash
      * @return the hash
      */
     int hash(final K key) {
-        return key.hashCode() % tableSize;
+        return hashStrategy.hash(key);
+    }
+
+    /**
+     * Returns the number of buckets of the hash table.
+     *
+     * @return the size of the table the new items are stored in
+     */
+    int tableSize() {
+        return tableSize;
+    }
+
+    /**
+     * Checks whether the hash table is moving its items to a resized table.
+     *
+     * @return true if a resize is in progress
+     */
+    boolean isRehashing() {
+        return oldTable != null;
+    }
+
+    /**
+     * Returns the bucket of the key in the current table, or null if the bucket has no list yet.
+     * During a resize the bucket of the key is moved to the new table first, together with a few other buckets.
+     */
+    private LinkedList<Item<K, V>> bucket(final int hash) {
+        if (oldTable != null) {
+            migrate(index(hash, oldTableSize));
+            rehashStep();
+        }
+        return table.get(index(hash, tableSize));
+    }
+
+    /**
+     * Returns the item of the key, or null if the key is not in the table.
+     */
+    private Item<K, V> find(final K key) {
+        var list = bucket(hash(key));
+        return list == null ? null : list.findFirst(key, HashTable::hasKey);
+    }
+
+    /**
+     * Matches the items by their keys. A method reference to it captures nothing, so it is not allocated per call.
+     */
+    private static boolean hasKey(final Item<?, ?> item, final Object key) {
+        return item.key.equals(key);
+    }
+
+    /**
+     * Starts moving the items to a new table of the given size.
+     */
+    private void resize(final int newSize) {
+        oldTable = table;
+        oldTableSize = tableSize;
+        rehashIndex = 0;
+        table = new Array<>(newSize);
+        tableSize = newSize;
+        blockCounts = new int[blockCount(newSize)];
+    }
+
+    private void rehashStep() {
+        for (int i = 0; i < REHASH_STEP && rehashIndex < oldTableSize; ++i) {
+            migrate(rehashIndex++);
+        }
+        if (rehashIndex == oldTableSize) {
+            oldTable = null;
+        }
+    }
+
+    private void finishRehash() {
+        while (oldTable != null) {
+            rehashStep();
+        }
+    }
+
+    /**
+     * Moves the items of a bucket of the old table to the new table.
+     */
+    private void migrate(final int oldIndex) {
+        var list = oldTable.get(oldIndex);
+        if (list == null) {
+            return;
+        }
+
+        for (var item : list) {
+            var index = index(hash(item.key), tableSize);
+            var target = table.get(index);
+            if (target == null) {
+                target = new LinkedList<>();
+                table.set(index, target);
+            }
+            target.append(item);
+            ++blockCounts[index >>> BLOCK_SHIFT];
+        }
+        oldTable.set(oldIndex, null);
+    }
+
+    private static int blockCount(final int tableSize) {
+        return ((tableSize - 1) >>> BLOCK_SHIFT) + 1;
+    }
+
+    /**
+     * Restricts a hash to the size of a power of two table. Negative hashes are mapped to valid indexes as well.
+     */
+    private static int index(final int hash, final int tableSize) {
+        return hash & (tableSize - 1);
+    }
+
+    /**
+     * A read-only collection of the items of the table, converted by a mapper.
+     *
+     * @param <T> the type of the elements
+     */
+    private class View<T> extends AbstractCollection<T> {
+        private final Function<Item<K, V>, T> mapper;
+        private final int characteristics;
+
+        View(final Function<Item<K, V>, T> mapper, final int characteristics) {
+            this.mapper = mapper;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+
+        @Override
+        public Spliterator<T> spliterator() {
+            finishRehash();
+            return new BucketSpliterator<>(0, tableSize, size, mapper, characteristics);
+        }
+    }
+
+    /**
+     * Iterates the items of a range of buckets. Splits off the second half of its remaining blocks, and computes the
+     * size of the half from the block counts.
+     *
+     * @param <T> the type of the elements
+     */
+    private class BucketSpliterator<T> implements Spliterator<T> {
+        private final Function<Item<K, V>, T> mapper;
+        private final int characteristics;
+
+        /**
+         * The next bucket to iterate.
+         */
+        private int index;
+        private int end;
+        private long remaining;
+
+        /**
+         * The items left in the bucket before the next bucket, or null.
+         */
+        private Iterator<Item<K, V>> current;
+
+        BucketSpliterator(final int index, final int end, final long remaining, final Function<Item<K, V>, T> mapper,
+                final int characteristics) {
+            this.index = index;
+            this.end = end;
+            this.remaining = remaining;
+            this.mapper = mapper;
+            this.characteristics = characteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            while (current == null || !current.hasNext()) {
+                if (index >= end) {
+                    return false;
+                }
+                var list = table.get(index++);
+                current = list == null ? null : list.iterator();
+            }
+
+            --remaining;
+            action.accept(mapper.apply(current.next()));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super T> action) {
+            while (current != null && current.hasNext()) {
+                action.accept(mapper.apply(current.next()));
+            }
+            current = null;
+
+            for (; index < end; ++index) {
+                var list = table.get(index);
+                if (list != null) {
+                    for (var item : list) {
+                        action.accept(mapper.apply(item));
+                    }
+                }
+            }
+            remaining = 0;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            var firstBlock = (index + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT;
+            var endBlock = end >>> BLOCK_SHIFT;
+            if (endBlock - firstBlock < 2) {
+                return null;
+            }
+
+            var middleBlock = (firstBlock + endBlock) >>> 1;
+            var secondHalf = 0L;
+            for (int block = middleBlock; block < endBlock; ++block) {
+                secondHalf += blockCounts[block];
+            }
+
+            var split = new BucketSpliterator<>(middleBlock << BLOCK_SHIFT, end, secondHalf, mapper,
+                    characteristics);
+            end = middleBlock << BLOCK_SHIFT;
+            remaining -= secondHalf;
+            return split;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
     }
 
     /**
@@ -0,0 +1,170 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import hu.nagyf.algorithms.serialization.ChannelReader;
+import hu.nagyf.algorithms.serialization.ChannelWriter;
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * Writes the contents of a {@link HashTable} to a channel in a compact binary form and reads them back, e.g. to move
+ * a table to another process through a file or a socket.
+ *
+ * The binary form is a header with a magic number and the number of items, followed by the items, each one as
+ * {@code [int key length][int value length][key][value]}. The keys and the values are converted by pluggable
+ * {@link Serializer}s. Both directions stream through a buffer, so they need no more memory than the table itself,
+ * and large sequential reads and writes keep the channel busy.
+ *
+ * Reading sizes the table for the number of items in the header before the first item is inserted, so the table
+ * never resizes or rehashes while loading. The count in the header is not trusted for sizing beyond what the channel
+ * can hold: a file is only sized for as many items as its length allows, other channels up to a fixed limit.
+ */
+public final class HashTableCodec {
+    /**
+     * "HTBL" in ASCII, marks the start of a serialized hash table.
+     */
+    private static final int MAGIC = 0x4854424C;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The largest number of items the table is sized for up front, when the length of the channel is unknown.
+     * The table grows as usual when the data holds more items.
+     */
+    private static final int MAXIMUM_PRESIZE = 1 << 20;
+
+    private HashTableCodec() {
+    }
+
+    /**
+     * Writes the items of the table to the channel. The channel is not closed.
+     *
+     * @param table the table to write
+     * @param channel the channel to write to
+     * @param keySerializer converts the keys to their binary form
+     * @param valueSerializer converts the values to their binary form
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public static <K, V> void write(final HashTable<K, V> table, final WritableByteChannel channel,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        try {
+            var writer = new ChannelWriter(channel);
+            writer.reserve(HEADER_SIZE).putInt(MAGIC).putInt(table.size());
+            table.forEachItem((key, value) -> {
+                var keyLength = keySerializer.serializedSize(key);
+                var valueLength = valueSerializer.serializedSize(value);
+                var buffer = writer.reserve(RECORD_HEADER_SIZE + keyLength + valueLength);
+                buffer.putInt(keyLength).putInt(valueLength);
+                keySerializer.serialize(key, buffer);
+                valueSerializer.serialize(value, buffer);
+            });
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException("Cannot write hash table", e.getCause());
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #write}, into a new table sized for its items. The channel is not closed.
+     *
+     * @param channel the channel to read from
+     * @param keySerializer converts the keys from their binary form
+     * @param valueSerializer converts the values from their binary form
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the new table
+     */
+    public static <K, V> HashTable<K, V> read(final ReadableByteChannel channel, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        var table = new HashTable<K, V>();
+        readInto(table, channel, keySerializer, valueSerializer);
+        return table;
+    }
+
+    /**
+     * Reads a table written by {@link #write}, and puts its items into an existing table, which is grown at once for
+     * the new items first. The channel is not closed.
+     *
+     * @param table the table to put the items into
+     * @param channel the channel to read from
+     * @param keySerializer converts the keys from their binary form
+     * @param valueSerializer converts the values from their binary form
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the number of items read
+     */
+    public static <K, V> int readInto(final HashTable<K, V> table, final ReadableByteChannel channel,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        var maximumCount = maximumCount(channel);
+        var reader = new ChannelReader(channel);
+        var count = readHeader(reader);
+        table.ensureCapacity((int)Math.min((long)table.size() + Math.min(count, maximumCount), Integer.MAX_VALUE));
+        readItems(reader, count, table, keySerializer, valueSerializer);
+        return count;
+    }
+
+    /**
+     * Returns the largest number of items the rest of the channel can hold, each item taking at least a record
+     * header, or {@link #MAXIMUM_PRESIZE} if the length of the channel is unknown.
+     */
+    private static long maximumCount(final ReadableByteChannel channel) {
+        if (!(channel instanceof SeekableByteChannel)) {
+            return MAXIMUM_PRESIZE;
+        }
+
+        try {
+            var seekable = (SeekableByteChannel)channel;
+            return Math.max(seekable.size() - seekable.position() - HEADER_SIZE, 0) / RECORD_HEADER_SIZE;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read hash table", e);
+        }
+    }
+
+    private static int readHeader(final ChannelReader reader) {
+        try {
+            var header = reader.require(HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("The data is not a serialized hash table");
+            }
+
+            var count = header.getInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("The hash table data is corrupted");
+            }
+            return count;
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("The hash table data is truncated", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read hash table", e);
+        }
+    }
+
+    private static <K, V> void readItems(final ChannelReader reader, final int count, final HashTable<K, V> table,
+            final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        try {
+            for (int i = 0; i < count; ++i) {
+                var lengths = reader.require(RECORD_HEADER_SIZE);
+                var keyLength = lengths.getInt();
+                var valueLength = lengths.getInt();
+                var recordLength = (long)keyLength + valueLength;
+                if (keyLength < 0 || valueLength < 0 || recordLength > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("The hash table data is corrupted");
+                }
+
+                var buffer = reader.require((int)recordLength);
+                var key = keySerializer.deserialize(buffer, keyLength);
+                table.put(key, valueSerializer.deserialize(buffer, valueLength));
+            }
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("The hash table data is truncated", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read hash table", e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+/**
+ * A hash map from long keys to object values, without boxing the keys.
+ *
+ * The keys and the values are stored in two parallel arrays with open addressing and linear probing, so an entry
+ * takes 12 bytes per slot with compressed references (about 16 bytes at the average load) besides the value itself,
+ * and neither the lookups nor the updates allocate. The key 0 marks the empty slots; the entry of the key 0 itself is
+ * stored outside of the arrays. Removing a key shifts the following keys of the probe sequence back, so the table
+ * needs no tombstones.
+ *
+ * @param <V> the type of the values
+ */
+public class LongObjectMap<V> {
+    /**
+     * The key of the empty slots.
+     */
+    private static final long EMPTY = 0;
+    private static final int DEFAULT_EXPECTED_SIZE = 12;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int threshold;
+    private int size;
+
+    private boolean hasEmptyKey;
+    private V emptyKeyValue;
+
+    /**
+     * Initializes an empty map that can store 12 entries before it resizes.
+     */
+    public LongObjectMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Initializes an empty map that can store the expected number of entries before it resizes.
+     *
+     * @param expectedSize the expected number of entries, cannot be negative or more than 3 / 4 of 2^30
+     */
+    public LongObjectMap(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("The expected size cannot be negative");
+        }
+        allocate(MapSupport.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    /**
+     * Puts a new value in the map.
+     * Overwrites any existing values for the same key.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(final long key, final V value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                ++size;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+
+        var slot = MapSupport.mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Fails before the key is stored if the map cannot grow any more
+        var capacity = size >= threshold ? MapSupport.grow(keys.length, LOAD_FACTOR) : keys.length;
+        keys[slot] = key;
+        values[slot] = value;
+        ++size;
+        if (capacity != keys.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Returns the value of a key. Unlike {@link HashTable#get}, it does not wrap the value into an Optional.
+     *
+     * @param key the key
+     * @return the value of the key, or null if the key is not in the map
+     */
+    public V get(final long key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @param defaultValue the value to return if the key is not in the map
+     * @return the value of the key, or the default value
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(final long key, final V defaultValue) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : defaultValue;
+        }
+
+        var slot = find(key);
+        return slot < 0 ? defaultValue : (V)values[slot];
+    }
+
+    /**
+     * Checks whether the map has a value for the key.
+     *
+     * @param key the key
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(final long key) {
+        return key == EMPTY ? hasEmptyKey : find(key) >= 0;
+    }
+
+    /**
+     * Removes the specified key and the corresponding value from the map.
+     *
+     * @param key the key to remove
+     * @return true if the key was in the map
+     */
+    public boolean remove(final long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return false;
+            }
+            hasEmptyKey = false;
+            emptyKeyValue = null;
+            --size;
+            return true;
+        }
+
+        var slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        // Move back every following key whose probe sequence passes the freed slot
+        var next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            if (MapSupport.isBetween(MapSupport.mix(keys[next]) & mask, slot, next)) {
+                next = (next + 1) & mask;
+                continue;
+            }
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+        values[slot] = null;
+        --size;
+        return true;
+    }
+
+    /**
+     * Returns the number of entries stored in the map.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if it stores no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(final long key) {
+        var slot = MapSupport.mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(final int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != EMPTY) {
+                var slot = MapSupport.mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        threshold = (int)(capacity * LOAD_FACTOR);
+    }
+}
@@ -0,0 +1,89 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+/**
+ * Helpers shared by the open addressing maps with primitive keys.
+ */
+final class MapSupport {
+
+    /**
+     * The largest power of two number of slots.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private MapSupport() {
+    }
+
+    /**
+     * Spreads the bits of an int key, so keys that differ only in the upper bits, or form an arithmetic sequence,
+     * do not collide in the lower bits used to select the home slot.
+     *
+     * @param key the key
+     * @return the spread hash of the key
+     */
+    static int mix(final int key) {
+        return HashStrategy.spread(key);
+    }
+
+    /**
+     * Spreads the bits of a long key into an int hash.
+     *
+     * @param key the key
+     * @return the spread hash of the key
+     */
+    static int mix(final long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Returns the power of two number of slots that holds the expected number of entries under the load factor.
+     *
+     * @param expectedSize the expected number of entries
+     * @param loadFactor the maximum ratio of the used slots
+     * @return the number of slots, at least 4
+     * @throws IllegalArgumentException if the expected number of entries does not fit in the maximum number of slots
+     */
+    static int capacityFor(final int expectedSize, final float loadFactor) {
+        if (expectedSize > MAXIMUM_CAPACITY * loadFactor) {
+            throw new IllegalArgumentException("The expected size cannot be more than " + maximumSize(loadFactor));
+        }
+
+        var capacity = 4;
+        while (capacity * loadFactor < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the number of slots a map grows to when a new entry takes it over the load factor.
+     *
+     * @param capacity the current number of slots
+     * @param loadFactor the maximum ratio of the used slots
+     * @return the doubled number of slots
+     * @throws IllegalArgumentException if the map already has the maximum number of slots
+     */
+    static int grow(final int capacity, final float loadFactor) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("The map cannot hold more than " + maximumSize(loadFactor) + " entries");
+        }
+        return capacity << 1;
+    }
+
+    private static int maximumSize(final float loadFactor) {
+        return (int)(MAXIMUM_CAPACITY * loadFactor);
+    }
+
+    /**
+     * Checks whether a slot is cyclically after the start slot and not after the end slot. With linear probing,
+     * a key whose home slot is in this range cannot be moved back to the start slot, it would leave its home.
+     *
+     * @param slot the home slot of a key
+     * @param start the exclusive start of the range
+     * @param end the inclusive end of the range
+     * @return true if the slot is in (start, end]
+     */
+    static boolean isBetween(final int slot, final int start, final int end) {
+        return start <= end ? start < slot && slot <= end : start < slot || slot <= end;
+    }
+}
@@ -0,0 +1,648 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import hu.nagyf.algorithms.serialization.Serializer;
+
+/**
+ * A hash map stored in a memory-mapped file, so it survives the process and can be opened again without
+ * rebuilding it.
+ *
+ * The file holds a fixed array of buckets and an append-only log of records. Every bucket holds the file offset of
+ * the newest record of its chain, and every record holds the offset of the previous record of the same bucket, so a
+ * lookup reads the bucket and follows the chain, like {@link HashTable} does with its linked lists. Opening the file
+ * only maps it: the pages are loaded by the OS on the first access and stay in its page cache, so a large index is
+ * ready in milliseconds and is shared by every process that maps it.
+ *
+ * A record is never modified. Putting a key appends a record in front of its chain, which hides the older records of
+ * the key; removing a key appends a tombstone. The keys and the values are either fixed width, or stored with
+ * their lengths, see {@link #VARIABLE_WIDTH}. The keys are hashed by their binary form, so the file does not depend
+ * on the {@link Object#hashCode} of the keys. The number of buckets is fixed when the file is created.
+ *
+ * The changes become durable in batches: {@link #sync()} writes the appended records to the storage device first,
+ * then commits them by writing a new header, and only then links them into the buckets on the disk. Until then the
+ * new chain heads are kept in memory, so the buckets on the disk only ever point to committed records. Opening the
+ * file links the records of the last committed batch again, so a crash at any point, including a power loss, leaves
+ * the index exactly as it was after the last completed sync. The header is written to two slots alternately, each
+ * with a checksum, so a torn header write falls back to the previous commit.
+ *
+ * The index is not thread-safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class MappedHashIndex<K, V> implements SymbolTable<K, V>, AutoCloseable {
+    /**
+     * The width of the keys or the values that are stored with their lengths.
+     */
+    public static final int VARIABLE_WIDTH = -1;
+
+    /**
+     * "PHIX" in ASCII, marks the start of an index file.
+     */
+    private static final int MAGIC = 0x50484958;
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the header, the buckets start after it.
+     */
+    private static final int HEADER_SIZE = 4096;
+
+    /**
+     * The offsets of the two commit slots. A slot holds a sequence number, the end of the previous commit, the end
+     * of the log, the number of keys and the checksum of these.
+     */
+    private static final int[] COMMIT_SLOTS = {64, 128};
+    private static final int COMMIT_SIZE = 4 * Long.BYTES;
+
+    /**
+     * The default size of the mapped regions of the file. A record never crosses the boundary of two regions, so the
+     * region size is stored in the header.
+     */
+    private static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    /**
+     * The last region is only mapped as far as the data needs it, rounded up to a multiple of 64 KB, so a small
+     * index is a small file. When the data outgrows it, the region is mapped again, at least twice as large.
+     */
+    private static final int MAPPING_GRANULARITY = 1 << 16;
+
+    /**
+     * The size of the offset of the previous record and the hash of the key, which start every record.
+     */
+    private static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Set in the offset of the previous record to mark a tombstone.
+     */
+    private static final long TOMBSTONE = Long.MIN_VALUE;
+
+    /**
+     * Fills the end of a region that was too short for the next record.
+     */
+    private static final long PADDING = -1L;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ArrayList<MappedByteBuffer> regions;
+    private final int regionSize;
+
+    /**
+     * The number of bytes mapped by the regions, every region is mapped fully except the last one.
+     */
+    private long mappedLength;
+    private final int bucketCount;
+    private final int keyWidth;
+    private final int valueWidth;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+
+    /**
+     * The chain heads changed since the last sync, by bucket.
+     */
+    private IntObjectMap<Long> pendingHeads;
+
+    /**
+     * Holds the binary form of the key of the current operation.
+     */
+    private ByteBuffer keyBuffer;
+
+    private long sequence;
+    private long committedEnd;
+    private long end;
+    private long size;
+
+    private MappedHashIndex(final Path file, final FileChannel channel, final int regionSize, final int bucketCount,
+            final int keyWidth, final int valueWidth, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        this.file = file;
+        this.channel = channel;
+        this.regions = new ArrayList<>();
+        this.regionSize = regionSize;
+        this.bucketCount = bucketCount;
+        this.keyWidth = keyWidth;
+        this.valueWidth = valueWidth;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.pendingHeads = new IntObjectMap<>();
+        this.keyBuffer = ByteBuffer.allocate(64);
+    }
+
+    /**
+     * Creates a new, empty index file.
+     *
+     * @param file the index file, must not exist
+     * @param expectedSize the expected number of keys, the number of buckets is the next power of two
+     * @param keyWidth the size of every key in bytes, or {@link #VARIABLE_WIDTH}
+     * @param valueWidth the size of every value in bytes, or {@link #VARIABLE_WIDTH}
+     * @param keySerializer converts the keys to and from their binary form
+     * @param valueSerializer converts the values to and from their binary form
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the index, open for reading and writing
+     */
+    public static <K, V> MappedHashIndex<K, V> create(final Path file, final int expectedSize, final int keyWidth,
+            final int valueWidth, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        return create(file, expectedSize, keyWidth, valueWidth, keySerializer, valueSerializer, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Creates a new, empty index file, mapped in regions of the given size.
+     */
+    static <K, V> MappedHashIndex<K, V> create(final Path file, final int expectedSize, final int keyWidth,
+            final int valueWidth, final Serializer<K> keySerializer, final Serializer<V> valueSerializer,
+            final int regionSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("The expected size cannot be negative");
+        }
+        if (keyWidth == 0 || keyWidth < VARIABLE_WIDTH || valueWidth < VARIABLE_WIDTH) {
+            throw new IllegalArgumentException("The width must be positive or VARIABLE_WIDTH");
+        }
+        checkRegionSize(regionSize);
+
+        var bucketCount = MapSupport.capacityFor(Math.min(expectedSize, 1 << 30), 1f);
+        var dataStart = HEADER_SIZE + (long)bucketCount * Long.BYTES;
+        FileChannel channel = null;
+        var created = false;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            var index = new MappedHashIndex<>(file, channel, regionSize, bucketCount, keyWidth, valueWidth,
+                    keySerializer, valueSerializer);
+            index.map(dataStart);
+
+            var header = index.regions.get(0);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, regionSize);
+            header.putInt(12, bucketCount);
+            header.putInt(16, keyWidth);
+            header.putInt(20, valueWidth);
+            index.committedEnd = dataStart;
+            index.end = dataStart;
+            index.writeCommit();
+            index.force();
+            created = true;
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create hash index " + file, e);
+        } finally {
+            if (!created) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Opens an existing index file, at the state of its last sync.
+     *
+     * @param file the index file
+     * @param keySerializer converts the keys to and from their binary form, as the index was created with
+     * @param valueSerializer converts the values to and from their binary form, as the index was created with
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return the index, open for reading and writing
+     */
+    public static <K, V> MappedHashIndex<K, V> open(final Path file, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        FileChannel channel = null;
+        var opened = false;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Reads the whole header, or stops at the end of a shorter file
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IllegalArgumentException(file + " is not a hash index");
+            }
+
+            var regionSize = header.getInt(8);
+            if (regionSize < HEADER_SIZE || regionSize % HEADER_SIZE != 0) {
+                throw new IllegalArgumentException(file + " is corrupted");
+            }
+
+            var index = new MappedHashIndex<>(file, channel, regionSize, header.getInt(12), header.getInt(16),
+                    header.getInt(20), keySerializer, valueSerializer);
+            index.map(channel.size());
+            index.recover();
+            opened = true;
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open hash index " + file, e);
+        } finally {
+            if (!opened) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    /**
+     * Puts a new value in the index, by appending a record. The change is durable after the next {@link #sync()}.
+     *
+     * @param key the key, cannot be null
+     * @param value the value, cannot be null
+     */
+    @Override
+    public void put(final K key, final V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Hashtable key cannot be null");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("The value cannot be null");
+        }
+
+        var valueLength = valueSerializer.serializedSize(value);
+        checkWidth(valueLength, valueWidth);
+        var hash = serializeKey(key);
+        var bucket = hash & (bucketCount - 1);
+        var head = head(bucket);
+        var existing = find(head, hash);
+
+        var offset = append(head, hash, valueLength, value);
+        pendingHeads.put(bucket, offset);
+        if (existing == 0 || isTombstone(existing)) {
+            ++size;
+        }
+    }
+
+    @Override
+    public Optional<V> get(final K key) {
+        var hash = serializeKey(key);
+        var offset = find(head(hash & (bucketCount - 1)), hash);
+        if (offset == 0 || isTombstone(offset)) {
+            return Optional.empty();
+        }
+
+        var buffer = region(offset).duplicate();
+        var position = (int)(offset % regionSize) + RECORD_HEADER_SIZE;
+        var keyLength = keyWidth == VARIABLE_WIDTH ? buffer.getInt(position) : keyWidth;
+        position += keyWidth == VARIABLE_WIDTH ? Integer.BYTES : 0;
+        var valueLength = valueWidth == VARIABLE_WIDTH ? buffer.getInt(position) : valueWidth;
+        position += valueWidth == VARIABLE_WIDTH ? Integer.BYTES : 0;
+        buffer.position(position + keyLength);
+        return Optional.of(valueSerializer.deserialize(buffer, valueLength));
+    }
+
+    /**
+     * Removes a key from the index, by appending a tombstone. The change is durable after the next {@link #sync()}.
+     *
+     * @param key the key to remove
+     * @return true if the key was in the index
+     */
+    @Override
+    public boolean remove(final K key) {
+        var hash = serializeKey(key);
+        var bucket = hash & (bucketCount - 1);
+        var head = head(bucket);
+        var existing = find(head, hash);
+        if (existing == 0 || isTombstone(existing)) {
+            return false;
+        }
+
+        pendingHeads.put(bucket, append(head | TOMBSTONE, hash, 0, null));
+        --size;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return (int)Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Makes the changes since the last sync durable.
+     * Writes the new records to the storage device, commits them, and then links them into the buckets on the disk.
+     */
+    public void sync() {
+        if (end == committedEnd) {
+            return;
+        }
+
+        force();
+        ++sequence;
+        writeCommit();
+        force();
+
+        link(committedEnd, end);
+        force();
+        committedEnd = end;
+        pendingHeads = new IntObjectMap<>();
+    }
+
+    /**
+     * Syncs the changes and closes the file.
+     */
+    @Override
+    public void close() {
+        try {
+            sync();
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Returns the number of buckets of the index.
+     *
+     * @return the number of chains
+     */
+    int bucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Reads the last valid commit, and links its records into the buckets, in case the previous process stopped
+     * before it finished linking them.
+     */
+    private void recover() {
+        var header = regions.get(0);
+        var commitSlot = -1;
+        for (int i = 0; i < COMMIT_SLOTS.length; ++i) {
+            if (header.getLong(COMMIT_SLOTS[i] + COMMIT_SIZE) == checksum(COMMIT_SLOTS[i])
+                    && (commitSlot < 0 || header.getLong(COMMIT_SLOTS[i]) > header.getLong(commitSlot))) {
+                commitSlot = COMMIT_SLOTS[i];
+            }
+        }
+        if (commitSlot < 0) {
+            throw new IllegalArgumentException(file + " is corrupted");
+        }
+
+        sequence = header.getLong(commitSlot);
+        var previousEnd = header.getLong(commitSlot + Long.BYTES);
+        committedEnd = header.getLong(commitSlot + 2 * Long.BYTES);
+        size = header.getLong(commitSlot + 3 * Long.BYTES);
+        end = committedEnd;
+        if (committedEnd > mappedLength) {
+            throw new IllegalArgumentException(file + " is truncated");
+        }
+
+        link(previousEnd, committedEnd);
+        force();
+    }
+
+    /**
+     * Makes the buckets point to the records appended between the two offsets. A record is linked only if its bucket
+     * points to an older record, so linking the same records again changes nothing.
+     */
+    private void link(final long from, final long to) {
+        var offset = from;
+        while (offset < to) {
+            var regionOffset = (int)(offset % regionSize);
+            var buffer = region(offset);
+            if (regionSize - regionOffset < RECORD_HEADER_SIZE || buffer.getLong(regionOffset) == PADDING) {
+                offset += regionSize - regionOffset;
+                continue;
+            }
+
+            var bucketOffset = bucketOffset(buffer.getInt(regionOffset + Long.BYTES) & (bucketCount - 1));
+            var bucketRegion = region(bucketOffset);
+            var bucketPosition = (int)(bucketOffset % regionSize);
+            if (bucketRegion.getLong(bucketPosition) < offset) {
+                bucketRegion.putLong(bucketPosition, offset);
+            }
+            offset += recordSize(buffer, regionOffset);
+        }
+    }
+
+    /**
+     * Returns the newest record of a bucket, or 0 if the bucket is empty.
+     */
+    private long head(final int bucket) {
+        var pending = pendingHeads.get(bucket);
+        if (pending != null) {
+            return pending;
+        }
+
+        var offset = bucketOffset(bucket);
+        return region(offset).getLong((int)(offset % regionSize));
+    }
+
+    /**
+     * Returns the newest record of the key in the key buffer, with the tombstone flag, or 0 if the key has no record.
+     */
+    private long find(final long head, final int hash) {
+        var keyLength = keyBuffer.remaining();
+        var offset = head & ~TOMBSTONE;
+        while (offset != 0) {
+            var buffer = region(offset);
+            var position = (int)(offset % regionSize);
+            var next = buffer.getLong(position);
+            if (buffer.getInt(position + Long.BYTES) == hash) {
+                var keyStart = position + RECORD_HEADER_SIZE;
+                var storedLength = keyLength;
+                if (keyWidth == VARIABLE_WIDTH) {
+                    storedLength = buffer.getInt(keyStart);
+                    keyStart += Integer.BYTES;
+                }
+                if (valueWidth == VARIABLE_WIDTH) {
+                    keyStart += Integer.BYTES;
+                }
+
+                if (storedLength == keyLength
+                        && buffer.duplicate().position(keyStart).limit(keyStart + keyLength).equals(keyBuffer)) {
+                    return next < 0 ? offset | TOMBSTONE : offset;
+                }
+            }
+            offset = next & ~TOMBSTONE;
+        }
+        return 0;
+    }
+
+    /**
+     * Appends a record for the key in the key buffer, and returns its offset.
+     * A null value makes a tombstone, which has no value bytes.
+     */
+    private long append(final long next, final int hash, final int valueLength, final V value) {
+        var keyLength = keyBuffer.remaining();
+        var recordSize = RECORD_HEADER_SIZE + keyLength + valueLength
+                + (keyWidth == VARIABLE_WIDTH ? Integer.BYTES : 0)
+                + (valueWidth == VARIABLE_WIDTH ? Integer.BYTES : 0);
+        if (recordSize > regionSize) {
+            throw new IllegalArgumentException("The record is larger than a region of the file");
+        }
+
+        var regionOffset = (int)(end % regionSize);
+        if (regionOffset + recordSize > regionSize) {
+            if (regionSize - regionOffset >= RECORD_HEADER_SIZE) {
+                map(end + Long.BYTES);
+                region(end).putLong(regionOffset, PADDING);
+            }
+            end += regionSize - regionOffset;
+            regionOffset = 0;
+        }
+        map(end + recordSize);
+
+        var buffer = region(end).duplicate();
+        buffer.position(regionOffset);
+        buffer.putLong(next);
+        buffer.putInt(hash);
+        if (keyWidth == VARIABLE_WIDTH) {
+            buffer.putInt(keyLength);
+        }
+        if (valueWidth == VARIABLE_WIDTH) {
+            buffer.putInt(valueLength);
+        }
+        buffer.put(keyBuffer.duplicate());
+        if (value != null) {
+            valueSerializer.serialize(value, buffer);
+        }
+
+        var offset = end;
+        end += recordSize;
+        return offset;
+    }
+
+    /**
+     * Returns the size of the record at the position of a region.
+     */
+    private int recordSize(final ByteBuffer buffer, final int position) {
+        var tombstone = buffer.getLong(position) < 0;
+        var lengthPosition = position + RECORD_HEADER_SIZE;
+        var recordSize = RECORD_HEADER_SIZE;
+
+        if (keyWidth == VARIABLE_WIDTH) {
+            recordSize += Integer.BYTES + buffer.getInt(lengthPosition);
+            lengthPosition += Integer.BYTES;
+        } else {
+            recordSize += keyWidth;
+        }
+        if (valueWidth == VARIABLE_WIDTH) {
+            recordSize += Integer.BYTES + buffer.getInt(lengthPosition);
+        } else if (!tombstone) {
+            recordSize += valueWidth;
+        }
+        return recordSize;
+    }
+
+    /**
+     * Writes the binary form of the key to the key buffer, and returns its hash.
+     */
+    private int serializeKey(final K key) {
+        var keyLength = keySerializer.serializedSize(key);
+        checkWidth(keyLength, keyWidth);
+        if (keyBuffer.capacity() < keyLength) {
+            keyBuffer = ByteBuffer.allocate(Math.max(keyLength, keyBuffer.capacity() * 2));
+        }
+
+        keyBuffer.clear();
+        keySerializer.serialize(key, keyBuffer);
+        keyBuffer.flip();
+
+        var hash = 1;
+        for (int i = 0; i < keyLength; ++i) {
+            hash = 31 * hash + keyBuffer.get(i);
+        }
+        return HashStrategy.spread(hash);
+    }
+
+    /**
+     * Writes the state of the log to the commit slot of the current sequence number.
+     */
+    private void writeCommit() {
+        var header = regions.get(0);
+        var slot = COMMIT_SLOTS[(int)(sequence % COMMIT_SLOTS.length)];
+        header.putLong(slot, sequence);
+        header.putLong(slot + Long.BYTES, committedEnd);
+        header.putLong(slot + 2 * Long.BYTES, end);
+        header.putLong(slot + 3 * Long.BYTES, size);
+        header.putLong(slot + COMMIT_SIZE, checksum(slot));
+    }
+
+    private long checksum(final int slot) {
+        var crc = new CRC32();
+        crc.update(regions.get(0).duplicate().position(slot).limit(slot + COMMIT_SIZE));
+        return crc.getValue();
+    }
+
+    /**
+     * Maps the regions of the file up to the given length, growing the file if needed. A partially mapped last region
+     * is mapped again with the new size, after its changes were written to the file through the old mapping.
+     */
+    private void map(final long length) {
+        try {
+            while (mappedLength < length) {
+                var regionIndex = (int)(mappedLength / regionSize);
+                var regionStart = (long)regionIndex * regionSize;
+                var mapped = mappedLength - regionStart;
+                var needed = Math.min(length - regionStart, regionSize);
+                var size = (int)Math.min(regionSize, Math.max(roundUp(needed), 2 * mapped));
+
+                var region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, size);
+                if (regionIndex < regions.size()) {
+                    regions.get(regionIndex).force();
+                    regions.set(regionIndex, region);
+                } else {
+                    regions.add(region);
+                }
+                mappedLength = regionStart + size;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map hash index " + file, e);
+        }
+    }
+
+    private MappedByteBuffer region(final long offset) {
+        return regions.get((int)(offset / regionSize));
+    }
+
+    private void force() {
+        for (var region : regions) {
+            region.force();
+        }
+    }
+
+    private void closeChannel() {
+        regions.clear();
+        mappedLength = 0;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close hash index " + file, e);
+        }
+    }
+
+    private static void closeQuietly(final FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The original failure is reported instead
+        }
+    }
+
+    private static long roundUp(final long length) {
+        return (length + MAPPING_GRANULARITY - 1) & -MAPPING_GRANULARITY;
+    }
+
+    private static long bucketOffset(final int bucket) {
+        return HEADER_SIZE + (long)bucket * Long.BYTES;
+    }
+
+    private static boolean isTombstone(final long offset) {
+        return offset < 0;
+    }
+
+    private static void checkWidth(final int length, final int width) {
+        if (width != VARIABLE_WIDTH && length != width) {
+            throw new IllegalArgumentException("The binary form must be " + width + " bytes long, not " + length);
+        }
+    }
+
+    private static void checkRegionSize(final int regionSize) {
+        if (regionSize < HEADER_SIZE || regionSize % HEADER_SIZE != 0) {
+            throw new IllegalArgumentException("The region size must be a multiple of " + HEADER_SIZE);
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map, implemented as a hash array mapped trie (HAMT).
+ *
+ * Every update returns a new map and leaves the original unchanged. The trie branches on 5 bits of the hash of the
+ * key per level, and every node stores only its used branches in an array compacted by a 32-bit bitmap. An update
+ * copies only the nodes on the path from the root to the changed key, at most 7 small arrays, and shares every
+ * other node with the previous version, so updates take O(log32 n) time and space, and any number of versions can be
+ * kept at the cost of their differences only. Keys with equal hashes are stored in a collision node.
+ *
+ * Since a map never changes, it can be shared between threads freely: a writer publishes each new version in a
+ * volatile field, and readers take a consistent snapshot with a single volatile read, without ever blocking:
+ * <pre>
+ *     private volatile PersistentHashMap&lt;String, Integer&gt; current = PersistentHashMap.empty();
+ *
+ *     // Writer
+ *     current = current.put("a", 1);
+ *     // Reader
+ *     var snapshot = current;
+ * </pre>
+ *
+ * Bulk updates are faster through a {@link Transient}, which changes the nodes it created itself in place, instead
+ * of copying them for every update.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final HashStrategy<Object> HASH = HashStrategy.spreading();
+
+    /**
+     * Returned by the lookups of missing keys, so null values can be told apart from missing keys.
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    /**
+     * The root of the trie, or null if the map is empty.
+     */
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     * @return a map without any keys
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>)EMPTY;
+    }
+
+    /**
+     * Returns a value from the map with the corresponding key.
+     *
+     * @param key the key, cannot be null
+     * @return the optional value, or empty if it cannot be found in the map
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<V> get(final K key) {
+        var value = find(root, key);
+        return value == NOT_FOUND ? Optional.empty() : Optional.ofNullable((V)value);
+    }
+
+    /**
+     * Returns the value of a key, or a default value if the key is not in the map.
+     *
+     * @param key the key, cannot be null
+     * @param defaultValue the value to return if the key is not in the map
+     * @return the value of the key, or the default value
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(final K key, final V defaultValue) {
+        var value = find(root, key);
+        return value == NOT_FOUND ? defaultValue : (V)value;
+    }
+
+    /**
+     * Checks whether the map has a value for the key.
+     *
+     * @param key the key, cannot be null
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(final K key) {
+        return find(root, key) != NOT_FOUND;
+    }
+
+    /**
+     * Returns a map with a new value for the key, which shares every unchanged node with this map.
+     *
+     * @param key the key, cannot be null
+     * @param value the value
+     * @return the new map, or this map if the key already has the same value
+     */
+    public PersistentHashMap<K, V> put(final K key, final V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Hashtable key cannot be null");
+        }
+
+        var change = new Change();
+        var newRoot = put(root, null, key, value, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    /**
+     * Returns a map without the key, which shares every unchanged node with this map.
+     *
+     * @param key the key to remove
+     * @return the new map, or this map if the key is not in it
+     */
+    public PersistentHashMap<K, V> remove(final K key) {
+        if (root == null) {
+            return this;
+        }
+
+        var change = new Change();
+        var newRoot = root.remove(null, HASH.hash(key), key, 0, change);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size + change.sizeDelta);
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if it has no keys
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Calls the action with every key and value of the map, in no particular order.
+     *
+     * @param action the action to call
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>)action);
+        }
+    }
+
+    /**
+     * Returns a mutable copy of this map for batch updates. Creating it takes O(1) time, and the nodes are copied
+     * only when the transient changes them for the first time.
+     *
+     * @return a transient map with the same keys and values
+     */
+    public Transient<K, V> asTransient() {
+        return new Transient<>(root, size);
+    }
+
+    private static Object find(final Node root, final Object key) {
+        return root == null ? NOT_FOUND : root.find(HASH.hash(key), key, 0);
+    }
+
+    private static Node put(final Node root, final Object owner, final Object key, final Object value,
+            final Change change) {
+        var hash = HASH.hash(key);
+        if (root == null) {
+            change.sizeDelta = 1;
+            return new BitmapNode(owner, bit(hash, 0), new Object[] {new Leaf(hash, key, value)});
+        }
+        return root.put(owner, hash, key, value, 0, change);
+    }
+
+    /**
+     * Returns the bit of the branch of the hash at the given depth.
+     */
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * A mutable map for batch updates, e.g. for bulk loads. It changes the nodes it created itself in place, so a
+     * series of updates copies every node only once. Calling {@link #persistent()} turns it into an immutable map
+     * in O(1) time, and makes the transient unusable, so the nodes of the returned map never change again.
+     *
+     * A transient must be used by a single thread only.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public static final class Transient<K, V> {
+        /**
+         * Marks the nodes this transient may change in place. Set to null by {@link #persistent()}.
+         */
+        private Object owner;
+        private Node root;
+        private int size;
+
+        private Transient(final Node root, final int size) {
+            this.owner = new Object();
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Puts a new value in the map.
+         * Overwrites any existing values for the same key.
+         *
+         * @param key the key, cannot be null
+         * @param value the value
+         * @return this transient
+         */
+        public Transient<K, V> put(final K key, final V value) {
+            ensureEditable();
+            if (key == null) {
+                throw new IllegalArgumentException("Hashtable key cannot be null");
+            }
+
+            var change = new Change();
+            root = PersistentHashMap.put(root, owner, key, value, change);
+            size += change.sizeDelta;
+            return this;
+        }
+
+        /**
+         * Removes the specified key and the corresponding value from the map.
+         *
+         * @param key the key to remove
+         * @return this transient
+         */
+        public Transient<K, V> remove(final K key) {
+            ensureEditable();
+            if (root != null) {
+                var change = new Change();
+                root = root.remove(owner, HASH.hash(key), key, 0, change);
+                size += change.sizeDelta;
+            }
+            return this;
+        }
+
+        /**
+         * Returns a value from the map with the corresponding key.
+         *
+         * @param key the key, cannot be null
+         * @return the optional value, or empty if it cannot be found in the map
+         */
+        @SuppressWarnings("unchecked")
+        public Optional<V> get(final K key) {
+            ensureEditable();
+            var value = find(root, key);
+            return value == NOT_FOUND ? Optional.empty() : Optional.ofNullable((V)value);
+        }
+
+        /**
+         * Returns the number of keys in the map.
+         *
+         * @return the number of keys
+         */
+        public int size() {
+            ensureEditable();
+            return size;
+        }
+
+        /**
+         * Returns the immutable map of the current contents, and makes this transient unusable.
+         *
+         * @return the immutable map
+         */
+        public PersistentHashMap<K, V> persistent() {
+            ensureEditable();
+            owner = null;
+            return size == 0 ? empty() : new PersistentHashMap<>(root, size);
+        }
+
+        private void ensureEditable() {
+            if (owner == null) {
+                throw new IllegalStateException("The transient map was already made persistent");
+            }
+        }
+    }
+
+    /**
+     * Collects the change of the size of the map during an update.
+     */
+    private static class Change {
+        int sizeDelta;
+    }
+
+    /**
+     * A key, its value and the hash of the key. Immutable, replaced when the value changes.
+     */
+    private static class Leaf {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(final int hash, final Object key, final Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        boolean matches(final int hash, final Object key) {
+            return this.hash == hash && this.key.equals(key);
+        }
+    }
+
+    /**
+     * A node of the trie. The persistent operations get a null owner, and never change a node; the operations of
+     * a transient change the nodes created with its owner in place.
+     */
+    private abstract static class Node {
+        final Object owner;
+
+        Node(final Object owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Returns the value of the key, or {@link #NOT_FOUND}.
+         */
+        abstract Object find(int hash, Object key, int shift);
+
+        /**
+         * Returns the node with the key put in it, or this node if nothing changed.
+         */
+        abstract Node put(Object owner, int hash, Object key, Object value, int shift, Change change);
+
+        /**
+         * Returns the node without the key, this node if the key is not in it, or null if the node became empty.
+         */
+        abstract Node remove(Object owner, int hash, Object key, int shift, Change change);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+
+        boolean isEditable(final Object owner) {
+            return owner != null && owner == this.owner;
+        }
+    }
+
+    /**
+     * A node with up to 32 children, selected by 5 bits of the hash. Only the used children are stored, in the order
+     * of their bits in the bitmap. A child is either a {@link Leaf} or a {@link Node}.
+     */
+    private static class BitmapNode extends Node {
+        int bitmap;
+        Object[] children;
+
+        BitmapNode(final Object owner, final int bitmap, final Object[] children) {
+            super(owner);
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        @Override
+        Object find(final int hash, final Object key, final int shift) {
+            var bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+
+            var child = children[index(bit)];
+            if (child instanceof Leaf) {
+                var leaf = (Leaf)child;
+                return leaf.matches(hash, key) ? leaf.value : NOT_FOUND;
+            }
+            return ((Node)child).find(hash, key, shift + BITS);
+        }
+
+        @Override
+        Node put(final Object owner, final int hash, final Object key, final Object value, final int shift,
+                final Change change) {
+            var bit = bit(hash, shift);
+            var index = index(bit);
+            if ((bitmap & bit) == 0) {
+                var newChildren = new Object[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, index);
+                newChildren[index] = new Leaf(hash, key, value);
+                System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+                change.sizeDelta = 1;
+                return withChildren(owner, bitmap | bit, newChildren);
+            }
+
+            var child = children[index];
+            if (child instanceof Leaf) {
+                var leaf = (Leaf)child;
+                if (leaf.matches(hash, key)) {
+                    return leaf.value == value ? this : withChild(owner, index, new Leaf(hash, key, value));
+                }
+                change.sizeDelta = 1;
+                return withChild(owner, index, merge(owner, leaf, new Leaf(hash, key, value), shift + BITS));
+            }
+
+            var newChild = ((Node)child).put(owner, hash, key, value, shift + BITS, change);
+            return newChild == child ? this : withChild(owner, index, newChild);
+        }
+
+        @Override
+        Node remove(final Object owner, final int hash, final Object key, final int shift, final Change change) {
+            var bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            var index = index(bit);
+            var child = children[index];
+            Object newChild;
+            if (child instanceof Leaf) {
+                if (!((Leaf)child).matches(hash, key)) {
+                    return this;
+                }
+                change.sizeDelta = -1;
+                newChild = null;
+            } else {
+                newChild = ((Node)child).remove(owner, hash, key, shift + BITS, change);
+                if (newChild == child) {
+                    return this;
+                }
+            }
+
+            if (newChild != null) {
+                return withChild(owner, index, newChild);
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+
+            var newChildren = new Object[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            return withChildren(owner, bitmap ^ bit, newChildren);
+        }
+
+        @Override
+        void forEach(final BiConsumer<Object, Object> action) {
+            for (var child : children) {
+                if (child instanceof Leaf) {
+                    action.accept(((Leaf)child).key, ((Leaf)child).value);
+                } else {
+                    ((Node)child).forEach(action);
+                }
+            }
+        }
+
+        /**
+         * Returns the position of the child of a bit in the compacted array: the number of used bits below it.
+         */
+        private int index(final int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node withChild(final Object owner, final int index, final Object child) {
+            if (isEditable(owner)) {
+                children[index] = child;
+                return this;
+            }
+
+            var newChildren = children.clone();
+            newChildren[index] = child;
+            return new BitmapNode(owner, bitmap, newChildren);
+        }
+
+        private Node withChildren(final Object owner, final int newBitmap, final Object[] newChildren) {
+            if (isEditable(owner)) {
+                bitmap = newBitmap;
+                children = newChildren;
+                return this;
+            }
+            return new BitmapNode(owner, newBitmap, newChildren);
+        }
+
+        /**
+         * Creates the subtrie of two leaves that share the same branch down to the given depth.
+         */
+        private static Node merge(final Object owner, final Leaf first, final Leaf second, final int shift) {
+            if (first.hash == second.hash) {
+                return new CollisionNode(owner, first.hash, new Leaf[] {first, second});
+            }
+
+            var firstBit = bit(first.hash, shift);
+            var secondBit = bit(second.hash, shift);
+            if (firstBit == secondBit) {
+                return new BitmapNode(owner, firstBit, new Object[] {merge(owner, first, second, shift + BITS)});
+            }
+
+            // The bit of the highest branch is negative, so the bits are compared unsigned
+            var children = Integer.compareUnsigned(firstBit, secondBit) < 0
+                    ? new Object[] {first, second}
+                    : new Object[] {second, first};
+            return new BitmapNode(owner, firstBit | secondBit, children);
+        }
+    }
+
+    /**
+     * The leaves of the keys that have the same hash, searched linearly.
+     */
+    private static class CollisionNode extends Node {
+        final int hash;
+        Leaf[] leaves;
+
+        CollisionNode(final Object owner, final int hash, final Leaf[] leaves) {
+            super(owner);
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Object find(final int hash, final Object key, final int shift) {
+            var index = indexOf(hash, key);
+            return index < 0 ? NOT_FOUND : leaves[index].value;
+        }
+
+        @Override
+        Node put(final Object owner, final int hash, final Object key, final Object value, final int shift,
+                final Change change) {
+            if (hash != this.hash) {
+                // The new key only shares the branch so far, the collision node moves one level down
+                return new BitmapNode(owner, bit(this.hash, shift), new Object[] {this})
+                        .put(owner, hash, key, value, shift, change);
+            }
+
+            var index = indexOf(hash, key);
+            Leaf[] newLeaves;
+            if (index >= 0) {
+                if (leaves[index].value == value) {
+                    return this;
+                }
+                newLeaves = leaves.clone();
+                newLeaves[index] = new Leaf(hash, key, value);
+            } else {
+                newLeaves = new Leaf[leaves.length + 1];
+                System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+                newLeaves[leaves.length] = new Leaf(hash, key, value);
+                change.sizeDelta = 1;
+            }
+            return withLeaves(owner, newLeaves);
+        }
+
+        @Override
+        Node remove(final Object owner, final int hash, final Object key, final int shift, final Change change) {
+            var index = indexOf(hash, key);
+            if (index < 0) {
+                return this;
+            }
+
+            change.sizeDelta = -1;
+            if (leaves.length == 1) {
+                return null;
+            }
+
+            var newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, index);
+            System.arraycopy(leaves, index + 1, newLeaves, index, leaves.length - index - 1);
+            return withLeaves(owner, newLeaves);
+        }
+
+        @Override
+        void forEach(final BiConsumer<Object, Object> action) {
+            for (var leaf : leaves) {
+                action.accept(leaf.key, leaf.value);
+            }
+        }
+
+        private int indexOf(final int hash, final Object key) {
+            if (hash != this.hash) {
+                return -1;
+            }
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Node withLeaves(final Object owner, final Leaf[] newLeaves) {
+            if (isEditable(owner)) {
+                leaves = newLeaves;
+                return this;
+            }
+            return new CollisionNode(owner, hash, newLeaves);
+        }
+    }
+}
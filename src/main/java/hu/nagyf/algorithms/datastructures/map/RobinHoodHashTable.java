@@ -0,0 +1,259 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A Hash Table implementation with open addressing and Robin Hood probing.
+ *
+ * The keys, the values and the hashes of the keys are stored in flat parallel arrays, so an item costs no object
+ * of its own, and a lookup scans neighbouring slots of the same arrays instead of following pointers. A key that
+ * collides is stored in the next free slot. When an inserted key is further from its home slot than the key already
+ * in a slot, the two swap places ("take from the rich, give to the poor"), which keeps the probe sequences short and
+ * even, and lets a lookup stop as soon as it finds a key that is closer to its home than the searched key would be.
+ *
+ * Removing a key shifts the following keys of the probe sequence back by one slot, so the table needs no tombstones
+ * and lookups do not slow down after many removals. The table doubles its size when it is 80% full.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class RobinHoodHashTable<K, V> implements SymbolTable<K, V> {
+    /**
+     * The default number of items the table can store without resizing.
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 96;
+
+    /**
+     * The maximum ratio of the used slots.
+     */
+    private static final float LOAD_FACTOR = 0.8f;
+
+    /**
+     * The keys of the slots, null marks an empty slot.
+     */
+    private Object[] keys;
+    private Object[] values;
+
+    /**
+     * The spread hashes of the keys, compared before calling {@link Object#equals}, and used to find the home slot
+     * of a key without calling {@link Object#hashCode} again.
+     */
+    private int[] hashes;
+
+    /**
+     * The number of slots minus one. The number of slots is always a power of two.
+     */
+    private int mask;
+    private int threshold;
+    private int size;
+    private final HashStrategy<? super K> hashStrategy;
+
+    /**
+     * Initializes an empty table that can store 96 items before it resizes.
+     */
+    public RobinHoodHashTable() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Initializes an empty table that can store the expected number of items before it resizes.
+     *
+     * @param expectedSize the expected number of items, cannot be negative or more than 4 / 5 of 2^30
+     */
+    public RobinHoodHashTable(final int expectedSize) {
+        this(expectedSize, HashStrategy.spreading());
+    }
+
+    /**
+     * Initializes an empty table that can store the expected number of items before it resizes, with a hashing
+     * strategy, e.g. {@link HashStrategy#seeded} for keys that come from untrusted sources.
+     *
+     * @param expectedSize the expected number of items, cannot be negative or more than 4 / 5 of 2^30
+     * @param hashStrategy computes the hashes of the keys
+     */
+    public RobinHoodHashTable(final int expectedSize, final HashStrategy<? super K> hashStrategy) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("The expected size cannot be negative");
+        }
+
+        this.hashStrategy = Objects.requireNonNull(hashStrategy);
+        allocate(MapSupport.capacityFor(expectedSize, LOAD_FACTOR));
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Hashtable key cannot be null");
+        }
+
+        var hash = hash(key);
+        var slot = find(key, hash);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+
+        if (size >= threshold) {
+            resize(MapSupport.grow(keys.length, LOAD_FACTOR));
+        }
+        insert(key, value, hash);
+        ++size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<V> get(final K key) {
+        var slot = find(key, hash(key));
+        return slot < 0 ? Optional.empty() : Optional.ofNullable((V)values[slot]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(final K key, final V defaultValue) {
+        var slot = find(key, hash(key));
+        return slot < 0 ? defaultValue : (V)values[slot];
+    }
+
+    @Override
+    public boolean containsKey(final K key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public boolean remove(final K key) {
+        var slot = find(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+
+        // Shift the rest of the probe sequence back, until an empty slot or a key in its home slot
+        var next = (slot + 1) & mask;
+        while (keys[next] != null && distance(next) > 0) {
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            hashes[slot] = hashes[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+
+        keys[slot] = null;
+        values[slot] = null;
+        --size;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Measures the probe lengths, i.e. the number of slots a lookup of each key visits. Takes O(n) time.
+     *
+     * @return the distribution of the lookup lengths
+     */
+    public HashDiagnostics diagnostics() {
+        var builder = new HashDiagnostics.Builder();
+        for (int slot = 0; slot < keys.length; ++slot) {
+            if (keys[slot] != null) {
+                builder.add(distance(slot) + 1);
+            }
+        }
+        return builder.build(keys.length, size);
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return the length of the arrays
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the slot of the key, or -1 if the key is not in the table.
+     */
+    private int find(final K key, final int hash) {
+        var slot = hash & mask;
+        for (int distance = 0; keys[slot] != null; ++distance) {
+            // Had the key been inserted, it would have taken the place of a key closer to its home
+            if (distance(slot) < distance) {
+                return -1;
+            }
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a key that is not in the table, displacing the keys that are closer to their home slot.
+     */
+    private void insert(final K key, final V value, final int hash) {
+        Object currentKey = key;
+        Object currentValue = value;
+        var currentHash = hash;
+
+        var slot = hash & mask;
+        for (int distance = 0; keys[slot] != null; ++distance) {
+            var existingDistance = distance(slot);
+            if (existingDistance < distance) {
+                var displacedKey = keys[slot];
+                var displacedValue = values[slot];
+                var displacedHash = hashes[slot];
+                keys[slot] = currentKey;
+                values[slot] = currentValue;
+                hashes[slot] = currentHash;
+                currentKey = displacedKey;
+                currentValue = displacedValue;
+                currentHash = displacedHash;
+                distance = existingDistance;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = currentKey;
+        values[slot] = currentValue;
+        hashes[slot] = currentHash;
+    }
+
+    /**
+     * Returns how far the key of a used slot is from its home slot.
+     */
+    private int distance(final int slot) {
+        return (slot - (hashes[slot] & mask)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(final int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        var oldHashes = hashes;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != null) {
+                insert((K)oldKeys[i], (V)oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int)(capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Hashes the key with the strategy of the table. The home slot is selected by the lowest bits of the hash.
+     */
+    private int hash(final K key) {
+        return hashStrategy.hash(key);
+    }
+}
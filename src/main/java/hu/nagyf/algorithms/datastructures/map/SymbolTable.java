@@ -0,0 +1,82 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.Optional;
+
+/**
+ * A generic interface for key-value stores, so the implementations can be swapped for each other.
+ *
+ * The implementations that accept null values treat a key stored with a null value as present:
+ * {@link #containsKey} returns true and {@link #getOrDefault} returns null for it. Only {@link #get} returns empty,
+ * as an Optional cannot hold null.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public interface SymbolTable<K, V> {
+
+    /**
+     * Puts a new value in the table.
+     * Overwrites any existing values for the same key.
+     *
+     * @param key the key, cannot be null
+     * @param value the value
+     */
+    void put(final K key, final V value);
+
+    /**
+     * Returns a value from the table with the corresponding key.
+     *
+     * @param key the key, cannot be null
+     * @return the optional value, or empty if it cannot be found in the table
+     */
+    Optional<V> get(final K key);
+
+    /**
+     * Returns the value of a key, or a default value if the key is not in the table.
+     * The default implementation calls {@link #get}, so it cannot tell a null value from a missing key;
+     * the implementations that accept null values override it.
+     *
+     * @param key the key, cannot be null
+     * @param defaultValue the value to return if the key is not in the table
+     * @return the value of the key, or the default value
+     */
+    default V getOrDefault(final K key, final V defaultValue) {
+        return get(key).orElse(defaultValue);
+    }
+
+    /**
+     * Checks whether the table has a value for the key, including a null value.
+     * The default implementation calls {@link #get}, so it cannot tell a null value from a missing key;
+     * the implementations that accept null values override it.
+     *
+     * @param key the key, cannot be null
+     * @return true if the key is in the table
+     */
+    default boolean containsKey(final K key) {
+        return get(key).isPresent();
+    }
+
+    /**
+     * Removes the specified key and the corresponding value from the table.
+     *
+     * @param key the key to remove
+     * @return true if the key was in the table
+     */
+    boolean remove(final K key);
+
+    /**
+     * Returns the number of items stored in the table.
+     *
+     * @return the number of keys
+     */
+    int size();
+
+    /**
+     * Checks whether the table is empty.
+     *
+     * @return true if it stores no items
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,76 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Reads binary records from a channel through a buffer, refilling it when the next record is not entirely in it.
+ * A record larger than the buffer gets a larger buffer, which grows as the record is read, so a corrupt record length
+ * fails at the end of the channel without allocating the whole length up front. A seekable channel is checked for
+ * the length before reading at all.
+ */
+public final class ChannelReader {
+    private static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+
+    /**
+     * Creates a reader with a 64 KB buffer.
+     *
+     * @param channel the channel to read from
+     */
+    public ChannelReader(final ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a reader with the given buffer size.
+     *
+     * @param channel the channel to read from
+     * @param bufferSize the size of the buffer, must be greater than 0
+     */
+    public ChannelReader(final ReadableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        buffer.flip();
+    }
+
+    /**
+     * Returns the buffer with at least the given number of unread bytes in it. The caller reads the record from the
+     * buffer, starting at its position.
+     *
+     * @param length the length of the next record
+     * @return the buffer to read the record from
+     * @throws EOFException if the channel ends before the record
+     * @throws IOException if the channel cannot be read
+     */
+    public ByteBuffer require(final int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return buffer;
+        }
+
+        if (channel instanceof SeekableByteChannel) {
+            var seekable = (SeekableByteChannel)channel;
+            if (buffer.remaining() + seekable.size() - seekable.position() < length) {
+                throw new EOFException();
+            }
+        }
+
+        buffer.compact();
+        while (buffer.position() < length) {
+            if (!buffer.hasRemaining()) {
+                var grown = ByteBuffer.allocate((int)Math.min(length, 2L * buffer.capacity()));
+                buffer = grown.put(buffer.flip());
+            }
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
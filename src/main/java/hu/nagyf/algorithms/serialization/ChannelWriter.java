@@ -0,0 +1,72 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes binary records to a channel through a buffer, so many small records cost a few large writes.
+ *
+ * A record is written directly into the buffer returned by {@link #reserve}; the buffer is written to the channel
+ * when the next record does not fit in it. A record larger than the buffer gets a buffer of its own.
+ */
+public final class ChannelWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    /**
+     * Creates a writer with a 64 KB buffer.
+     *
+     * @param channel the channel to write to
+     */
+    public ChannelWriter(final WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer with the given buffer size.
+     *
+     * @param channel the channel to write to
+     * @param bufferSize the size of the buffer, must be greater than 0
+     */
+    public ChannelWriter(final WritableByteChannel channel, final int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Returns the buffer with at least the given number of bytes remaining in it. The caller writes the record
+     * into the buffer, starting at its position.
+     *
+     * @param length the length of the next record
+     * @return the buffer to write the record into
+     */
+    public ByteBuffer reserve(final int length) {
+        if (buffer.remaining() < length) {
+            flush();
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(length);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes the buffered records to the channel.
+     * Throws an {@link UncheckedIOException}, so it can be called from lambdas.
+     */
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
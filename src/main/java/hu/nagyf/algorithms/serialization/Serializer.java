@@ -0,0 +1,40 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from their binary form, so they can be stored outside of the Java heap or in files.
+ *
+ * The length of the binary form is stored by the caller, so a serializer does not have to write it.
+ *
+ * @param <T> the type of the values
+ */
+public interface Serializer<T> {
+
+    /**
+     * Returns the number of bytes {@link #serialize} writes for the value.
+     *
+     * @param value the value to serialize
+     * @return the length of the binary form
+     */
+    int serializedSize(final T value);
+
+    /**
+     * Writes the binary form of the value to the buffer, starting at its position.
+     * Writes exactly {@link #serializedSize} bytes and advances the position of the buffer.
+     *
+     * @param value the value to serialize
+     * @param target the buffer to write to
+     */
+    void serialize(final T value, final ByteBuffer target);
+
+    /**
+     * Reads a value from the buffer, starting at its position.
+     * Reads exactly length bytes and advances the position of the buffer.
+     *
+     * @param source the buffer to read from
+     * @param length the length of the binary form
+     * @return the value
+     */
+    T deserialize(final ByteBuffer source, final int length);
+}
@@ -0,0 +1,150 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link Serializer}s of the common types.
+ */
+public final class Serializers {
+
+    private Serializers() {
+    }
+
+    /**
+     * Returns a serializer that stores strings in UTF-8.
+     *
+     * @return the serializer
+     */
+    public static Serializer<String> strings() {
+        return StringSerializer.INSTANCE;
+    }
+
+    /**
+     * Returns a serializer that stores integers in 4 bytes.
+     *
+     * @return the serializer
+     */
+    public static Serializer<Integer> integers() {
+        return IntegerSerializer.INSTANCE;
+    }
+
+    /**
+     * Returns a serializer that stores longs in 8 bytes.
+     *
+     * @return the serializer
+     */
+    public static Serializer<Long> longs() {
+        return LongSerializer.INSTANCE;
+    }
+
+    /**
+     * Returns a serializer that stores byte arrays as they are.
+     *
+     * @return the serializer
+     */
+    public static Serializer<byte[]> byteArrays() {
+        return ByteArraySerializer.INSTANCE;
+    }
+
+    private enum StringSerializer implements Serializer<String> {
+        INSTANCE;
+
+        @Override
+        public int serializedSize(final String value) {
+            // Calculates the length of the UTF-8 form without encoding the string
+            var size = 0;
+            for (int i = 0; i < value.length(); ++i) {
+                var c = value.charAt(i);
+                if (c < 0x80) {
+                    size += 1;
+                } else if (c < 0x800) {
+                    size += 2;
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                            && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        size += 4;
+                        ++i;
+                    } else {
+                        // The encoder replaces an unpaired surrogate with '?'
+                        size += 1;
+                    }
+                } else {
+                    size += 3;
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public void serialize(final String value, final ByteBuffer target) {
+            target.put(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String deserialize(final ByteBuffer source, final int length) {
+            var bytes = new byte[length];
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private enum IntegerSerializer implements Serializer<Integer> {
+        INSTANCE;
+
+        @Override
+        public int serializedSize(final Integer value) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void serialize(final Integer value, final ByteBuffer target) {
+            target.putInt(value);
+        }
+
+        @Override
+        public Integer deserialize(final ByteBuffer source, final int length) {
+            return source.getInt();
+        }
+    }
+
+    private enum LongSerializer implements Serializer<Long> {
+        INSTANCE;
+
+        @Override
+        public int serializedSize(final Long value) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void serialize(final Long value, final ByteBuffer target) {
+            target.putLong(value);
+        }
+
+        @Override
+        public Long deserialize(final ByteBuffer source, final int length) {
+            return source.getLong();
+        }
+    }
+
+    private enum ByteArraySerializer implements Serializer<byte[]> {
+        INSTANCE;
+
+        @Override
+        public int serializedSize(final byte[] value) {
+            return value.length;
+        }
+
+        @Override
+        public void serialize(final byte[] value, final ByteBuffer target) {
+            target.put(value);
+        }
+
+        @Override
+        public byte[] deserialize(final ByteBuffer source, final int length) {
+            var bytes = new byte[length];
+            source.get(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package hu.nagyf.algorithms.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArcCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new ArcCache<>(0);
+    }
+
+    @Test
+    public void testGetEmpty() {
+        var cache = new ArcCache<Integer, Integer>(2);
+        Assert.assertTrue(cache.get(10).isEmpty());
+    }
+
+    @Test
+    public void testPutGet() {
+        var cache = new ArcCache<Integer, Integer>(2);
+        cache.put(10, 42);
+        cache.put(10, 43);
+        Assert.assertEquals(43, (int)cache.get(10).get());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCapacityIsNeverExceeded() {
+        var cache = new ArcCache<Integer, Integer>(100);
+        var key = 1;
+        for (int i = 0; i < 100_000; ++i) {
+            key = (key * 1103515245 + 12345) & Integer.MAX_VALUE;
+            var k = key % 500;
+            if (cache.get(k).isEmpty()) {
+                cache.put(k, k);
+            }
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() {
+        var cache = new ArcCache<Integer, Integer>(100);
+        for (int i = 0; i < 50; ++i) {
+            cache.put(i, i);
+            cache.get(i);
+        }
+
+        // Keys used only once stay in T1 and push each other out, the frequently used keys are safe in T2
+        for (int i = 1000; i < 2000; ++i) {
+            cache.put(i, i);
+        }
+
+        for (int i = 0; i < 50; ++i) {
+            Assert.assertEquals(i, (int)cache.get(i).get());
+        }
+    }
+
+    @Test
+    public void testGhostHitOfRecencyListGrowsTarget() {
+        var cache = new ArcCache<Integer, Integer>(4);
+        for (int i = 0; i < 4; ++i) {
+            cache.put(i, i);
+            cache.get(i);
+        }
+        cache.put(10, 10);
+        cache.put(11, 11);
+        cache.put(12, 12);
+        Assert.assertEquals(0, cache.target());
+
+        // 10 was evicted from T1 into B1, storing it again means T1 should be larger
+        Assert.assertTrue(cache.get(10).isEmpty());
+        cache.put(10, 10);
+        Assert.assertTrue(cache.target() > 0);
+        Assert.assertEquals(10, (int)cache.get(10).get());
+        Assert.assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void testGhostHitOfFrequencyListShrinksTarget() {
+        var cache = new ArcCache<Integer, Integer>(4);
+        cache.put(0, 0);
+        cache.get(0);
+
+        // Grow the target with ghost hits of T1
+        for (int i = 1; i < 20; ++i) {
+            cache.put(i, i);
+            cache.put(i - 1, i - 1);
+        }
+        var grown = cache.target();
+        Assert.assertTrue(grown > 0);
+
+        // Evict frequently used entries into B2, then store them again
+        for (int i = 100; i < 104; ++i) {
+            cache.put(i, i);
+            cache.get(i);
+        }
+        for (int i = 200; i < 210; ++i) {
+            cache.put(i, i);
+        }
+        for (int i = 100; i < 104; ++i) {
+            cache.put(i, i);
+        }
+        Assert.assertTrue(cache.target() < grown);
+    }
+
+    @Test
+    public void testInvalidate() {
+        var cache = new ArcCache<Integer, Integer>(2);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.get(2);
+        cache.invalidate(1);
+        cache.invalidate(2);
+        cache.invalidate(3);
+
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue(cache.get(1).isEmpty());
+        Assert.assertTrue(cache.get(2).isEmpty());
+    }
+
+    @Test
+    public void testStats() {
+        var cache = new ArcCache<Integer, Integer>(1, new ConcurrentStatsCounter());
+        cache.put(1, 1);
+        cache.get(1);
+        cache.get(2);
+        cache.put(2, 2);
+
+        var stats = cache.stats();
+        Assert.assertEquals(1, stats.hitCount());
+        Assert.assertEquals(1, stats.missCount());
+        Assert.assertEquals(2, stats.putCount());
+        Assert.assertEquals(1, stats.evictionCount());
+    }
+}
@@ -0,0 +1,172 @@
+package hu.nagyf.algorithms.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hu.nagyf.algorithms.serialization.Serializers;
+
+public class CacheSnapshotsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSaveAndLoadKeepsRecencyOrder() throws IOException {
+        var cache = new LRUCache<String, Integer>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.strings(), Serializers.integers());
+
+        var restored = new LRUCache<String, Integer>(3);
+        Assert.assertEquals(3, CacheSnapshots.load(restored, file, Serializers.strings(), Serializers.integers()));
+        Assert.assertEquals(List.of("a", "c", "b"), keys(restored));
+
+        // b is still the least recently used entry, so it is evicted first
+        restored.put("d", 4);
+        Assert.assertTrue(restored.get("b").isEmpty());
+        Assert.assertEquals(1, (int)restored.get("a").get());
+    }
+
+    @Test
+    public void testSaveDoesNotChangeOrder() {
+        var cache = new LRUCache<String, Integer>(3);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        CacheSnapshots.save(cache, folder.getRoot().toPath().resolve("cache.snapshot"), Serializers.strings(),
+                Serializers.integers());
+
+        Assert.assertEquals(List.of("b", "a"), keys(cache));
+    }
+
+    @Test
+    public void testLoadIntoSmallerCacheKeepsMostRecent() {
+        var cache = new LRUCache<Integer, Integer>(100);
+        for (int i = 0; i < 100; ++i) {
+            cache.put(i, i * i);
+        }
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.integers(), Serializers.integers());
+
+        var restored = new LRUCache<Integer, Integer>(10, new ConcurrentStatsCounter());
+        Assert.assertEquals(10, CacheSnapshots.load(restored, file, Serializers.integers(), Serializers.integers()));
+        Assert.assertEquals(10, restored.size());
+        for (int i = 90; i < 100; ++i) {
+            Assert.assertEquals(i * i, (int)restored.get(i).get());
+        }
+        Assert.assertEquals(0, restored.stats().evictionCount());
+    }
+
+    @Test
+    public void testLargeValues() {
+        var value = new byte[200_000];
+        Arrays.fill(value, (byte)7);
+        var cache = new LRUCache<String, byte[]>(3);
+        cache.put("small", new byte[] {1, 2, 3});
+        cache.put("large", value);
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.strings(), Serializers.byteArrays());
+
+        var restored = new LRUCache<String, byte[]>(3);
+        CacheSnapshots.load(restored, file, Serializers.strings(), Serializers.byteArrays());
+        Assert.assertArrayEquals(value, restored.get("large").get());
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, restored.get("small").get());
+    }
+
+    @Test
+    public void testEmptyCache() {
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(new LRUCache<String, String>(3), file, Serializers.strings(), Serializers.strings());
+
+        var restored = new LRUCache<String, String>(3);
+        Assert.assertEquals(0, CacheSnapshots.load(restored, file, Serializers.strings(), Serializers.strings()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotASnapshot() throws IOException {
+        var file = folder.newFile().toPath();
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        CacheSnapshots.load(new LRUCache<String, String>(3), file, Serializers.strings(), Serializers.strings());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedSnapshot() throws IOException {
+        var cache = new LRUCache<String, String>(3);
+        cache.put("key", "value");
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.strings(), Serializers.strings());
+
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 2));
+        CacheSnapshots.load(new LRUCache<String, String>(3), file, Serializers.strings(), Serializers.strings());
+    }
+
+    @Test
+    public void testHugeCountInTruncatedSnapshot() throws IOException {
+        var cache = new LRUCache<String, String>(3);
+        cache.put("key", "value");
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.strings(), Serializers.strings());
+
+        // The count claims far more entries than the file holds, it must not size the cache for all of them
+        var bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, Integer.MAX_VALUE - 1);
+        Files.write(file, bytes);
+        try {
+            CacheSnapshots.load(new LRUCache<String, String>(Integer.MAX_VALUE), file, Serializers.strings(),
+                    Serializers.strings());
+            Assert.fail("The snapshot holds a single entry");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(file + " is truncated", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNegativeCount() throws IOException {
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        Files.write(file, ByteBuffer.allocate(8).putInt(0x4C525553).putInt(-1).array());
+        try {
+            CacheSnapshots.load(new LRUCache<String, String>(3), file, Serializers.strings(), Serializers.strings());
+            Assert.fail("The count is negative");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(file + " is corrupted", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testOverflowingRecordLength() throws IOException {
+        var cache = new LRUCache<String, String>(3);
+        cache.put("key", "value");
+        var file = folder.getRoot().toPath().resolve("cache.snapshot");
+        CacheSnapshots.save(cache, file, Serializers.strings(), Serializers.strings());
+
+        // The key and the value length add up to more than an int
+        var bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE).putInt(12, Integer.MAX_VALUE);
+        Files.write(file, bytes);
+        try {
+            CacheSnapshots.load(new LRUCache<String, String>(3), file, Serializers.strings(), Serializers.strings());
+            Assert.fail("The record length overflows");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(file + " is corrupted", e.getMessage());
+        }
+    }
+
+    private static <K, V> List<K> keys(final LRUCache<K, V> cache) {
+        var keys = new ArrayList<K>();
+        cache.forEachByRecency((key, value) -> keys.add(key));
+        return keys;
+    }
+}
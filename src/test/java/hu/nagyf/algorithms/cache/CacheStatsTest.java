@@ -0,0 +1,65 @@
+package hu.nagyf.algorithms.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CacheStatsTest {
+
+    @Test
+    public void testEmpty() {
+        var stats = CacheStats.empty();
+        Assert.assertEquals(0, stats.requestCount());
+        Assert.assertEquals(1.0, stats.hitRate(), 0.0);
+        Assert.assertEquals(0.0, stats.missRate(), 0.0);
+        Assert.assertEquals(0.0, stats.averageLoadPenalty(), 0.0);
+        Assert.assertEquals(0, stats.loadTimePercentile(99));
+    }
+
+    @Test
+    public void testRates() {
+        var stats = new CacheStats(3, 1, 0, 0, 2, 0, 300, histogram());
+        Assert.assertEquals(4, stats.requestCount());
+        Assert.assertEquals(0.75, stats.hitRate(), 0.0);
+        Assert.assertEquals(0.25, stats.missRate(), 0.0);
+        Assert.assertEquals(150.0, stats.averageLoadPenalty(), 0.0);
+    }
+
+    @Test
+    public void testHistogramBucket() {
+        Assert.assertEquals(0, CacheStats.histogramBucket(0));
+        Assert.assertEquals(0, CacheStats.histogramBucket(1));
+        Assert.assertEquals(1, CacheStats.histogramBucket(2));
+        Assert.assertEquals(1, CacheStats.histogramBucket(3));
+        Assert.assertEquals(10, CacheStats.histogramBucket(1024));
+        Assert.assertEquals(62, CacheStats.histogramBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentile() {
+        var histogram = histogram();
+        histogram[CacheStats.histogramBucket(1_000)] = 90;
+        histogram[CacheStats.histogramBucket(1_000_000)] = 10;
+        var stats = new CacheStats(0, 0, 0, 0, 100, 0, 0, histogram);
+
+        Assert.assertEquals(1023, stats.loadTimePercentile(50));
+        Assert.assertEquals(1023, stats.loadTimePercentile(90));
+        Assert.assertEquals((1 << 20) - 1, stats.loadTimePercentile(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        CacheStats.empty().loadTimePercentile(101);
+    }
+
+    @Test
+    public void testHistogramIsCopied() {
+        var histogram = histogram();
+        var stats = new CacheStats(0, 0, 0, 0, 1, 0, 0, histogram);
+        histogram[0] = 42;
+        Assert.assertEquals(0, stats.loadTimeHistogram()[0]);
+    }
+
+    private static long[] histogram() {
+        return new long[CacheStats.HISTOGRAM_BUCKETS];
+    }
+}
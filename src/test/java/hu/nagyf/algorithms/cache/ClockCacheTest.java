@@ -0,0 +1,158 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClockCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new ClockCache<>(0);
+    }
+
+    @Test
+    public void testGetEmpty() {
+        var cache = new ClockCache<Integer, Integer>(2);
+        Assert.assertTrue(cache.get(10).isEmpty());
+    }
+
+    @Test
+    public void testPutGet() {
+        var cache = new ClockCache<Integer, Integer>(2);
+        cache.put(10, 42);
+        cache.put(10, 43);
+        Assert.assertEquals(43, (int)cache.get(10).get());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testUnreferencedEntryIsEvicted() {
+        var cache = new ClockCache<Integer, Integer>(3, new ConcurrentStatsCounter());
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        cache.put(4, 4);
+
+        Assert.assertTrue(cache.get(1).isEmpty());
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(1, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void testReferencedEntryGetsSecondChance() {
+        var cache = new ClockCache<Integer, Integer>(3);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.put(3, 3);
+        cache.get(1);
+        cache.put(4, 4);
+
+        // 1 was used, so the hand cleared its bit and evicted 2 instead
+        Assert.assertEquals(1, (int)cache.get(1).get());
+        Assert.assertTrue(cache.get(2).isEmpty());
+        Assert.assertEquals(3, (int)cache.get(3).get());
+        Assert.assertEquals(4, (int)cache.get(4).get());
+    }
+
+    @Test
+    public void testInvalidateFreesSlot() {
+        var cache = new ClockCache<Integer, Integer>(2, new ConcurrentStatsCounter());
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.invalidate(1);
+        cache.invalidate(5);
+        cache.put(3, 3);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(2, (int)cache.get(2).get());
+        Assert.assertEquals(3, (int)cache.get(3).get());
+        Assert.assertEquals(0, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void testCapacityIsNeverExceeded() {
+        var cache = new ClockCache<Integer, Integer>(100);
+        for (int i = 0; i < 10_000; ++i) {
+            cache.put(i, i);
+            cache.get(i / 2);
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testConcurrentThroughput() throws Exception {
+        var processors = Runtime.getRuntime().availableProcessors();
+
+        // The first round only warms up the JIT compiler
+        throughput(1);
+        var singleThreaded = throughput(1);
+        var bestMultiThreaded = 0.0;
+        for (int threads = 2; threads <= processors; threads *= 2) {
+            bestMultiThreaded = Math.max(bestMultiThreaded, throughput(threads));
+        }
+
+        if (processors > 1) {
+            Assert.assertTrue(String.format("%.0f ops/s with up to %d threads, %.0f ops/s with 1 thread",
+                    bestMultiThreaded, processors, singleThreaded), bestMultiThreaded > singleThreaded);
+        }
+    }
+
+    /**
+     * Runs a mix of hits and misses on a new cache with a number of threads, and returns the operations per second.
+     */
+    private static double throughput(final int threads) throws Exception {
+        var operationsPerThread = 100_000;
+        var keySpace = 20_000;
+        var capacity = 5_000;
+        var cache = new ClockCache<Integer, Integer>(capacity);
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < threads; ++t) {
+                final var seed = t;
+                results.add(executor.submit((Callable<Integer>)() -> {
+                    start.await();
+                    var hits = 0;
+                    var key = seed;
+                    for (int i = 0; i < operationsPerThread; ++i) {
+                        key = (key * 1103515245 + 12345) & Integer.MAX_VALUE;
+                        var k = key % keySpace;
+                        var value = cache.get(k);
+                        if (value.isPresent()) {
+                            Assert.assertEquals(k * 2, (int)value.get());
+                            ++hits;
+                        } else {
+                            cache.put(k, k * 2);
+                        }
+                    }
+                    return hits;
+                }));
+            }
+
+            var startTime = System.nanoTime();
+            start.countDown();
+            var hits = 0L;
+            for (var result : results) {
+                hits += result.get();
+            }
+            var elapsed = System.nanoTime() - startTime;
+
+            // Uniform keys over 4 times the capacity: about a quarter of the lookups should hit
+            var operations = (long)threads * operationsPerThread;
+            var hitRatio = (double)hits / operations;
+            Assert.assertTrue("Hit ratio " + hitRatio, hitRatio > 0.15 && hitRatio < 0.35);
+            Assert.assertTrue(cache.size() <= capacity);
+            return operations * 1e9 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentLRUCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new ConcurrentLRUCache<>(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroConcurrencyLevel() {
+        new ConcurrentLRUCache<>(10, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(10);
+        cache.put(null, 1);
+    }
+
+    @Test
+    public void testGetEmpty() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(10);
+        Assert.assertTrue(cache.get(10).isEmpty());
+    }
+
+    @Test
+    public void testPutGet() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(10);
+        cache.put(20, 42);
+        Assert.assertEquals(42, (int)cache.get(20).get());
+    }
+
+    @Test
+    public void testSingleSegmentBehavesLikeLRU() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(2, 1);
+        cache.put(1, 42);
+        cache.put(2, 0);
+        cache.get(1);
+        cache.put(3, 10);
+
+        Assert.assertTrue(cache.get(2).isEmpty());
+        Assert.assertEquals(42, (int)cache.get(1).get());
+        Assert.assertEquals(10, (int)cache.get(3).get());
+    }
+
+    @Test
+    public void testCapacityIsNeverExceeded() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(100, 16);
+        for (int i = 0; i < 10_000; ++i) {
+            cache.put(i, i);
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testConcurrentThroughput() throws Exception {
+        var processors = Runtime.getRuntime().availableProcessors();
+
+        // The first round only warms up the JIT compiler
+        throughput(1);
+        var singleThreaded = throughput(1);
+        var bestMultiThreaded = 0.0;
+        for (int threads = 2; threads <= processors; threads *= 2) {
+            bestMultiThreaded = Math.max(bestMultiThreaded, throughput(threads));
+        }
+
+        if (processors > 1) {
+            Assert.assertTrue(String.format("%.0f ops/s with up to %d threads, %.0f ops/s with 1 thread",
+                    bestMultiThreaded, processors, singleThreaded), bestMultiThreaded > singleThreaded);
+        }
+    }
+
+    @Test
+    public void testBulkOperations() {
+        var cache = new ConcurrentLRUCache<Integer, Integer>(1000, 8, new ConcurrentStatsCounter());
+        var values = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 100; ++i) {
+            values.put(i, i * 2);
+        }
+        cache.putAll(values);
+        Assert.assertEquals(100, cache.size());
+
+        var keys = IntStream.range(50, 150).boxed().collect(Collectors.toList());
+        var result = cache.getAll(keys);
+        Assert.assertEquals(50, result.size());
+        for (int i = 50; i < 100; ++i) {
+            Assert.assertEquals(i * 2, result.get(i).intValue());
+        }
+        Assert.assertEquals(50, cache.stats().hitCount());
+        Assert.assertEquals(50, cache.stats().missCount());
+
+        cache.invalidateAll(keys);
+        Assert.assertEquals(50, cache.size());
+        Assert.assertTrue(cache.get(75).isEmpty());
+        Assert.assertEquals(10, cache.get(5).get().intValue());
+    }
+
+    /**
+     * Runs a mix of hits and misses on a new cache with a number of threads, and returns the operations per second.
+     */
+    private static double throughput(final int threads) throws Exception {
+        var operationsPerThread = 100_000;
+        var keySpace = 20_000;
+        var capacity = 5_000;
+        var cache = new ConcurrentLRUCache<Integer, Integer>(capacity);
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < threads; ++t) {
+                final var seed = t;
+                results.add(executor.submit((Callable<Integer>)() -> {
+                    start.await();
+                    var hits = 0;
+                    var key = seed;
+                    for (int i = 0; i < operationsPerThread; ++i) {
+                        key = (key * 1103515245 + 12345) & Integer.MAX_VALUE;
+                        var k = key % keySpace;
+                        var value = cache.get(k);
+                        if (value.isPresent()) {
+                            // Every thread stores the same value for a key, so a hit must always return it
+                            Assert.assertEquals(k * 2, (int)value.get());
+                            ++hits;
+                        } else {
+                            cache.put(k, k * 2);
+                        }
+                    }
+                    return hits;
+                }));
+            }
+
+            var startTime = System.nanoTime();
+            start.countDown();
+            var hits = 0L;
+            for (var result : results) {
+                hits += result.get();
+            }
+            var elapsed = System.nanoTime() - startTime;
+
+            Assert.assertTrue(hits > 0);
+            Assert.assertTrue(cache.size() <= capacity);
+            return (double)threads * operationsPerThread * 1e9 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
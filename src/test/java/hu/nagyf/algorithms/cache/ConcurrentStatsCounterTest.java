@@ -0,0 +1,69 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentStatsCounterTest {
+
+    @Test
+    public void testSnapshot() {
+        var counter = new ConcurrentStatsCounter();
+        counter.recordHits(2);
+        counter.recordMisses(1);
+        counter.recordPut();
+        counter.recordEviction();
+        counter.recordLoadSuccess(100);
+        counter.recordLoadFailure(300);
+
+        var stats = counter.snapshot();
+        Assert.assertEquals(2, stats.hitCount());
+        Assert.assertEquals(1, stats.missCount());
+        Assert.assertEquals(1, stats.putCount());
+        Assert.assertEquals(1, stats.evictionCount());
+        Assert.assertEquals(1, stats.loadSuccessCount());
+        Assert.assertEquals(1, stats.loadFailureCount());
+        Assert.assertEquals(400, stats.totalLoadTime());
+        Assert.assertEquals(1, stats.loadTimeHistogram()[CacheStats.histogramBucket(100)]);
+        Assert.assertEquals(1, stats.loadTimeHistogram()[CacheStats.histogramBucket(300)]);
+    }
+
+    @Test
+    public void testDisabled() {
+        var counter = StatsCounter.disabled();
+        counter.recordHits(2);
+        counter.recordLoadSuccess(100);
+        Assert.assertEquals(CacheStats.empty(), counter.snapshot());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        var threads = 8;
+        var counter = new ConcurrentStatsCounter();
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            var results = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; ++t) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; ++i) {
+                        counter.recordHits(1);
+                        counter.recordLoadSuccess(i);
+                    }
+                }));
+            }
+            for (var result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var stats = counter.snapshot();
+        Assert.assertEquals(threads * 10_000, stats.hitCount());
+        Assert.assertEquals(threads * 10_000, stats.loadSuccessCount());
+    }
+}
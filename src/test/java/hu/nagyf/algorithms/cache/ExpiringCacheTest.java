@@ -0,0 +1,128 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+    private long time;
+    private Ticker ticker;
+
+    @Before
+    public void setUp() {
+        // Start close to the overflow point, the cache must only compare times by their difference
+        time = Long.MAX_VALUE - TimeUnit.MINUTES.toNanos(1);
+        ticker = () -> time;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new ExpiringCache<>(0, 1, TimeUnit.SECONDS, ticker);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroTimeToLive() {
+        new ExpiringCache<>(10, 0, TimeUnit.SECONDS, ticker);
+    }
+
+    @Test
+    public void testGetBeforeExpiry() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 10, TimeUnit.SECONDS, ticker);
+        cache.put(1, 42);
+        advance(9, TimeUnit.SECONDS);
+        Assert.assertEquals(42, (int)cache.get(1).get());
+    }
+
+    @Test
+    public void testGetAfterExpiry() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 10, TimeUnit.SECONDS, ticker);
+        cache.put(1, 42);
+        advance(10, TimeUnit.SECONDS);
+        Assert.assertTrue(cache.get(1).isEmpty());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiryWithinTick() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 1, TimeUnit.MILLISECONDS, ticker);
+        cache.put(1, 42);
+        advance(2, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    public void testPerEntryTimeToLive() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 10, TimeUnit.SECONDS, ticker);
+        cache.put(1, 42);
+        cache.put(2, 43, 1, TimeUnit.HOURS);
+        advance(30, TimeUnit.MINUTES);
+
+        Assert.assertTrue(cache.get(1).isEmpty());
+        Assert.assertEquals(43, (int)cache.get(2).get());
+    }
+
+    @Test
+    public void testPutRenewsTimeToLive() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 10, TimeUnit.SECONDS, ticker);
+        cache.put(1, 42);
+        advance(8, TimeUnit.SECONDS);
+        cache.put(1, 43);
+        advance(8, TimeUnit.SECONDS);
+        Assert.assertEquals(43, (int)cache.get(1).get());
+    }
+
+    @Test
+    public void testCleanUpReclaimsExpiredEntries() {
+        var cache = new ExpiringCache<Integer, Integer>(10_000, 1, TimeUnit.MINUTES, ticker);
+        for (int i = 0; i < 5_000; ++i) {
+            cache.put(i, i);
+        }
+        for (int i = 5_000; i < 10_000; ++i) {
+            cache.put(i, i, 1, TimeUnit.DAYS);
+        }
+
+        advance(2, TimeUnit.MINUTES);
+        cache.cleanUp();
+        Assert.assertEquals(5_000, cache.size());
+
+        advance(2, TimeUnit.DAYS);
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTimeToLiveBeyondWheelRange() {
+        var cache = new ExpiringCache<Integer, Integer>(10, 30, TimeUnit.DAYS, ticker);
+        cache.put(1, 42);
+
+        for (int day = 0; day < 29; ++day) {
+            advance(1, TimeUnit.DAYS);
+            cache.cleanUp();
+        }
+        Assert.assertEquals(42, (int)cache.get(1).get());
+
+        advance(1, TimeUnit.DAYS);
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCapacity() {
+        var cache = new ExpiringCache<Integer, Integer>(2, 10, TimeUnit.SECONDS, ticker);
+        cache.put(1, 42);
+        cache.put(2, 0);
+        cache.get(1);
+        cache.put(3, 10);
+
+        Assert.assertTrue(cache.get(2).isEmpty());
+        Assert.assertEquals(42, (int)cache.get(1).get());
+        Assert.assertEquals(10, (int)cache.get(3).get());
+    }
+
+    private void advance(final long duration, final TimeUnit unit) {
+        time += unit.toNanos(duration);
+    }
+}
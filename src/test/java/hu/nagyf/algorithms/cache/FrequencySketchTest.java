@@ -0,0 +1,46 @@
+package hu.nagyf.algorithms.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void testUnknownKey() {
+        var sketch = new FrequencySketch<String>(64);
+        Assert.assertEquals(0, sketch.frequency("test"));
+    }
+
+    @Test
+    public void testIncrement() {
+        var sketch = new FrequencySketch<String>(64);
+        sketch.increment("test");
+        sketch.increment("test");
+        sketch.increment("test");
+        Assert.assertEquals(3, sketch.frequency("test"));
+    }
+
+    @Test
+    public void testSaturation() {
+        var sketch = new FrequencySketch<String>(1024);
+        for (int i = 0; i < 100; ++i) {
+            sketch.increment("test");
+        }
+        Assert.assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency("test"));
+    }
+
+    @Test
+    public void testAging() {
+        var sketch = new FrequencySketch<Integer>(64);
+        for (int i = 0; i < 8; ++i) {
+            sketch.increment(-1);
+        }
+        Assert.assertEquals(8, sketch.frequency(-1));
+
+        // Reaching the sample size of 10 * 64 increments halves every counter
+        for (int i = 0; i < 640; ++i) {
+            sketch.increment(i);
+        }
+        Assert.assertTrue(sketch.frequency(-1) < 8);
+    }
+}
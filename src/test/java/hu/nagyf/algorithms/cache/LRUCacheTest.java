@@ -1,5 +1,11 @@
 package hu.nagyf.algorithms.cache;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -62,4 +68,278 @@ public class LRUCacheTest {
         Assert.assertEquals(42, (int)cache.get(1).get());
         Assert.assertEquals(10, (int)cache.get(3).get());
     }
+
+    @Test
+    public void testPutOverwrite() {
+        var cache = new LRUCache<Integer, Integer>(2);
+        cache.put(1, 42);
+        cache.put(1, 43);
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(43, (int)cache.get(1).get());
+    }
+
+    @Test
+    public void testPutExistingKeyRefreshesRecency() {
+        var cache = new LRUCache<Integer, Integer>(2);
+        cache.put(1, 42);
+        cache.put(2, 0);
+        cache.put(1, 43);
+        cache.put(3, 10);
+
+        Assert.assertTrue(cache.get(2).isEmpty());
+        Assert.assertEquals(43, (int)cache.get(1).get());
+        Assert.assertEquals(10, (int)cache.get(3).get());
+    }
+
+    @Test
+    public void testEvictionOrder() {
+        var capacity = 1000;
+        var cache = new LRUCache<Integer, Integer>(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            cache.put(i, i);
+        }
+
+        // Touch the even keys, so the odd keys become the least recently used ones
+        for (int i = 0; i < capacity; i += 2) {
+            cache.get(i);
+        }
+
+        for (int i = capacity; i < capacity + capacity / 2; ++i) {
+            cache.put(i, i);
+        }
+
+        Assert.assertEquals(capacity, cache.size());
+        for (int i = 0; i < capacity; ++i) {
+            Assert.assertEquals(i % 2 == 0, cache.get(i).isPresent());
+        }
+    }
+
+    @Test
+    public void testGetWithLoader() {
+        var cache = new LRUCache<Integer, Integer>(2);
+        cache.put(1, 42);
+
+        Assert.assertEquals(42, (int)cache.get(1, key -> 0));
+        Assert.assertEquals(4, (int)cache.get(2, key -> key * 2));
+        Assert.assertEquals(4, (int)cache.get(2).get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroMaximumWeight() {
+        new LRUCache<String, String>(0L, (key, value) -> value.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        var cache = new LRUCache<String, String>(10L, (key, value) -> -1);
+        cache.put("a", "b");
+    }
+
+    @Test
+    public void testWeightedEviction() {
+        var cache = new LRUCache<String, String>(10L, (key, value) -> value.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("c", "cc");
+        cache.get("a");
+        Assert.assertEquals(10, cache.weightedSize());
+
+        // Both b and c must go to make room for the new value, a is the most recently used
+        cache.put("d", "dddddd");
+        Assert.assertTrue(cache.get("b").isEmpty());
+        Assert.assertTrue(cache.get("c").isEmpty());
+        Assert.assertEquals("aaaa", cache.get("a").get());
+        Assert.assertEquals("dddddd", cache.get("d").get());
+        Assert.assertEquals(10, cache.weightedSize());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testWeightedOverwrite() {
+        var cache = new LRUCache<String, String>(10L, (key, value) -> value.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("b", "bbbbbbb");
+
+        Assert.assertTrue(cache.get("a").isEmpty());
+        Assert.assertEquals("bbbbbbb", cache.get("b").get());
+        Assert.assertEquals(7, cache.weightedSize());
+    }
+
+    @Test
+    public void testOversizedEntryIsRejected() {
+        var cache = new LRUCache<String, String>(10L, (key, value) -> value.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("b", "bbbbbbbbbbbb");
+        cache.put("c", "cccccccccccc");
+
+        Assert.assertEquals("aaaa", cache.get("a").get());
+        Assert.assertTrue(cache.get("b").isEmpty());
+        Assert.assertTrue(cache.get("c").isEmpty());
+        Assert.assertEquals(4, cache.weightedSize());
+    }
+
+    @Test
+    public void testStats() {
+        var cache = new LRUCache<Integer, Integer>(2, new ConcurrentStatsCounter());
+        cache.put(1, 42);
+        cache.put(2, 0);
+        cache.get(1);
+        cache.get(3);
+        cache.put(3, 10);
+
+        var stats = cache.stats();
+        Assert.assertEquals(1, stats.hitCount());
+        Assert.assertEquals(1, stats.missCount());
+        Assert.assertEquals(3, stats.putCount());
+        Assert.assertEquals(1, stats.evictionCount());
+    }
+
+    @Test
+    public void testPeek() {
+        var cache = new LRUCache<Integer, Integer>(2, new ConcurrentStatsCounter());
+        cache.put(1, 10);
+        cache.put(2, 20);
+
+        Assert.assertEquals(10, (int)cache.peek(1).get());
+        Assert.assertTrue(cache.peek(3).isEmpty());
+        Assert.assertEquals(0, cache.stats().requestCount());
+
+        // Peeking did not use 1, so it is still the least recently used
+        cache.put(3, 30);
+        Assert.assertTrue(cache.peek(1).isEmpty());
+    }
+
+    @Test
+    public void testStatsDisabled() {
+        var cache = new LRUCache<Integer, Integer>(2);
+        cache.put(1, 42);
+        cache.get(1);
+        Assert.assertEquals(CacheStats.empty(), cache.stats());
+    }
+
+    @Test
+    public void testInvalidate() {
+        var cache = new LRUCache<Integer, Integer>(2, new ConcurrentStatsCounter());
+        cache.put(1, 42);
+        cache.invalidate(1);
+        cache.invalidate(2);
+
+        Assert.assertTrue(cache.get(1).isEmpty());
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void testGetAll() {
+        var cache = new LRUCache<Integer, Integer>(3, new ConcurrentStatsCounter());
+        cache.put(1, 10);
+        cache.put(2, 20);
+        cache.put(3, 30);
+
+        Assert.assertEquals(Map.of(1, 10, 2, 20), cache.getAll(List.of(1, 2, 4)));
+        Assert.assertEquals(2, cache.stats().hitCount());
+        Assert.assertEquals(1, cache.stats().missCount());
+
+        // 1 and 2 were used by the batch, so 3 is the least recently used
+        cache.put(4, 40);
+        Assert.assertTrue(cache.get(3).isEmpty());
+    }
+
+    @Test
+    public void testGetAllWithDuplicateKeys() {
+        var cache = new LRUCache<Integer, Integer>(3, new ConcurrentStatsCounter());
+        cache.put(1, 10);
+
+        Assert.assertEquals(Map.of(1, 10), cache.getAll(List.of(1, 1, 2, 2)));
+        Assert.assertEquals(2, cache.stats().hitCount());
+        Assert.assertEquals(2, cache.stats().missCount());
+    }
+
+    @Test
+    public void testGetAllWithBatchLoader() {
+        var cache = new LRUCache<Integer, Integer>(4);
+        cache.put(1, 10);
+
+        var result = cache.getAll(List.of(1, 2, 3), missing -> {
+            Assert.assertEquals(Set.of(2, 3), missing);
+            return Map.of(2, 20);
+        });
+
+        Assert.assertEquals(Map.of(1, 10, 2, 20), result);
+        Assert.assertEquals(20, cache.get(2).get().intValue());
+        Assert.assertTrue(cache.get(3).isEmpty());
+    }
+
+    @Test
+    public void testPutAllEvictsOnce() {
+        var evicted = new ArrayList<Integer>();
+        var cache = new LRUCache<Integer, Integer>(2) {
+            @Override
+            protected void onEviction(final Integer key, final Integer value) {
+                evicted.add(key);
+            }
+        };
+        cache.put(1, 10);
+        cache.putAll(Map.of(2, 20, 3, 30));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(List.of(1), evicted);
+        Assert.assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        var cache = new LRUCache<Integer, Integer>(3);
+        cache.putAll(Map.of(1, 10, 2, 20, 3, 30));
+        cache.invalidateAll(List.of(1, 3, 5));
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(20, cache.get(2).get().intValue());
+    }
+
+    @Test
+    public void testGetLatencyDoesNotGrowWithCapacity() {
+        var small = hitLatency(1_000);
+        for (var capacity : new int[] {10_000, 100_000, 1_000_000}) {
+            var large = hitLatency(capacity);
+            Assert.assertTrue("1k: " + small + " ns, " + capacity + ": " + large + " ns", large < 4 * small);
+        }
+    }
+
+    /**
+     * Returns the best time of a few rounds of the same number of hits, in nanoseconds. The hits go to the same
+     * number of keys spread over the whole cache at every capacity, so the CPU caches hold the same working set
+     * and only the cost of the lookup itself may depend on the capacity.
+     */
+    private static long hitLatency(final int capacity) {
+        var cache = new LRUCache<Integer, Integer>(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            cache.put(i, i);
+        }
+
+        var random = new Random(42);
+        var hotKeys = new Integer[100];
+        for (int i = 0; i < hotKeys.length; ++i) {
+            hotKeys[i] = random.nextInt(capacity);
+        }
+        var keys = new Integer[1_000_000];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = hotKeys[random.nextInt(hotKeys.length)];
+        }
+
+        var best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; ++round) {
+            var start = System.nanoTime();
+            for (var key : keys) {
+                if (cache.get(key).isEmpty()) {
+                    Assert.fail();
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
 }
@@ -0,0 +1,149 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadingCacheTest {
+
+    @Test
+    public void testLoadMissingValue() {
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        Assert.assertEquals(84, (int)cache.get(42, key -> key * 2));
+        Assert.assertEquals(84, (int)cache.get(42).get());
+    }
+
+    @Test
+    public void testCachedValueIsNotLoaded() {
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        cache.put(42, 1);
+        Assert.assertEquals(1, (int)cache.get(42, key -> {
+            throw new AssertionError("The loader must not be called");
+        }));
+    }
+
+    @Test
+    public void testNullIsNotCached() {
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        Assert.assertNull(cache.get(42, key -> null));
+        Assert.assertTrue(cache.get(42).isEmpty());
+    }
+
+    @Test
+    public void testFailureIsNotCached() {
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        try {
+            cache.get(42, key -> {
+                throw new IllegalStateException("Backend is down");
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Backend is down", e.getMessage());
+        }
+
+        Assert.assertEquals(84, (int)cache.get(42, key -> key * 2));
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        var threads = 16;
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        var loads = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < threads; ++i) {
+                results.add(executor.submit(() -> cache.get(42, key -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return key * 2;
+                })));
+            }
+
+            // Give every thread the chance to miss the key before the load finishes
+            Thread.sleep(200);
+            release.countDown();
+
+            for (var result : results) {
+                Assert.assertEquals(84, (int)result.get());
+            }
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailurePropagatesToEveryWaiter() throws Exception {
+        var threads = 8;
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10));
+        var release = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            var results = new ArrayList<Future<String>>();
+            for (int i = 0; i < threads; ++i) {
+                results.add(executor.submit(() -> {
+                    try {
+                        cache.get(42, key -> {
+                            await(release);
+                            throw new IllegalStateException("Backend is down");
+                        });
+                        return "loaded";
+                    } catch (IllegalStateException e) {
+                        return e.getMessage();
+                    }
+                }));
+            }
+
+            Thread.sleep(200);
+            release.countDown();
+
+            for (var result : results) {
+                Assert.assertEquals("Backend is down", result.get());
+            }
+            Assert.assertTrue(cache.get(42).isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStats() {
+        var counter = new ConcurrentStatsCounter();
+        var cache = new LoadingCache<Integer, Integer>(new ConcurrentLRUCache<>(10, 1, counter), counter);
+        cache.get(1, key -> key);
+        cache.get(1, key -> key);
+        try {
+            cache.get(2, key -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        var stats = cache.stats();
+        Assert.assertEquals(1, stats.hitCount());
+        Assert.assertEquals(2, stats.missCount());
+        Assert.assertEquals(1, stats.loadSuccessCount());
+        Assert.assertEquals(1, stats.loadFailureCount());
+        Assert.assertEquals(2, Arrays.stream(stats.loadTimeHistogram()).sum());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
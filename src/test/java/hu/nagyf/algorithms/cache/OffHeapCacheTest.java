@@ -0,0 +1,233 @@
+package hu.nagyf.algorithms.cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Random;
+
+import hu.nagyf.algorithms.serialization.Serializer;
+import hu.nagyf.algorithms.serialization.Serializers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffHeapCacheTest {
+
+    private static final int SLAB_SIZE = 1024;
+
+    @Test
+    public void testGetEmpty() {
+        try (var cache = new OffHeapCache<>(1 << 20, Serializers.integers(), Serializers.strings())) {
+            Assert.assertTrue(cache.get(10).isEmpty());
+        }
+    }
+
+    @Test
+    public void testPutGet() {
+        try (var cache = new OffHeapCache<>(1 << 20, Serializers.integers(), Serializers.strings())) {
+            cache.put(1, "árvíztűrő tükörfúrógép");
+            Assert.assertEquals("árvíztűrő tükörfúrógép", cache.get(1).get());
+        }
+    }
+
+    @Test
+    public void testPutOverwrite() {
+        try (var cache = cache(4 * SLAB_SIZE)) {
+            cache.put(1, "short");
+            cache.put(1, "a bit longer");
+            cache.put(1, "x".repeat(500));
+            Assert.assertEquals("x".repeat(500), cache.get(1).get());
+            Assert.assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void testOversizedValueIsRejected() {
+        try (var cache = cache(4 * SLAB_SIZE)) {
+            cache.put(1, "short");
+            cache.put(1, "x".repeat(SLAB_SIZE + 1));
+            Assert.assertTrue(cache.get(1).isEmpty());
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testEvictionWithinSizeClass() {
+        // A single slab cut into 16 chunks of 64 bytes
+        try (var cache = cache(SLAB_SIZE)) {
+            for (int i = 0; i < 16; ++i) {
+                cache.put(i, "value" + i);
+            }
+            cache.get(0);
+            cache.put(16, "value16");
+
+            Assert.assertEquals(16, cache.size());
+            Assert.assertEquals("value0", cache.get(0).get());
+            Assert.assertTrue(cache.get(1).isEmpty());
+            Assert.assertEquals("value16", cache.get(16).get());
+            Assert.assertEquals(SLAB_SIZE, cache.allocatedMemory());
+        }
+    }
+
+    @Test
+    public void testMemoryIsReused() {
+        try (var cache = cache(2 * SLAB_SIZE)) {
+            for (int i = 0; i < 10_000; ++i) {
+                cache.put(i % 100, "value" + i);
+            }
+            Assert.assertEquals(2 * SLAB_SIZE, cache.allocatedMemory());
+            Assert.assertEquals("value9999", cache.get(99).get());
+        }
+    }
+
+    @Test
+    public void testStarvedSizeClassTakesOverSlab() {
+        // The only slab is taken by the 64 byte class, so it is handed over to the 256 byte class
+        try (var cache = cache(SLAB_SIZE)) {
+            cache.put(1, "small");
+            cache.put(2, "x".repeat(200));
+            Assert.assertEquals("x".repeat(200), cache.get(2).get());
+            Assert.assertTrue(cache.get(1).isEmpty());
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals(1, cache.stats().evictionCount());
+
+            cache.put(1, "small");
+            Assert.assertEquals("small", cache.get(1).get());
+            Assert.assertTrue(cache.get(2).isEmpty());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSlabIsReassigned() {
+        try (var cache = cache(2 * SLAB_SIZE)) {
+            // One slab for the 64 byte class and one for the 256 byte class
+            for (int i = 0; i < 16; ++i) {
+                cache.put(i, "value" + i);
+            }
+            for (int i = 100; i < 104; ++i) {
+                cache.put(i, "y".repeat(150));
+            }
+            for (int i = 0; i < 16; ++i) {
+                cache.get(i);
+            }
+
+            // The 512 byte class has no slab; the slab of the 256 byte class was not used for the longest time
+            cache.put(200, "z".repeat(400));
+            Assert.assertEquals("z".repeat(400), cache.get(200).get());
+            for (int i = 100; i < 104; ++i) {
+                Assert.assertTrue(cache.get(i).isEmpty());
+            }
+            for (int i = 0; i < 16; ++i) {
+                Assert.assertEquals("value" + i, cache.get(i).get());
+            }
+            Assert.assertEquals(17, cache.size());
+            Assert.assertEquals(2 * SLAB_SIZE, cache.allocatedMemory());
+        }
+    }
+
+    @Test
+    public void testShiftingValueSizes() {
+        try (var cache = cache(8 * SLAB_SIZE)) {
+            for (int i = 0; i < 1000; ++i) {
+                cache.put(i, "value" + i);
+            }
+
+            // Every slab was taken by the 64 byte class, the larger values still find room
+            for (int i = 0; i < 1000; ++i) {
+                cache.put(i, "x".repeat(400) + i);
+                Assert.assertEquals("x".repeat(400) + i, cache.get(i).get());
+            }
+            Assert.assertEquals(8 * SLAB_SIZE, cache.allocatedMemory());
+        }
+    }
+
+    @Test
+    public void testSizeClassChangeKeepsNewValue() {
+        try (var cache = cache(SLAB_SIZE)) {
+            cache.put(1, "small");
+            cache.put(1, "x".repeat(200));
+            Assert.assertEquals("x".repeat(200), cache.get(1).get());
+            Assert.assertEquals(1, cache.size());
+
+            cache.put(1, "small again");
+            Assert.assertEquals("small again", cache.get(1).get());
+            Assert.assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void testVariableLengthKeys() {
+        var random = new Random(42);
+        var expected = new HashMap<String, String>();
+        try (var cache = new OffHeapCache<String, String>(1 << 20, SLAB_SIZE, Serializers.strings(),
+                Serializers.strings(), StatsCounter.disabled())) {
+            for (int i = 0; i < 100_000; ++i) {
+                var key = "key" + "k".repeat(random.nextInt(5)) + random.nextInt(2000);
+                if (random.nextInt(4) == 0) {
+                    cache.invalidate(key);
+                    expected.remove(key);
+                } else {
+                    cache.put(key, "value" + i);
+                    expected.put(key, "value" + i);
+                }
+            }
+
+            Assert.assertEquals(expected.size(), cache.size());
+            for (var entry : expected.entrySet()) {
+                Assert.assertEquals(entry.getValue(), cache.peek(entry.getKey()).get());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        try (var cache = cache(SLAB_SIZE)) {
+            cache.put(null, "value");
+        }
+    }
+
+    @Test
+    public void testFailedSerializationLeavesNoEntry() {
+        var failing = new Serializer<String>() {
+            @Override
+            public int serializedSize(final String value) {
+                return value.length();
+            }
+
+            @Override
+            public void serialize(final String value, final ByteBuffer target) {
+                throw new IllegalArgumentException("Cannot serialize");
+            }
+
+            @Override
+            public String deserialize(final ByteBuffer source, final int length) {
+                return null;
+            }
+        };
+
+        try (var cache = new OffHeapCache<Integer, String>(SLAB_SIZE, SLAB_SIZE, Serializers.integers(), failing,
+                StatsCounter.disabled())) {
+            try {
+                cache.put(1, "value");
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals(0, cache.size());
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        var cache = cache(SLAB_SIZE);
+        cache.close();
+        cache.get(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSlabSize() {
+        new OffHeapCache<>(SLAB_SIZE, 1000, Serializers.integers(), Serializers.strings(), StatsCounter.disabled());
+    }
+
+    private static OffHeapCache<Integer, String> cache(final long maximumMemory) {
+        return new OffHeapCache<>(maximumMemory, SLAB_SIZE, Serializers.integers(), Serializers.strings(),
+                new ConcurrentStatsCounter());
+    }
+}
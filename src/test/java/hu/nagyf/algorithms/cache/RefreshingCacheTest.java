@@ -0,0 +1,181 @@
+package hu.nagyf.algorithms.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RefreshingCacheTest {
+
+    private AtomicLong time;
+    private ArrayDeque<Runnable> tasks;
+    private AtomicInteger loads;
+    private RefreshingCache<String, String> cache;
+
+    @Before
+    public void setUp() {
+        time = new AtomicLong();
+        tasks = new ArrayDeque<>();
+        loads = new AtomicInteger();
+        cache = new RefreshingCache<>(10, 1, 3, TimeUnit.SECONDS, key -> key + loads.incrementAndGet(), tasks::add,
+                time::get, new ConcurrentStatsCounter());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExpirationBeforeRefresh() {
+        new RefreshingCache<String, String>(10, 2, 1, TimeUnit.SECONDS, key -> key, Runnable::run);
+    }
+
+    @Test
+    public void testFreshEntryIsNotReloaded() {
+        cache.put("a", "value");
+        advance(500);
+
+        Assert.assertEquals("value", cache.get("a").get());
+        Assert.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testOldValueIsServedWhileReloading() {
+        cache.put("a", "value");
+        advance(1500);
+
+        Assert.assertEquals("value", cache.get("a").get());
+        Assert.assertEquals("value", cache.get("a").get());
+
+        // Only one reload is started for the key
+        Assert.assertEquals(1, tasks.size());
+        runTasks();
+
+        Assert.assertEquals("a1", cache.get("a").get());
+        Assert.assertTrue(tasks.isEmpty());
+        Assert.assertEquals(1, cache.stats().loadSuccessCount());
+    }
+
+    @Test
+    public void testReloadedEntryIsFreshAgain() {
+        cache.put("a", "value");
+        advance(1500);
+        cache.get("a");
+        runTasks();
+
+        // The reloaded value was written 1.5 s after the original, so it outlives the original expiration
+        advance(2000);
+        Assert.assertEquals("a1", cache.get("a").get());
+    }
+
+    @Test
+    public void testFailedReloadKeepsOldValue() {
+        var failing = new RefreshingCache<String, String>(10, 1, 3, TimeUnit.SECONDS, key -> {
+            throw new IllegalStateException("Backend is down");
+        }, tasks::add, time::get, new ConcurrentStatsCounter());
+        failing.put("a", "value");
+        advance(1500);
+
+        Assert.assertEquals("value", failing.get("a").get());
+        runTasks();
+        Assert.assertEquals("value", failing.get("a").get());
+
+        // The next read tries again
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(1, failing.stats().loadFailureCount());
+    }
+
+    @Test
+    public void testExpiredEntryIsNotReturned() {
+        cache.put("a", "value");
+        advance(3000);
+
+        Assert.assertTrue(cache.get("a").isEmpty());
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.stats().evictionCount());
+        Assert.assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testPutDuringReloadWins() {
+        cache.put("a", "value");
+        advance(1500);
+        cache.get("a");
+        cache.put("a", "newer");
+        runTasks();
+
+        Assert.assertEquals("newer", cache.get("a").get());
+    }
+
+    @Test
+    public void testInvalidateDuringReload() {
+        cache.put("a", "value");
+        advance(1500);
+        cache.get("a");
+        cache.invalidate("a");
+        runTasks();
+
+        Assert.assertTrue(cache.get("a").isEmpty());
+    }
+
+    @Test
+    public void testRejectedReloadKeepsOldValue() {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException();
+        };
+        var rejected = new RefreshingCache<String, String>(10, 1, 3, TimeUnit.SECONDS, key -> key, rejecting,
+                time::get, StatsCounter.disabled());
+        rejected.put("a", "value");
+        advance(1500);
+
+        Assert.assertEquals("value", rejected.get("a").get());
+        Assert.assertEquals("value", rejected.get("a").get());
+    }
+
+    @Test
+    public void testPutDuringExpirationIsKept() {
+        var racingCache = new RefreshingCache<RacingKey, String>(10, 1, 3, TimeUnit.SECONDS, key -> "loaded",
+                tasks::add, time::get, new ConcurrentStatsCounter());
+        var key = new RacingKey();
+        racingCache.put(key, "old");
+        advance(5000);
+
+        // Another thread stores a new value after the read cleared the expired one, but before it removed the entry
+        key.onRemoval = () -> racingCache.put(key, "new");
+        Assert.assertTrue(racingCache.get(key).isEmpty());
+        Assert.assertNull(key.onRemoval);
+
+        Assert.assertEquals("new", racingCache.get(key).get());
+        Assert.assertEquals(1, racingCache.size());
+    }
+
+    private void advance(final long millis) {
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    /**
+     * A key that runs an action once, when the cache hashes it to remove its entry.
+     */
+    private static class RacingKey {
+        Runnable onRemoval;
+
+        @Override
+        public int hashCode() {
+            if (onRemoval != null && StackWalker.getInstance()
+                    .walk(frames -> frames.anyMatch(frame -> frame.getMethodName().equals("invalidate")))) {
+                var action = onRemoval;
+                onRemoval = null;
+                action.run();
+            }
+            return 42;
+        }
+    }
+}
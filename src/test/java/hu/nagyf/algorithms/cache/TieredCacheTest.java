@@ -0,0 +1,121 @@
+package hu.nagyf.algorithms.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import hu.nagyf.algorithms.serialization.Serializers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TieredCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutGet() throws IOException {
+        try (var cache = cache(10, 4096, 1024)) {
+            cache.put(1, "one");
+            Assert.assertEquals("one", cache.get(1).get());
+            Assert.assertTrue(cache.get(2).isEmpty());
+        }
+    }
+
+    @Test
+    public void testEvictedEntriesAreDemoted() throws IOException {
+        try (var cache = cache(2, 4096, 1024)) {
+            cache.put(1, "one");
+            cache.put(2, "two");
+            cache.put(3, "three");
+
+            Assert.assertEquals(2, cache.memorySize());
+            Assert.assertEquals(1, cache.diskSize());
+            Assert.assertEquals("one", cache.get(1).get());
+
+            // Promoting 1 demoted 2, the least recently used entry in memory
+            Assert.assertEquals(2, cache.memorySize());
+            Assert.assertEquals(1, cache.diskSize());
+            Assert.assertEquals("two", cache.get(2).get());
+            Assert.assertEquals("three", cache.get(3).get());
+        }
+    }
+
+    @Test
+    public void testPutReplacesDemotedEntry() throws IOException {
+        try (var cache = cache(1, 4096, 1024)) {
+            cache.put(1, "one");
+            cache.put(2, "two");
+            cache.put(1, "uno");
+
+            Assert.assertEquals("uno", cache.get(1).get());
+            Assert.assertEquals("two", cache.get(2).get());
+        }
+    }
+
+    @Test
+    public void testOldestSegmentIsDropped() throws IOException {
+        try (var cache = cache(1, 1024, 256)) {
+            for (int i = 0; i < 200; ++i) {
+                cache.put(i, "value" + i);
+            }
+
+            Assert.assertTrue(cache.diskSize() < 199);
+            Assert.assertTrue(cache.get(0).isEmpty());
+            Assert.assertEquals("value198", cache.get(198).get());
+            Assert.assertTrue(Files.list(folder.getRoot().toPath()).count() <= 4);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        try (var cache = cache(1, 64 * 1024, 256)) {
+            for (int i = 0; i < 40; ++i) {
+                cache.put(i, "value" + i);
+            }
+
+            // Promote most of the entries of the first segments, leaving dead records behind
+            for (int i = 0; i < 30; ++i) {
+                if (i % 5 != 0) {
+                    cache.get(i);
+                    cache.put(1000 + i, "filler");
+                }
+            }
+
+            var files = Files.list(folder.getRoot().toPath()).count();
+            var compacted = false;
+            while (cache.compact()) {
+                compacted = true;
+            }
+            Assert.assertTrue(compacted);
+            Assert.assertTrue(Files.list(folder.getRoot().toPath()).count() < files);
+
+            for (int i = 0; i < 40; ++i) {
+                Assert.assertEquals("value" + i, cache.get(i).get());
+            }
+        }
+    }
+
+    @Test
+    public void testCloseDeletesFiles() throws IOException {
+        var cache = cache(1, 4096, 1024);
+        cache.put(1, "one");
+        cache.put(2, "two");
+        Assert.assertEquals(1, Files.list(folder.getRoot().toPath()).count());
+
+        cache.close();
+        Assert.assertEquals(0, Files.list(folder.getRoot().toPath()).count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooSmallDiskTier() {
+        new TieredCache<>(1, folder.getRoot().toPath(), 512, 1024, Serializers.integers(), Serializers.strings(),
+                StatsCounter.disabled());
+    }
+
+    private TieredCache<Integer, String> cache(final int capacity, final long diskSize, final int segmentSize) {
+        return new TieredCache<>(capacity, folder.getRoot().toPath(), diskSize, segmentSize,
+                Serializers.integers(), Serializers.strings(), new ConcurrentStatsCounter());
+    }
+}
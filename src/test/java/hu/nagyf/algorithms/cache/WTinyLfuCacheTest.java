@@ -0,0 +1,124 @@
+package hu.nagyf.algorithms.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WTinyLfuCacheTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new WTinyLfuCache<>(0);
+    }
+
+    @Test
+    public void testGetEmpty() {
+        var cache = new WTinyLfuCache<Integer, Integer>(10);
+        Assert.assertTrue(cache.get(10).isEmpty());
+    }
+
+    @Test
+    public void testPutGet() {
+        var cache = new WTinyLfuCache<Integer, Integer>(10);
+        cache.put(20, 42);
+        Assert.assertEquals(42, (int)cache.get(20).get());
+    }
+
+    @Test
+    public void testPutOverwrite() {
+        var cache = new WTinyLfuCache<Integer, Integer>(10);
+        cache.put(20, 42);
+        cache.put(20, 43);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(43, (int)cache.get(20).get());
+    }
+
+    @Test
+    public void testSingleEntryCapacity() {
+        var cache = new WTinyLfuCache<Integer, Integer>(1);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(2, (int)cache.get(2).get());
+    }
+
+    @Test
+    public void testCapacityIsNeverExceeded() {
+        var cache = new WTinyLfuCache<Integer, Integer>(100);
+        for (int i = 0; i < 10_000; ++i) {
+            cache.put(i % 300, i);
+            cache.get(i % 7);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        var cache = new WTinyLfuCache<Integer, Integer>(100);
+        for (int round = 0; round < 5; ++round) {
+            for (int i = 0; i < 50; ++i) {
+                cache.put(i, i);
+                cache.get(i);
+            }
+        }
+
+        // A scan over keys that are only used once
+        for (int i = 1000; i < 1500; ++i) {
+            cache.put(i, i);
+        }
+
+        for (int i = 0; i < 50; ++i) {
+            Assert.assertEquals(i, (int)cache.get(i).get());
+        }
+    }
+
+    @Test
+    public void testScanResistantHitRatio() {
+        var capacity = 100;
+        var lru = new LRUCache<Integer, Integer>(capacity);
+        var tinyLfu = new WTinyLfuCache<Integer, Integer>(capacity);
+
+        var lruHits = 0;
+        var tinyLfuHits = 0;
+        var scanKey = 1000;
+        for (int i = 0; i < 20_000; ++i) {
+            // A hot set of 50 keys interleaved with a scan of keys that are never used again
+            var hotKey = i % 50;
+            lruHits += access(lru, hotKey);
+            tinyLfuHits += access(tinyLfu, hotKey);
+            for (int j = 0; j < 2; ++j) {
+                access(lru, scanKey);
+                access(tinyLfu, scanKey);
+                ++scanKey;
+            }
+        }
+
+        Assert.assertTrue(tinyLfuHits > 19_000);
+        Assert.assertTrue(tinyLfuHits > lruHits);
+    }
+
+    private static int access(final Cache<Integer, Integer> cache, final int key) {
+        if (cache.get(key).isPresent()) {
+            return 1;
+        }
+        cache.put(key, key);
+        return 0;
+    }
+
+    @Test
+    public void testInvalidate() {
+        var cache = new WTinyLfuCache<Integer, Integer>(100);
+        for (int i = 0; i < 10; ++i) {
+            cache.put(i, i);
+        }
+        cache.get(5);
+        cache.invalidate(5);
+        cache.invalidate(9);
+        cache.invalidate(42);
+
+        Assert.assertEquals(8, cache.size());
+        Assert.assertTrue(cache.get(5).isEmpty());
+        Assert.assertTrue(cache.get(9).isEmpty());
+        Assert.assertEquals(0, cache.get(0).get().intValue());
+    }
+}
@@ -0,0 +1,64 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hu.nagyf.algorithms.cache.LRUCache;
+
+public class CacheSimulatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCyclicTrace() throws IOException {
+        var file = folder.newFile().toPath();
+        Trace.write(file, LongStream.range(0, 10_000).map(i -> i % 100).iterator());
+
+        var results = new CacheSimulator(new Trace(file), Map.of("LRU", LRUCache::new)).run(50, 100);
+        Assert.assertEquals(2, results.size());
+
+        // A loop larger than the cache always misses with LRU, a loop that fits only misses the first time
+        var small = results.get(0);
+        Assert.assertEquals(50, small.capacity());
+        Assert.assertEquals(10_000, small.accessCount());
+        Assert.assertEquals(0, small.hitCount());
+        Assert.assertEquals(10_000 - 50, small.evictionCount());
+
+        var large = results.get(1);
+        Assert.assertEquals(100, large.capacity());
+        Assert.assertEquals(0.99, large.hitRatio(), 1e-9);
+        Assert.assertEquals(0, large.evictionCount());
+    }
+
+    @Test
+    public void testDefaultPolicies() throws IOException {
+        var random = new Random(42);
+        var file = folder.newFile().toPath();
+
+        // Skewed accesses: half of them go to 1% of the keys
+        Trace.write(file, LongStream.range(0, 50_000)
+                .map(i -> random.nextBoolean() ? random.nextInt(100) : random.nextInt(10_000)).iterator());
+
+        var results = new CacheSimulator(new Trace(file), CacheSimulator.defaultPolicies()).run(200, 1000);
+        Assert.assertEquals(8, results.size());
+        for (var result : results) {
+            Assert.assertEquals(50_000, result.accessCount());
+            Assert.assertTrue(result.hitRatio() > 0.3);
+            Assert.assertTrue(result.evictionCount() > 0);
+            Assert.assertTrue(result.nanosPerOperation() > 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoPolicies() throws IOException {
+        new CacheSimulator(new Trace(folder.newFile().toPath()), Map.of());
+    }
+}
@@ -0,0 +1,64 @@
+package hu.nagyf.algorithms.cache.simulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TraceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadAcrossWindows() throws IOException {
+        var file = folder.newFile().toPath();
+        Trace.write(file, LongStream.range(0, 1000).map(i -> i * 31 - 500).iterator());
+
+        // 10 keys per window, so the keys are read through 100 separate mappings
+        var trace = new Trace(file, 10 * Long.BYTES);
+        var keys = new ArrayList<Long>();
+        trace.forEach(keys::add);
+
+        Assert.assertEquals(1000, trace.length());
+        Assert.assertEquals(1000, keys.size());
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(i * 31L - 500, (long)keys.get(i));
+        }
+    }
+
+    @Test
+    public void testLastWindowIsPartial() throws IOException {
+        var file = folder.newFile().toPath();
+        Trace.write(file, LongStream.of(1, 2, 3).iterator());
+
+        var keys = new ArrayList<Long>();
+        new Trace(file, 2 * Long.BYTES).forEach(keys::add);
+        Assert.assertEquals(List.of(1L, 2L, 3L), keys);
+    }
+
+    @Test
+    public void testEmptyTrace() throws IOException {
+        var trace = new Trace(folder.newFile().toPath());
+        trace.forEach(key -> Assert.fail());
+        Assert.assertEquals(0, trace.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedFile() throws IOException {
+        var file = folder.newFile().toPath();
+        Files.write(file, new byte[12]);
+        new Trace(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindowSize() throws IOException {
+        new Trace(folder.newFile().toPath(), 12);
+    }
+}
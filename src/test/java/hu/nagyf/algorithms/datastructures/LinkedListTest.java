@@ -278,6 +278,24 @@ public class LinkedListTest {
         Assert.assertEquals(10, (int)list.first().get());
     }
 
+    @Test
+    public void removeAtUpdatesSize() {
+        LinkedList<Integer> list = new LinkedList<>();
+        list.append(10);
+        list.append(20);
+        list.removeAt(1);
+        Assert.assertEquals(1, list.size());
+        Assert.assertEquals(10, (int)list.last().get());
+    }
+
+    @Test
+    public void removeAtOutOfBounds() {
+        LinkedList<Integer> list = new LinkedList<>();
+        list.append(10);
+        Assert.assertTrue(list.removeAt(1).isEmpty());
+        Assert.assertEquals(1, list.size());
+    }
+
     @Test
     public void testIteratorEmpty() {
         var list = new LinkedList<String>();
@@ -306,4 +324,26 @@ public class LinkedListTest {
         list.iterator().forEachRemaining(result::add);
         Assert.assertEquals("A, B, C, D", String.join(", ", result));
     }
+
+    @Test
+    public void testFindFirst() {
+        var list = new LinkedList<String>();
+        list.append("A");
+        list.append("BB");
+        list.append("CC");
+        Assert.assertEquals("BB", list.findFirst(2, (value, length) -> value.length() == length));
+        Assert.assertNull(list.findFirst(3, (value, length) -> value.length() == length));
+    }
+
+    @Test
+    public void testRemoveFirstMatching() {
+        var list = new LinkedList<String>();
+        list.append("A");
+        list.append("BB");
+        list.append("CC");
+        Assert.assertTrue(list.removeFirst(2, (value, length) -> value.length() == length));
+        Assert.assertFalse(list.removeFirst(3, (value, length) -> value.length() == length));
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals("A, CC", list.stream().collect(Collectors.joining(", ")));
+    }
 }
@@ -0,0 +1,306 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConcurrentHashTableTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSize() {
+        new ConcurrentHashTable<Integer, Integer>(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        new ConcurrentHashTable<Integer, Integer>().put(null, 1);
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        var table = new ConcurrentHashTable<Integer, String>();
+        Assert.assertTrue(table.get(10).isEmpty());
+
+        table.put(10, "a");
+        table.put(10, "b");
+        table.put(26, "c");
+        Assert.assertEquals("b", table.get(10).get());
+        Assert.assertEquals("c", table.get(26).get());
+        Assert.assertEquals(2, table.size());
+
+        Assert.assertTrue(table.remove(10));
+        Assert.assertFalse(table.remove(11));
+        Assert.assertTrue(table.get(10).isEmpty());
+        Assert.assertEquals("c", table.get(26).get());
+        Assert.assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testHashStrategies() {
+        for (var strategy : List.<HashStrategy<Integer>>of(HashStrategy.seeded(12345), key -> 42)) {
+            var table = new ConcurrentHashTable<Integer, Integer>(2, strategy);
+            for (int i = 0; i < 200; ++i) {
+                table.put(i, i * 2);
+            }
+            table.remove(100);
+
+            Assert.assertEquals(199, table.size());
+            Assert.assertFalse(table.containsKey(100));
+            for (int i = 0; i < 200; ++i) {
+                Assert.assertEquals(i == 100 ? -1 : i * 2, (int)table.getOrDefault(i, -1));
+            }
+        }
+    }
+
+    @Test
+    public void testNullValue() {
+        var table = new ConcurrentHashTable<Integer, String>();
+        table.put(1, null);
+
+        Assert.assertTrue(table.get(1).isEmpty());
+        Assert.assertTrue(table.containsKey(1));
+        Assert.assertNull(table.getOrDefault(1, "default"));
+        Assert.assertFalse(table.containsKey(2));
+        Assert.assertEquals("default", table.getOrDefault(2, "default"));
+    }
+
+    @Test
+    public void testPutIfAbsent() {
+        var table = new ConcurrentHashTable<Integer, String>();
+        Assert.assertTrue(table.putIfAbsent(1, "a").isEmpty());
+        Assert.assertEquals("a", table.putIfAbsent(1, "b").get());
+        Assert.assertEquals("a", table.get(1).get());
+        Assert.assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testCompute() {
+        var table = new ConcurrentHashTable<Integer, Integer>();
+        Assert.assertTrue(table.compute(1, (k, v) -> null).isEmpty());
+        Assert.assertEquals(0, table.size());
+
+        Assert.assertEquals(1, (int)table.compute(1, (k, v) -> v == null ? 1 : v + 1).get());
+        Assert.assertEquals(2, (int)table.compute(1, (k, v) -> v == null ? 1 : v + 1).get());
+        Assert.assertEquals(1, table.size());
+
+        Assert.assertTrue(table.compute(1, (k, v) -> null).isEmpty());
+        Assert.assertTrue(table.get(1).isEmpty());
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testGrow() {
+        var table = new ConcurrentHashTable<Integer, Integer>(2);
+        for (int i = 0; i < 10_000; ++i) {
+            table.put(i, i * 2);
+        }
+
+        Assert.assertEquals(10_000, table.size());
+        Assert.assertTrue(table.tableSize() >= 10_000 / 0.75);
+        for (int i = 0; i < 10_000; ++i) {
+            Assert.assertEquals(i * 2, (int)table.get(i).get());
+        }
+    }
+
+    @Test
+    public void testConcurrentCompute() throws Exception {
+        var threads = 8;
+        var incrementsPerThread = 20_000;
+        var keySpace = 1_000;
+        var table = new ConcurrentHashTable<Integer, Integer>(2);
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+
+        try {
+            var results = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; ++t) {
+                final var seed = t;
+                results.add(executor.submit((Callable<Void>)() -> {
+                    start.await();
+                    for (int i = 0; i < incrementsPerThread; ++i) {
+                        table.compute((i * 31 + seed) % keySpace, (k, v) -> v == null ? 1 : v + 1);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (var result : results) {
+                result.get();
+            }
+
+            var sum = 0;
+            for (int k = 0; k < keySpace; ++k) {
+                sum += table.get(k).orElse(0);
+            }
+            Assert.assertEquals(threads * incrementsPerThread, sum);
+            Assert.assertEquals(keySpace, table.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void testConcurrentComputeOfNewKeysDuringResize() throws Exception {
+        var threads = 8;
+        var keysPerThread = 20_000;
+        var table = new ConcurrentHashTable<Integer, Integer>(2);
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+
+        try {
+            var results = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; ++t) {
+                final var offset = t;
+                results.add(executor.submit((Callable<Void>)() -> {
+                    start.await();
+                    // Every key is new, so every call inserts and may start or join a resize
+                    for (int i = offset; i < threads * keysPerThread; i += threads) {
+                        table.compute(i, (k, v) -> k);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (var result : results) {
+                result.get();
+            }
+
+            Assert.assertEquals(threads * keysPerThread, table.size());
+            for (int i = 0; i < threads * keysPerThread; ++i) {
+                Assert.assertEquals(i, (int)table.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadsDuringResize() throws Exception {
+        var keyCount = 200_000;
+        var stableKeys = 1_000;
+        var table = new ConcurrentHashTable<Integer, Integer>(2);
+        for (int i = 0; i < stableKeys; ++i) {
+            table.put(-i - 1, i);
+        }
+
+        var executor = Executors.newFixedThreadPool(4);
+        var done = new AtomicBoolean();
+        try {
+            var readers = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 2; ++t) {
+                readers.add(executor.submit(() -> {
+                    var reads = 0;
+                    while (!done.get()) {
+                        for (int i = 0; i < stableKeys; ++i) {
+                            Assert.assertEquals(i, (int)table.get(-i - 1).get());
+                        }
+                        ++reads;
+                    }
+                    return reads;
+                }));
+            }
+
+            var writers = new ArrayList<Future<?>>();
+            for (int t = 0; t < 2; ++t) {
+                final var offset = t;
+                writers.add(executor.submit(() -> {
+                    for (int i = offset; i < keyCount; i += 2) {
+                        table.put(i, i);
+                    }
+                }));
+            }
+            for (var writer : writers) {
+                writer.get();
+            }
+            done.set(true);
+            for (var reader : readers) {
+                reader.get();
+            }
+
+            Assert.assertEquals(keyCount + stableKeys, table.size());
+            for (int i = 0; i < keyCount; ++i) {
+                Assert.assertEquals(i, (int)table.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThroughputScaling() throws Exception {
+        var processors = Runtime.getRuntime().availableProcessors();
+
+        // The first round only warms up the JIT compiler
+        throughput(1);
+        var singleThreaded = throughput(1);
+
+        // Reads do not lock, so the throughput should grow with the processors, at least up to a few of them
+        if (processors > 1) {
+            var multiThreaded = throughput(processors);
+            var expectedRatio = Math.min(processors, 4) / 2.0;
+            Assert.assertTrue(String.format("%.0f ops/s with %d threads, %.0f ops/s with 1 thread",
+                    multiThreaded, processors, singleThreaded), multiThreaded >= expectedRatio * singleThreaded);
+        }
+    }
+
+    /**
+     * Runs a read-mostly mix on a new table with a number of threads, and returns the operations per second.
+     */
+    private static double throughput(final int threads) throws Exception {
+        var operationsPerThread = 200_000;
+        var keySpace = 1 << 16;
+        var table = new ConcurrentHashTable<Integer, Integer>();
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+
+        try {
+            var results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < threads; ++t) {
+                final var seed = t;
+                results.add(executor.submit((Callable<Integer>)() -> {
+                    start.await();
+                    var hits = 0;
+                    var key = seed;
+                    for (int i = 0; i < operationsPerThread; ++i) {
+                        key = (key * 1103515245 + 12345) & Integer.MAX_VALUE;
+                        var k = key % keySpace;
+                        // 90% reads, 10% writes
+                        if (i % 10 == 0) {
+                            table.put(k, k * 2);
+                        } else {
+                            var value = table.get(k);
+                            if (value.isPresent()) {
+                                Assert.assertEquals(k * 2, (int)value.get());
+                                ++hits;
+                            }
+                        }
+                    }
+                    return hits;
+                }));
+            }
+
+            var startTime = System.nanoTime();
+            start.countDown();
+            var hits = 0L;
+            for (var result : results) {
+                hits += result.get();
+            }
+            var elapsed = System.nanoTime() - startTime;
+
+            Assert.assertTrue(hits > 0);
+            Assert.assertTrue(table.size() <= keySpace);
+            return (double)threads * operationsPerThread * 1e9 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hu.nagyf.algorithms.serialization.Serializer;
+import hu.nagyf.algorithms.serialization.Serializers;
+
+public class HashTableCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() {
+        var table = new HashTable<String, String>();
+        for (int i = 0; i < 1000; ++i) {
+            table.put("key-" + i, "value-".repeat(i % 10) + i);
+        }
+
+        var data = write(table, Serializers.strings(), Serializers.strings());
+        var loaded = HashTableCodec.read(Channels.newChannel(new ByteArrayInputStream(data)), Serializers.strings(),
+                Serializers.strings());
+
+        Assert.assertEquals(1000, loaded.size());
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals("value-".repeat(i % 10) + i, loaded.get("key-" + i).get());
+        }
+    }
+
+    @Test
+    public void testEmptyTable() {
+        var data = write(new HashTable<String, String>(), Serializers.strings(), Serializers.strings());
+        var loaded = HashTableCodec.read(Channels.newChannel(new ByteArrayInputStream(data)), Serializers.strings(),
+                Serializers.strings());
+        Assert.assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    public void testBulkLoadThroughFile() throws IOException {
+        var count = 200_000;
+        var table = new HashTable<Long, Long>();
+        for (long i = 0; i < count; ++i) {
+            table.put(i, i * 3);
+        }
+
+        var file = folder.getRoot().toPath().resolve("table.bin");
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            HashTableCodec.write(table, channel, Serializers.longs(), Serializers.longs());
+        }
+
+        HashTable<Long, Long> loaded;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            loaded = HashTableCodec.read(channel, Serializers.longs(), Serializers.longs());
+        }
+
+        // The table was sized from the header, so the load never resized it
+        Assert.assertEquals(count, loaded.size());
+        Assert.assertFalse(loaded.isRehashing());
+        Assert.assertTrue(loaded.tableSize() >= count / 0.75);
+        Assert.assertTrue(loaded.tableSize() < 2 * count / 0.75);
+        for (long i = 0; i < count; ++i) {
+            Assert.assertEquals(i * 3, (long)loaded.get(i).get());
+        }
+    }
+
+    @Test
+    public void testReadIntoExistingTable() {
+        var source = new HashTable<Integer, Integer>();
+        for (int i = 0; i < 100; ++i) {
+            source.put(i, i);
+        }
+        var target = new HashTable<Integer, Integer>();
+        target.put(50, -1);
+        target.put(1000, 1000);
+
+        var data = write(source, Serializers.integers(), Serializers.integers());
+        var read = HashTableCodec.readInto(target, Channels.newChannel(new ByteArrayInputStream(data)),
+                Serializers.integers(), Serializers.integers());
+
+        Assert.assertEquals(100, read);
+        Assert.assertEquals(101, target.size());
+        Assert.assertEquals(50, (int)target.get(50).get());
+        Assert.assertEquals(1000, (int)target.get(1000).get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncated() {
+        var table = new HashTable<Integer, Integer>();
+        for (int i = 0; i < 10; ++i) {
+            table.put(i, i);
+        }
+        var data = write(table, Serializers.integers(), Serializers.integers());
+        HashTableCodec.read(Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 3))),
+                Serializers.integers(), Serializers.integers());
+    }
+
+    @Test
+    public void testCorruptCountIsNotTrustedForSizing() throws IOException {
+        var table = new HashTable<Integer, Integer>();
+        for (int i = 0; i < 10; ++i) {
+            table.put(i, i);
+        }
+        var data = write(table, Serializers.integers(), Serializers.integers());
+        ByteBuffer.wrap(data).putInt(Integer.BYTES, Integer.MAX_VALUE);
+
+        var file = folder.getRoot().toPath().resolve("table.bin");
+        Files.write(file, data);
+        var inputs = List.<Supplier<ReadableByteChannel>>of(
+                () -> Channels.newChannel(new ByteArrayInputStream(data)),
+                () -> {
+                    try {
+                        return FileChannel.open(file, StandardOpenOption.READ);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        for (var input : inputs) {
+            try (var channel = input.get()) {
+                HashTableCodec.read(channel, Serializers.integers(), Serializers.integers());
+                Assert.fail("The count is larger than the number of items");
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals("The hash table data is truncated", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testOverflowingRecordLength() {
+        var data = ByteBuffer.allocate(16).putInt(0x4854424C).putInt(1).putInt(Integer.MAX_VALUE)
+                .putInt(Integer.MAX_VALUE).array();
+        try {
+            HashTableCodec.read(Channels.newChannel(new ByteArrayInputStream(data)), Serializers.integers(),
+                    Serializers.integers());
+            Assert.fail("The record length overflows");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("The hash table data is corrupted", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testHugeRecordLengthIsNotAllocated() throws IOException {
+        // A single record that claims almost 2 GB, followed by a few bytes only
+        var data = ByteBuffer.allocate(32).putInt(0x4854424C).putInt(1).putInt(Integer.MAX_VALUE - 8).putInt(0)
+                .array();
+        var file = folder.getRoot().toPath().resolve("table.bin");
+        Files.write(file, data);
+
+        try (var stream = Channels.newChannel(new ByteArrayInputStream(data));
+                var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (var input : List.<ReadableByteChannel>of(stream, channel)) {
+                try {
+                    HashTableCodec.read(input, Serializers.byteArrays(), Serializers.byteArrays());
+                    Assert.fail("The record is longer than the data");
+                } catch (IllegalArgumentException e) {
+                    Assert.assertEquals("The hash table data is truncated", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotASerializedTable() {
+        HashTableCodec.read(Channels.newChannel(new ByteArrayInputStream(new byte[64])), Serializers.integers(),
+                Serializers.integers());
+    }
+
+    private static <K, V> byte[] write(final HashTable<K, V> table, final Serializer<K> keySerializer,
+            final Serializer<V> valueSerializer) {
+        var output = new ByteArrayOutputStream();
+        HashTableCodec.write(table, Channels.newChannel(output), keySerializer, valueSerializer);
+        return output.toByteArray();
+    }
+}
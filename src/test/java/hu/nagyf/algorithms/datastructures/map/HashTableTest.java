@@ -4,6 +4,15 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -90,4 +99,380 @@ public class HashTableTest {
         table.remove("test");
         Assert.assertTrue(table.get("test").isEmpty());
     }
+
+    @Test
+    public void testRemoveWithEqualKey() {
+        var table = new HashTable<String, Integer>();
+        table.put("test", 10);
+        table.remove(new String("test"));
+        Assert.assertTrue(table.get("test").isEmpty());
+    }
+
+    @Test
+    public void testSize() {
+        var table = new HashTable<String, Integer>();
+        Assert.assertTrue(table.isEmpty());
+        table.put("a", 1);
+        table.put("b", 2);
+        table.put("a", 3);
+        Assert.assertEquals(2, table.size());
+
+        table.remove("a");
+        table.remove("c");
+        Assert.assertEquals(1, table.size());
+        Assert.assertFalse(table.isEmpty());
+    }
+
+    @Test
+    public void testNegativeHashCode() {
+        var table = new HashTable<Integer, String>(10);
+        table.put(-7, "negative");
+        table.put(Integer.MIN_VALUE, "minimum");
+        Assert.assertEquals("negative", table.get(-7).get());
+        Assert.assertEquals("minimum", table.get(Integer.MIN_VALUE).get());
+    }
+
+    @Test
+    public void testGrowsByLoadFactor() {
+        var table = new HashTable<Integer, Integer>(16);
+        for (int i = 0; i < 100_000; ++i) {
+            table.put(i, i);
+        }
+
+        Assert.assertEquals(100_000, table.size());
+        Assert.assertTrue(table.tableSize() >= 100_000 / 0.75);
+        for (int i = 0; i < 100_000; ++i) {
+            Assert.assertEquals(i, (int)table.get(i).get());
+        }
+    }
+
+    @Test
+    public void testItemsAreReachableDuringRehash() {
+        var table = new HashTable<Integer, Integer>(64);
+        for (int i = 0; i < 49; ++i) {
+            table.put(i, i);
+        }
+
+        // The 49th item exceeds 0.75 items per bucket, the buckets are moved by the following operations
+        Assert.assertEquals(128, table.tableSize());
+        Assert.assertTrue(table.isRehashing());
+        for (int i = 0; i < 49; ++i) {
+            Assert.assertEquals(i, (int)table.get(i).get());
+        }
+        Assert.assertFalse(table.isRehashing());
+
+        table.remove(10);
+        Assert.assertTrue(table.get(10).isEmpty());
+        Assert.assertEquals(48, table.size());
+    }
+
+    @Test
+    public void testOverwriteAndRemoveDuringRehash() {
+        var table = new HashTable<Integer, Integer>(64);
+        for (int i = 0; i < 49; ++i) {
+            table.put(i, i);
+        }
+        Assert.assertTrue(table.isRehashing());
+
+        table.put(48, 100);
+        table.remove(0);
+        Assert.assertEquals(48, table.size());
+        Assert.assertEquals(100, (int)table.get(48).get());
+        Assert.assertTrue(table.get(0).isEmpty());
+    }
+
+    @Test
+    public void testShrink() {
+        var table = new HashTable<Integer, Integer>(16, 0.75f, true);
+        for (int i = 0; i < 10_000; ++i) {
+            table.put(i, i);
+        }
+        var grown = table.tableSize();
+
+        for (int i = 0; i < 9_990; ++i) {
+            table.remove(i);
+        }
+        Assert.assertTrue(table.tableSize() < grown);
+        Assert.assertTrue(table.tableSize() >= 16);
+        for (int i = 9_990; i < 10_000; ++i) {
+            Assert.assertEquals(i, (int)table.get(i).get());
+        }
+    }
+
+    @Test
+    public void testNoShrinkByDefault() {
+        var table = new HashTable<Integer, Integer>(16);
+        for (int i = 0; i < 1000; ++i) {
+            table.put(i, i);
+        }
+        var grown = table.tableSize();
+        for (int i = 0; i < 1000; ++i) {
+            table.remove(i);
+        }
+        Assert.assertEquals(grown, table.tableSize());
+    }
+
+    @Test
+    public void testEnsureCapacity() {
+        var table = new HashTable<Integer, Integer>(16);
+        table.put(1, 1);
+        table.ensureCapacity(1000);
+        Assert.assertFalse(table.isRehashing());
+        var size = table.tableSize();
+        Assert.assertTrue(size >= 1000 / 0.75);
+
+        for (int i = 0; i < 1000; ++i) {
+            table.put(i, i);
+        }
+        Assert.assertEquals(size, table.tableSize());
+        Assert.assertEquals(1000, table.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLoadFactor() {
+        new HashTable<String, Integer>(16, 0, false);
+    }
+
+    @Test
+    public void testTableSizeIsPowerOfTwo() {
+        Assert.assertEquals(16, new HashTable<Integer, Integer>(10).tableSize());
+        Assert.assertEquals(2, new HashTable<Integer, Integer>(1).tableSize());
+        Assert.assertEquals(128, new HashTable<Integer, Integer>().tableSize());
+    }
+
+    @Test
+    public void testSpreadingSeparatesHashCodesDifferingInUpperBits() {
+        var plain = new HashTable<Integer, Integer>(1024, 1000, false, HashStrategy.identity());
+        var spread = new HashTable<Integer, Integer>(1024, 1000, false, HashStrategy.spreading());
+        for (int i = 0; i < 500; ++i) {
+            plain.put(i << 20, i);
+            spread.put(i << 20, i);
+        }
+
+        Assert.assertEquals(500, plain.diagnostics().maxLookupLength());
+        Assert.assertTrue(spread.diagnostics().maxLookupLength() < 10);
+        for (int i = 0; i < 500; ++i) {
+            Assert.assertEquals(i, (int)spread.get(i << 20).get());
+        }
+    }
+
+    @Test
+    public void testSeededStrategy() {
+        var table = new HashTable<String, Integer>(16, 0.75f, false, HashStrategy.seeded(12345));
+        for (int i = 0; i < 1000; ++i) {
+            table.put(Integer.toString(i), i);
+        }
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(i, (int)table.get(Integer.toString(i)).get());
+        }
+
+        HashStrategy<String> first = HashStrategy.seeded(1);
+        HashStrategy<String> second = HashStrategy.seeded(2);
+        Assert.assertEquals(first.hash("test"), first.hash("test"));
+        Assert.assertNotEquals(first.hash("test"), second.hash("test"));
+    }
+
+    @Test
+    public void testDiagnosticsOfCollidingKeys() {
+        var table = new HashTable<String, Integer>(16, 0.75f, false, key -> 42);
+        table.put("a", 1);
+        table.put("b", 2);
+        table.put("c", 3);
+
+        var diagnostics = table.diagnostics();
+        Assert.assertEquals(16, diagnostics.capacity());
+        Assert.assertEquals(3, diagnostics.size());
+        Assert.assertEquals(3, diagnostics.maxLookupLength());
+        Assert.assertEquals(1, diagnostics.count(1));
+        Assert.assertEquals(1, diagnostics.count(2));
+        Assert.assertEquals(1, diagnostics.count(3));
+        Assert.assertEquals(0, diagnostics.count(4));
+        Assert.assertEquals(2.0, diagnostics.averageLookupLength(), 1e-9);
+    }
+
+    @Test
+    public void testDiagnosticsDuringRehash() {
+        var table = new HashTable<Integer, Integer>(64);
+        for (int i = 0; i < 49; ++i) {
+            table.put(i, i);
+        }
+        Assert.assertTrue(table.isRehashing());
+
+        var diagnostics = table.diagnostics();
+        Assert.assertFalse(table.isRehashing());
+        Assert.assertEquals(128, diagnostics.capacity());
+        Assert.assertEquals(49, diagnostics.size());
+        var counted = 0L;
+        for (int length = 1; length <= diagnostics.maxLookupLength(); ++length) {
+            counted += diagnostics.count(length);
+        }
+        Assert.assertEquals(49, counted);
+    }
+
+    @Test
+    public void testDiagnosticsOfEmptyTable() {
+        var diagnostics = new HashTable<Integer, Integer>().diagnostics();
+        Assert.assertEquals(0, diagnostics.maxLookupLength());
+        Assert.assertEquals(0, diagnostics.averageLookupLength(), 1e-9);
+    }
+
+    @Test
+    public void testViews() {
+        var table = new HashTable<String, Integer>();
+        Assert.assertTrue(table.keys().isEmpty());
+
+        table.put("a", 1);
+        table.put("b", 2);
+        table.put("c", 3);
+        table.remove("b");
+
+        Assert.assertEquals(Set.of("a", "c"), new HashSet<>(table.keys()));
+        Assert.assertEquals(Set.of(1, 3), new HashSet<>(table.values()));
+        Assert.assertEquals(Map.of("a", 1, "c", 3), table.entries().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        Assert.assertEquals(2, table.entries().size());
+    }
+
+    @Test
+    public void testViewsDuringRehash() {
+        var table = new HashTable<Integer, Integer>(64);
+        for (int i = 0; i < 49; ++i) {
+            table.put(i, i);
+        }
+        Assert.assertTrue(table.isRehashing());
+
+        Assert.assertEquals(49, table.keys().stream().distinct().count());
+        Assert.assertFalse(table.isRehashing());
+    }
+
+    @Test
+    public void testParallelStream() {
+        var table = new HashTable<Integer, Integer>(16);
+        for (int i = 0; i < 200_000; ++i) {
+            table.put(i, i);
+        }
+        for (int i = 0; i < 200_000; i += 10) {
+            table.remove(i);
+        }
+
+        var expected = LongStream.range(0, 200_000).filter(i -> i % 10 != 0).sum();
+        Assert.assertEquals(expected, table.values().parallelStream().mapToLong(Integer::longValue).sum());
+        Assert.assertEquals(180_000, table.keys().parallelStream().count());
+        Assert.assertEquals(180_000, table.keys().parallelStream().toArray().length);
+    }
+
+    @Test
+    public void testSplitSizesAreExact() {
+        var table = new HashTable<Integer, Integer>(16);
+        for (int i = 0; i < 100_000; ++i) {
+            table.put(i, i);
+        }
+
+        var spliterator = table.keys().spliterator();
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+        Assert.assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+        Assert.assertEquals(100_000, spliterator.getExactSizeIfKnown());
+
+        // The first item is consumed before splitting, so the splits start in the middle of a bucket
+        Assert.assertTrue(spliterator.tryAdvance(key -> { }));
+        var parts = new ArrayList<Spliterator<Integer>>();
+        parts.add(spliterator);
+        for (int round = 0; round < 4; ++round) {
+            for (var part : new ArrayList<>(parts)) {
+                var split = part.trySplit();
+                Assert.assertNotNull(split);
+                parts.add(split);
+            }
+        }
+
+        var total = 1L;
+        for (var part : parts) {
+            var estimate = part.estimateSize();
+            var counted = new long[1];
+            part.forEachRemaining(key -> ++counted[0]);
+            Assert.assertEquals(estimate, counted[0]);
+            total += counted[0];
+        }
+        Assert.assertEquals(100_000, total);
+    }
+
+    @Test
+    public void testSmallTableDoesNotSplit() {
+        var table = new HashTable<Integer, Integer>(16);
+        table.put(1, 1);
+        Assert.assertNull(table.keys().spliterator().trySplit());
+    }
+
+    @Test
+    public void testGetOrDefaultAndContainsKey() {
+        var table = new HashTable<String, Integer>();
+        table.put("a", 1);
+        table.put("b", null);
+        Assert.assertEquals(1, (int)table.getOrDefault("a", -1));
+        Assert.assertEquals(-1, (int)table.getOrDefault("c", -1));
+        Assert.assertNull(table.getOrDefault("b", -1));
+        Assert.assertTrue(table.containsKey("a"));
+        Assert.assertTrue(table.containsKey("b"));
+        Assert.assertFalse(table.containsKey("c"));
+    }
+
+    @Test
+    public void testRemoveReportsWhetherKeyWasPresent() {
+        var table = new HashTable<String, Integer>(16, 0.75f, false, key -> 42);
+        table.put("a", 1);
+        table.put("b", 2);
+        table.put("c", 3);
+
+        Assert.assertTrue(table.remove("b"));
+        Assert.assertFalse(table.remove("b"));
+        Assert.assertFalse(table.remove("d"));
+        Assert.assertEquals(2, table.size());
+        Assert.assertEquals(1, (int)table.get("a").get());
+        Assert.assertEquals(3, (int)table.get("c").get());
+    }
+
+    @Test
+    public void testLookupsAndRemoveDoNotAllocate() {
+        var keys = new Integer[10_000];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = i * 7919;
+        }
+        var table = new HashTable<Integer, Integer>(keys.length * 2);
+        var values = keys.clone();
+
+        var threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        var thread = Thread.currentThread().getId();
+        var sum = 0L;
+
+        // Warm up, so the measured loop runs compiled code
+        for (int round = 0; round < 20; ++round) {
+            fill(table, keys, values);
+            sum += lookUpAndRemove(table, keys);
+        }
+        fill(table, keys, values);
+        var before = threads.getThreadAllocatedBytes(thread);
+        sum += lookUpAndRemove(table, keys);
+        var allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        Assert.assertTrue(sum > 0);
+        Assert.assertTrue(table.isEmpty());
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void fill(final HashTable<Integer, Integer> table, final Integer[] keys, final Integer[] values) {
+        for (int i = 0; i < keys.length; ++i) {
+            table.put(keys[i], values[i]);
+        }
+    }
+
+    private static long lookUpAndRemove(final HashTable<Integer, Integer> table, final Integer[] keys) {
+        var sum = 0L;
+        for (var key : keys) {
+            sum += table.getOrDefault(key, 0);
+            if (table.containsKey(key) && table.remove(key)) {
+                ++sum;
+            }
+        }
+        return sum;
+    }
 }
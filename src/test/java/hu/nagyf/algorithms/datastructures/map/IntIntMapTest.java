@@ -0,0 +1,114 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntIntMapTest {
+
+    @Test
+    public void empty() {
+        var map = new IntIntMap();
+        Assert.assertEquals(-1, map.getOrDefault(10, -1));
+        Assert.assertFalse(map.containsKey(10));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putGet() {
+        var map = new IntIntMap();
+        map.put(10, 42);
+        map.put(10, 43);
+        Assert.assertEquals(43, map.getOrDefault(10, -1));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        var map = new IntIntMap();
+        Assert.assertFalse(map.containsKey(0));
+        map.put(0, 7);
+        Assert.assertTrue(map.containsKey(0));
+        Assert.assertEquals(7, map.getOrDefault(0, -1));
+        Assert.assertEquals(1, map.size());
+
+        Assert.assertTrue(map.remove(0));
+        Assert.assertFalse(map.remove(0));
+        Assert.assertEquals(-1, map.getOrDefault(0, -1));
+        Assert.assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        var map = new IntIntMap();
+        map.put(1, 10);
+        map.put(2, 20);
+        Assert.assertTrue(map.remove(1));
+        Assert.assertFalse(map.remove(1));
+        Assert.assertFalse(map.containsKey(1));
+        Assert.assertEquals(20, map.getOrDefault(2, -1));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        var random = new Random(42);
+        var map = new IntIntMap(0);
+        var expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 200_000; ++i) {
+            var key = random.nextInt(4_000) - 2_000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    Assert.assertEquals((int)expected.getOrDefault(key, -1), map.getOrDefault(key, -1));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+    }
+
+    @Test
+    public void testGetAndPutDoNotAllocate() {
+        var map = new IntIntMap(10_000);
+        for (int i = 0; i < 10_000; ++i) {
+            map.put(i, i);
+        }
+
+        var threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        var thread = Thread.currentThread().getId();
+        var sum = 0L;
+
+        // Warm up, so the measured loop runs compiled code
+        for (int round = 0; round < 20; ++round) {
+            sum += readAndWrite(map);
+        }
+        var before = threads.getThreadAllocatedBytes(thread);
+        sum += readAndWrite(map);
+        var allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        Assert.assertTrue(sum > 0);
+        Assert.assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static long readAndWrite(final IntIntMap map) {
+        var sum = 0L;
+        for (int i = 0; i < 10_000; ++i) {
+            sum += map.getOrDefault(i, 0);
+            map.put(i, i + 1);
+        }
+        return sum;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeExpectedSize() {
+        new IntIntMap(Integer.MAX_VALUE);
+    }
+}
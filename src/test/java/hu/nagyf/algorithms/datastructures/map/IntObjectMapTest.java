@@ -0,0 +1,64 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntObjectMapTest {
+
+    @Test
+    public void empty() {
+        var map = new IntObjectMap<String>();
+        Assert.assertNull(map.get(10));
+        Assert.assertEquals("default", map.getOrDefault(10, "default"));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putGet() {
+        var map = new IntObjectMap<String>();
+        map.put(-10, "a");
+        map.put(-10, "b");
+        Assert.assertEquals("b", map.get(-10));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        var map = new IntObjectMap<String>();
+        map.put(0, "zero");
+        Assert.assertEquals("zero", map.get(0));
+        Assert.assertTrue(map.remove(0));
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        var random = new Random(7);
+        var map = new IntObjectMap<String>();
+        var expected = new HashMap<Integer, String>();
+        for (int i = 0; i < 200_000; ++i) {
+            var key = random.nextInt(4_000) * 1024;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, Integer.toString(i));
+                    expected.put(key, Integer.toString(i));
+                    break;
+                case 1:
+                    Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    Assert.assertEquals(expected.get(key), map.get(key));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeExpectedSize() {
+        new IntObjectMap<String>(Integer.MAX_VALUE);
+    }
+}
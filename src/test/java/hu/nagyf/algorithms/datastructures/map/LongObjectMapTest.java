@@ -0,0 +1,64 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void empty() {
+        var map = new LongObjectMap<String>();
+        Assert.assertNull(map.get(10));
+        Assert.assertEquals("default", map.getOrDefault(10, "default"));
+        Assert.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putGet() {
+        var map = new LongObjectMap<String>();
+        map.put(-10L, "a");
+        map.put(-10L, "b");
+        Assert.assertEquals("b", map.get(-10L));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        var map = new LongObjectMap<String>();
+        map.put(0, "zero");
+        Assert.assertEquals("zero", map.get(0));
+        Assert.assertTrue(map.remove(0));
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        var random = new Random(7);
+        var map = new LongObjectMap<String>();
+        var expected = new HashMap<Long, String>();
+        for (int i = 0; i < 200_000; ++i) {
+            var key = (random.nextInt(4_000) - 2_000L) << 32;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, Integer.toString(i));
+                    expected.put(key, Integer.toString(i));
+                    break;
+                case 1:
+                    Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                default:
+                    Assert.assertEquals(expected.get(key), map.get(key));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeExpectedSize() {
+        new LongObjectMap<String>(Integer.MAX_VALUE);
+    }
+}
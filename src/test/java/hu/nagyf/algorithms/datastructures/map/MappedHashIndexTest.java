@@ -0,0 +1,188 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hu.nagyf.algorithms.serialization.Serializers;
+
+public class MappedHashIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFixedWidthPutGetRemove() {
+        try (var index = MappedHashIndex.create(file(), 16, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs())) {
+            Assert.assertTrue(index.get(1L).isEmpty());
+
+            index.put(1L, 10L);
+            index.put(2L, 20L);
+            index.put(1L, 11L);
+            Assert.assertEquals(11L, (long)index.get(1L).get());
+            Assert.assertEquals(20L, (long)index.get(2L).get());
+            Assert.assertEquals(2, index.size());
+
+            index.remove(1L);
+            index.remove(3L);
+            Assert.assertTrue(index.get(1L).isEmpty());
+            Assert.assertEquals(1, index.size());
+
+            index.put(1L, 12L);
+            Assert.assertEquals(12L, (long)index.get(1L).get());
+            Assert.assertEquals(2, index.size());
+        }
+    }
+
+    @Test
+    public void testReopen() {
+        var file = file();
+        try (var index = MappedHashIndex.create(file, 1000, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs())) {
+            Assert.assertEquals(1024, index.bucketCount());
+            for (long i = 0; i < 1000; ++i) {
+                index.put(i, i * i);
+            }
+            index.remove(500L);
+        }
+
+        try (var index = MappedHashIndex.open(file, Serializers.longs(), Serializers.longs())) {
+            Assert.assertEquals(999, index.size());
+            Assert.assertTrue(index.get(500L).isEmpty());
+            for (long i = 0; i < 1000; ++i) {
+                if (i != 500) {
+                    Assert.assertEquals(i * i, (long)index.get(i).get());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testVariableWidthAcrossRegions() {
+        var file = file();
+        try (var index = MappedHashIndex.create(file, 64, MappedHashIndex.VARIABLE_WIDTH,
+                MappedHashIndex.VARIABLE_WIDTH, Serializers.strings(), Serializers.strings(), 4096)) {
+            for (int i = 0; i < 2000; ++i) {
+                index.put("key-" + i, "value-".repeat(i % 20) + i);
+            }
+            for (int i = 0; i < 2000; i += 3) {
+                index.remove("key-" + i);
+            }
+        }
+
+        try (var index = MappedHashIndex.open(file, Serializers.strings(), Serializers.strings())) {
+            for (int i = 0; i < 2000; ++i) {
+                var value = index.get("key-" + i);
+                if (i % 3 == 0) {
+                    Assert.assertTrue(value.isEmpty());
+                } else {
+                    Assert.assertEquals("value-".repeat(i % 20) + i, value.get());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmallIndexIsSmallFile() throws IOException {
+        var file = file();
+        try (var index = MappedHashIndex.create(file, 16, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs())) {
+            index.put(1L, 10L);
+        }
+        Assert.assertEquals(1 << 16, Files.size(file));
+    }
+
+    @Test
+    public void testFileGrowsWithTheData() throws IOException {
+        var file = file();
+        try (var index = MappedHashIndex.create(file, 100_000, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs())) {
+            // 28 bytes per record after 1 MB of buckets: the last region is mapped again a few times while it grows
+            for (long i = 0; i < 100_000; ++i) {
+                index.put(i, i * 10);
+            }
+        }
+        Assert.assertTrue(Files.size(file) >= (1 << 20) + 100_000 * 28);
+        Assert.assertTrue(Files.size(file) < 8 << 20);
+
+        try (var index = MappedHashIndex.open(file, Serializers.longs(), Serializers.longs())) {
+            Assert.assertEquals(100_000, index.size());
+            for (long i = 0; i < 100_000; ++i) {
+                Assert.assertEquals(i * 10, (long)index.get(i).get());
+            }
+
+            index.put(100_000L, 1L);
+            Assert.assertEquals(1L, (long)index.get(100_000L).get());
+        }
+    }
+
+    @Test
+    public void testUnsyncedChangesAreLostOnCrash() {
+        var file = file();
+        var index = MappedHashIndex.create(file, 16, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs());
+        index.put(1L, 10L);
+        index.sync();
+        index.put(1L, 11L);
+        index.put(2L, 20L);
+
+        // Another process opening the file sees the state of the last sync
+        try (var reopened = MappedHashIndex.open(file, Serializers.longs(), Serializers.longs())) {
+            Assert.assertEquals(1, reopened.size());
+            Assert.assertEquals(10L, (long)reopened.get(1L).get());
+            Assert.assertTrue(reopened.get(2L).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTornCommitFallsBackToPreviousCommit() throws IOException {
+        var file = file();
+        var index = MappedHashIndex.create(file, 16, Long.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs());
+        index.put(1L, 10L);
+        index.sync();
+        index.put(2L, 20L);
+
+        // The second commit goes to the first slot, a crash while writing it leaves a slot with a wrong checksum
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(16).putLong(2).putLong(12345).flip(), 64);
+        }
+
+        try (var reopened = MappedHashIndex.open(file, Serializers.longs(), Serializers.longs())) {
+            Assert.assertEquals(10L, (long)reopened.get(1L).get());
+            Assert.assertTrue(reopened.get(2L).isEmpty());
+
+            reopened.put(3L, 30L);
+            reopened.sync();
+            Assert.assertEquals(30L, (long)reopened.get(3L).get());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongKeyWidth() {
+        try (var index = MappedHashIndex.create(file(), 16, Integer.BYTES, Long.BYTES, Serializers.longs(),
+                Serializers.longs())) {
+            index.put(1L, 1L);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotAnIndexFile() throws IOException {
+        var file = file();
+        Files.write(file, new byte[8192]);
+        MappedHashIndex.open(file, Serializers.longs(), Serializers.longs());
+    }
+
+    private Path file() {
+        return folder.getRoot().toPath().resolve("index.dat");
+    }
+}
@@ -0,0 +1,211 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void testEmpty() {
+        var map = PersistentHashMap.<String, Integer>empty();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertTrue(map.get("a").isEmpty());
+        Assert.assertSame(map, map.remove("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullKey() {
+        PersistentHashMap.<String, Integer>empty().put(null, 1);
+    }
+
+    @Test
+    public void testUpdatesDoNotChangePreviousVersions() {
+        var first = PersistentHashMap.<String, Integer>empty().put("a", 1).put("b", 2);
+        var second = first.put("a", 10).put("c", 3);
+        var third = second.remove("b");
+
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(1, (int)first.get("a").get());
+        Assert.assertFalse(first.containsKey("c"));
+
+        Assert.assertEquals(3, second.size());
+        Assert.assertEquals(10, (int)second.get("a").get());
+        Assert.assertEquals(2, (int)second.get("b").get());
+
+        Assert.assertEquals(2, third.size());
+        Assert.assertFalse(third.containsKey("b"));
+        Assert.assertEquals(3, (int)third.getOrDefault("c", -1));
+        Assert.assertEquals(-1, (int)third.getOrDefault("b", -1));
+    }
+
+    @Test
+    public void testUnchangedUpdatesReturnSameMap() {
+        var value = Integer.valueOf(1000);
+        var map = PersistentHashMap.<String, Integer>empty().put("a", value);
+        Assert.assertSame(map, map.put("a", value));
+        Assert.assertSame(map, map.remove("b"));
+    }
+
+    @Test
+    public void testNullValue() {
+        var map = PersistentHashMap.<String, Integer>empty().put("a", null);
+        Assert.assertTrue(map.containsKey("a"));
+        Assert.assertTrue(map.get("a").isEmpty());
+        Assert.assertNull(map.getOrDefault("a", -1));
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        var random = new Random(42);
+        var expected = new HashMap<Integer, Integer>();
+        var map = PersistentHashMap.<Integer, Integer>empty();
+
+        for (int i = 0; i < 100_000; ++i) {
+            var key = random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+
+        Assert.assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 20_000; ++key) {
+            Assert.assertEquals(expected.get(key), map.getOrDefault(key, null));
+        }
+
+        var visited = new HashMap<Integer, Integer>();
+        map.forEach(visited::put);
+        Assert.assertEquals(expected, visited);
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        var map = PersistentHashMap.<CollidingKey, Integer>empty();
+        for (int i = 0; i < 10; ++i) {
+            map = map.put(new CollidingKey(i), i);
+        }
+        // A key with a different hash code next to the collision node
+        map = map.put(new CollidingKey(100, 42 + (1 << 30)), 100);
+
+        Assert.assertEquals(11, map.size());
+        for (int i = 0; i < 10; ++i) {
+            Assert.assertEquals(i, (int)map.get(new CollidingKey(i)).get());
+        }
+        Assert.assertEquals(100, (int)map.get(new CollidingKey(100, 42 + (1 << 30))).get());
+
+        for (int i = 0; i < 10; ++i) {
+            map = map.remove(new CollidingKey(i));
+        }
+        Assert.assertEquals(1, map.size());
+        Assert.assertTrue(map.get(new CollidingKey(0)).isEmpty());
+    }
+
+    @Test
+    public void testTransientBatchUpdates() {
+        var original = PersistentHashMap.<Integer, Integer>empty().put(-1, -1);
+        var batch = original.asTransient();
+        for (int i = 0; i < 10_000; ++i) {
+            batch.put(i, i * 2);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            batch.remove(i);
+        }
+        Assert.assertEquals(5_001, batch.size());
+        Assert.assertEquals(6, (int)batch.get(3).get());
+
+        var loaded = batch.persistent();
+        Assert.assertEquals(5_001, loaded.size());
+        for (int i = 0; i < 10_000; ++i) {
+            Assert.assertEquals(i % 2 == 0 ? null : i * 2, loaded.getOrDefault(i, null));
+        }
+
+        // The original map and the result of the batch are independent
+        Assert.assertEquals(1, original.size());
+        Assert.assertFalse(original.containsKey(1));
+        var next = loaded.asTransient().put(1, 0).persistent();
+        Assert.assertEquals(2, (int)loaded.get(1).get());
+        Assert.assertEquals(0, (int)next.get(1).get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTransientCannotBeUsedAfterPersistent() {
+        var batch = PersistentHashMap.<Integer, Integer>empty().asTransient();
+        batch.put(1, 1);
+        batch.persistent();
+        batch.put(2, 2);
+    }
+
+    @Test
+    public void testReadersSeeConsistentSnapshots() throws Exception {
+        var holder = new Object() {
+            volatile PersistentHashMap<Integer, Integer> current = PersistentHashMap.empty();
+        };
+        var done = new AtomicBoolean();
+        var executor = Executors.newFixedThreadPool(2);
+
+        try {
+            var readers = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < 2; ++t) {
+                readers.add(executor.submit((Callable<Integer>)() -> {
+                    var snapshots = 0;
+                    while (!done.get()) {
+                        // The writer adds the keys in order, so a snapshot of size n holds exactly 0..n-1
+                        var snapshot = holder.current;
+                        var size = snapshot.size();
+                        Assert.assertTrue(size == 0 || snapshot.containsKey(size - 1));
+                        Assert.assertFalse(snapshot.containsKey(size));
+                        ++snapshots;
+                    }
+                    return snapshots;
+                }));
+            }
+
+            for (int i = 0; i < 100_000; ++i) {
+                holder.current = holder.current.put(i, i);
+            }
+            done.set(true);
+            for (var reader : readers) {
+                reader.get();
+            }
+            Assert.assertEquals(100_000, holder.current.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CollidingKey {
+        private final int id;
+        private final int hash;
+
+        CollidingKey(final int id) {
+            this(id, 42);
+        }
+
+        CollidingKey(final int id, final int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof CollidingKey && ((CollidingKey)o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package hu.nagyf.algorithms.datastructures.map;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RobinHoodHashTableTest {
+
+    @Test
+    public void empty() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        Assert.assertTrue(table.get("test").isEmpty());
+        Assert.assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void putGet() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        table.put("test", 123);
+        Assert.assertEquals(123, (int)table.get("test").get());
+    }
+
+    @Test
+    public void putOverwrite() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        table.put("test", 123);
+        table.put("test", 321);
+        Assert.assertEquals(321, (int)table.get("test").get());
+        Assert.assertEquals(1, table.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void putNullKey() {
+        new RobinHoodHashTable<String, Integer>().put(null, 123);
+    }
+
+    @Test
+    public void putGetCollision() {
+        var table = new RobinHoodHashTable<CollidingKey, Integer>();
+        for (int i = 0; i < 20; ++i) {
+            table.put(new CollidingKey(i), i);
+        }
+        for (int i = 0; i < 20; ++i) {
+            Assert.assertEquals(i, (int)table.get(new CollidingKey(i)).get());
+        }
+        Assert.assertTrue(table.get(new CollidingKey(20)).isEmpty());
+    }
+
+    @Test
+    public void testRemoveNonExistentItem() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        table.remove("test");
+        Assert.assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testHashStrategies() {
+        for (var strategy : List.<HashStrategy<Integer>>of(HashStrategy.seeded(12345), key -> 42)) {
+            var table = new RobinHoodHashTable<Integer, Integer>(16, strategy);
+            for (int i = 0; i < 200; ++i) {
+                table.put(i, i * 2);
+            }
+            table.remove(100);
+
+            Assert.assertEquals(199, table.size());
+            Assert.assertFalse(table.containsKey(100));
+            for (int i = 0; i < 200; ++i) {
+                Assert.assertEquals(i == 100 ? -1 : i * 2, (int)table.getOrDefault(i, -1));
+            }
+        }
+    }
+
+    @Test
+    public void testNullValue() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        table.put("a", null);
+        Assert.assertTrue(table.get("a").isEmpty());
+        Assert.assertTrue(table.containsKey("a"));
+        Assert.assertNull(table.getOrDefault("a", -1));
+        Assert.assertFalse(table.containsKey("b"));
+        Assert.assertEquals(-1, (int)table.getOrDefault("b", -1));
+    }
+
+    @Test
+    public void testRemoveShiftsProbeSequenceBack() {
+        var table = new RobinHoodHashTable<CollidingKey, Integer>();
+        for (int i = 0; i < 10; ++i) {
+            table.put(new CollidingKey(i), i);
+        }
+
+        table.remove(new CollidingKey(3));
+        Assert.assertEquals(9, table.size());
+        Assert.assertTrue(table.get(new CollidingKey(3)).isEmpty());
+        for (int i = 0; i < 10; ++i) {
+            if (i != 3) {
+                Assert.assertEquals(i, (int)table.get(new CollidingKey(i)).get());
+            }
+        }
+    }
+
+    @Test
+    public void testGrows() {
+        var table = new RobinHoodHashTable<Integer, Integer>(0);
+        for (int i = 0; i < 10_000; ++i) {
+            table.put(i, i);
+        }
+        Assert.assertEquals(10_000, table.size());
+        Assert.assertTrue(table.capacity() * 0.8 >= 10_000);
+        for (int i = 0; i < 10_000; ++i) {
+            Assert.assertEquals(i, (int)table.get(i).get());
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        var random = new Random(42);
+        var table = new RobinHoodHashTable<Integer, Integer>();
+        var expected = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 200_000; ++i) {
+            var key = random.nextInt(5_000) - 2_500;
+            switch (random.nextInt(3)) {
+                case 0:
+                    table.put(key, i);
+                    expected.put(key, i);
+                    break;
+                case 1:
+                    table.remove(key);
+                    expected.remove(key);
+                    break;
+                default:
+                    Assert.assertEquals(expected.get(key), table.get(key).orElse(null));
+            }
+            Assert.assertEquals(expected.size(), table.size());
+        }
+    }
+
+    @Test
+    public void testBenchmarkAgainstHashTable() {
+        var count = 200_000;
+        var keys = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            keys[i] = i * 7919;
+        }
+
+        Supplier<SymbolTable<Integer, Integer>> chained = HashTable::new;
+        Supplier<SymbolTable<Integer, Integer>> robinHood = RobinHoodHashTable::new;
+
+        var chainedBytes = bytesPerEntry(chained, keys);
+        var robinHoodBytes = bytesPerEntry(robinHood, keys);
+        Assert.assertTrue(String.format("HashTable: %.1f bytes/entry, RobinHoodHashTable: %.1f bytes/entry",
+                chainedBytes, robinHoodBytes), robinHoodBytes < chainedBytes / 2);
+
+        // The first rounds only warm up the JIT compiler
+        lookupsPerSecond(chained, keys);
+        lookupsPerSecond(robinHood, keys);
+        var chainedLookups = lookupsPerSecond(chained, keys);
+        var robinHoodLookups = lookupsPerSecond(robinHood, keys);
+        Assert.assertTrue(String.format("HashTable: %.0f lookups/s, RobinHoodHashTable: %.0f lookups/s",
+                chainedLookups, robinHoodLookups), robinHoodLookups > chainedLookups);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeExpectedSize() {
+        new RobinHoodHashTable<Integer, Integer>(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fills a table with the keys, and returns the heap it uses per entry.
+     */
+    private static double bytesPerEntry(final Supplier<SymbolTable<Integer, Integer>> factory, final Integer[] keys) {
+        var before = usedMemory();
+        var table = factory.get();
+        for (var key : keys) {
+            table.put(key, key);
+        }
+        var bytesPerEntry = (usedMemory() - before) / (double)keys.length;
+
+        Assert.assertEquals(keys.length, table.size());
+        return bytesPerEntry;
+    }
+
+    /**
+     * Fills a table with the keys, and returns the lookups per second of the best of a few rounds over all of them.
+     */
+    private static double lookupsPerSecond(final Supplier<SymbolTable<Integer, Integer>> factory,
+            final Integer[] keys) {
+        var table = factory.get();
+        for (var key : keys) {
+            table.put(key, key);
+        }
+
+        var best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; ++round) {
+            var found = 0L;
+            var start = System.nanoTime();
+            for (var key : keys) {
+                found += table.get(key).get();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            Assert.assertEquals(7919L * keys.length * (keys.length - 1) / 2, found);
+        }
+        return keys.length * 1e9 / best;
+    }
+
+    private static long usedMemory() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * A key whose hash code is the same for every instance.
+     */
+    private static class CollidingKey {
+        private final int id;
+
+        CollidingKey(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof CollidingKey && ((CollidingKey)o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    @Test
+    public void diagnostics() {
+        var table = new RobinHoodHashTable<Integer, Integer>();
+        for (int i = 0; i < 1000; ++i) {
+            table.put(i, i);
+        }
+
+        var diagnostics = table.diagnostics();
+        Assert.assertEquals(table.capacity(), diagnostics.capacity());
+        Assert.assertEquals(1000, diagnostics.size());
+        var counted = 0L;
+        for (int length = 1; length <= diagnostics.maxLookupLength(); ++length) {
+            counted += diagnostics.count(length);
+        }
+        Assert.assertEquals(1000, counted);
+        Assert.assertTrue(diagnostics.averageLookupLength() >= 1);
+    }
+
+    @Test
+    public void getOrDefaultContainsKeyRemove() {
+        var table = new RobinHoodHashTable<String, Integer>();
+        table.put("a", 1);
+        Assert.assertEquals(1, (int)table.getOrDefault("a", -1));
+        Assert.assertEquals(-1, (int)table.getOrDefault("b", -1));
+        Assert.assertTrue(table.containsKey("a"));
+        Assert.assertFalse(table.containsKey("b"));
+        Assert.assertTrue(table.remove("a"));
+        Assert.assertFalse(table.remove("a"));
+        Assert.assertFalse(table.containsKey("a"));
+    }
+}
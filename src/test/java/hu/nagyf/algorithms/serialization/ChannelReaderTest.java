@@ -0,0 +1,48 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChannelReaderTest {
+
+    @Test
+    public void testRecordsAcrossRefills() throws IOException {
+        var data = ByteBuffer.allocate(400);
+        for (int i = 0; i < 100; ++i) {
+            data.putInt(i);
+        }
+        var reader = new ChannelReader(Channels.newChannel(new ByteArrayInputStream(data.array())), 10);
+
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertEquals(i, reader.require(Integer.BYTES).getInt());
+        }
+    }
+
+    @Test
+    public void testRecordLargerThanBuffer() throws IOException {
+        var data = new byte[1000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (byte)i;
+        }
+        var reader = new ChannelReader(Channels.newChannel(new ByteArrayInputStream(data)), 16);
+
+        Assert.assertEquals(0, reader.require(1).get());
+        var buffer = reader.require(999);
+        for (int i = 1; i < data.length; ++i) {
+            Assert.assertEquals((byte)i, buffer.get());
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testHugeRecordFailsAtEndOfChannel() throws IOException {
+        // Growing the buffer with the data read keeps the allocation proportional to the data, not to the length
+        var reader = new ChannelReader(Channels.newChannel(new ByteArrayInputStream(new byte[100])), 16);
+        reader.require(Integer.MAX_VALUE);
+    }
+}
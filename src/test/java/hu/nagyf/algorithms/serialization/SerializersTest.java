@@ -0,0 +1,49 @@
+package hu.nagyf.algorithms.serialization;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializersTest {
+
+    @Test
+    public void testStrings() {
+        Assert.assertEquals("", roundTrip(Serializers.strings(), ""));
+        Assert.assertEquals("test", roundTrip(Serializers.strings(), "test"));
+        Assert.assertEquals("árvíztűrő €", roundTrip(Serializers.strings(), "árvíztűrő €"));
+        Assert.assertEquals("😀", roundTrip(Serializers.strings(), "😀"));
+    }
+
+    @Test
+    public void testUnpairedSurrogate() {
+        Assert.assertEquals("a?b", roundTrip(Serializers.strings(), "a\uD83Db"));
+    }
+
+    @Test
+    public void testIntegers() {
+        Assert.assertEquals(-42, (int)roundTrip(Serializers.integers(), -42));
+    }
+
+    @Test
+    public void testLongs() {
+        Assert.assertEquals(Long.MIN_VALUE, (long)roundTrip(Serializers.longs(), Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testByteArrays() {
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, roundTrip(Serializers.byteArrays(), new byte[] {1, 2, 3}));
+    }
+
+    private static <T> T roundTrip(final Serializer<T> serializer, final T value) {
+        var size = serializer.serializedSize(value);
+        var buffer = ByteBuffer.allocate(size);
+        serializer.serialize(value, buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+
+        buffer.flip();
+        var result = serializer.deserialize(buffer, size);
+        Assert.assertFalse(buffer.hasRemaining());
+        return result;
+    }
+}